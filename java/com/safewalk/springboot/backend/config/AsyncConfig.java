@@ -0,0 +1,60 @@
+package com.safewalk.springboot.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Background execution for work that must not block a request thread
+ * (cache refreshes against TomTom, scheduled maintenance jobs), for
+ * fanning out route scoring factors, and for persisting SOS state while
+ * contacts are being notified.
+ *
+ * {@code @Scheduled} jobs get their own pool: on Spring's single default scheduler thread
+ * a long retention or archive run would hold back the 1 s incident flush and the rest.
+ */
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${safewalk.scheduler.pool-size:8}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduled-");
+        return scheduler;
+    }
+
+    @Bean(name = "tomtomExecutor")
+    public ThreadPoolTaskExecutor tomtomExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(16);
+        executor.setQueueCapacity(200);
+        executor.setThreadNamePrefix("tomtom-");
+        return executor;
+    }
+
+    @Bean(name = "scoringExecutor")
+    public ThreadPoolTaskExecutor scoringExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(32);
+        executor.setQueueCapacity(500);
+        executor.setThreadNamePrefix("scoring-");
+        return executor;
+    }
+
+    @Bean(name = "sosExecutor")
+    public ThreadPoolTaskExecutor sosExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("sos-");
+        return executor;
+    }
+}
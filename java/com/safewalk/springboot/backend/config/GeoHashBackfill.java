@@ -0,0 +1,82 @@
+package com.safewalk.springboot.backend.config;
+
+import com.safewalk.springboot.backend.geo.GeoHash;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the {@code geohash} column of rows written before it existed, in
+ * {@code sos_events} and {@code core_location_updates}.
+ *
+ * Runs in the background in short batches (a few thousand rows per run) instead of at
+ * startup, since location history can hold millions of rows; each table is left alone
+ * once no row without a geohash remains. Location rows are updated by (id, recorded_at),
+ * the partitioned table's primary key, so each update touches one partition.
+ */
+@Component
+public class GeoHashBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeoHashBackfill.class);
+
+    private static final int BATCH = 1_000;
+    private static final int BATCHES_PER_RUN = 20;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private volatile boolean sosDone;
+    private volatile boolean locationsDone;
+
+    public GeoHashBackfill(DataSource dataSource, TransactionTemplate transactionTemplate) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(initialDelayString = "${safewalk.geohash.backfill-initial-delay-ms:60000}",
+            fixedDelayString = "${safewalk.geohash.backfill-ms:10000}")
+    public void backfill() {
+        try {
+            if (!sosDone) sosDone = fill("sos_events", false);
+            if (!locationsDone) locationsDone = fill(LocationPartitionManager.TABLE, true);
+        } catch (DataAccessException ex) {
+            logger.warn("Geohash backfill failed, will retry: {}", ex.getMessage());
+        }
+    }
+
+    /** @return true once the table has no rows left without a geohash. */
+    private boolean fill(String table, boolean byRecordedAt) {
+        String select = "SELECT id, latitude, longitude" + (byRecordedAt ? ", recorded_at" : "")
+                + " FROM " + table + " WHERE geohash IS NULL AND latitude IS NOT NULL AND longitude IS NOT NULL"
+                + " FETCH FIRST " + BATCH + " ROWS ONLY";
+        String update = "UPDATE " + table + " SET geohash = ? WHERE id = ?" + (byRecordedAt ? " AND recorded_at = ?" : "");
+        long filled = 0;
+        for (int b = 0; b < BATCHES_PER_RUN; b++) {
+            Integer n = transactionTemplate.execute(status -> {
+                List<Object[]> args = new ArrayList<>();
+                jdbcTemplate.query(select, rs -> {
+                    String hash = GeoHash.encode(rs.getDouble(2), rs.getDouble(3), GeoHash.STORED_PRECISION);
+                    args.add(byRecordedAt
+                            ? new Object[] {hash, rs.getLong(1), rs.getTimestamp(4)}
+                            : new Object[] {hash, rs.getLong(1)});
+                });
+                if (!args.isEmpty()) jdbcTemplate.batchUpdate(update, args);
+                return args.size();
+            });
+            if (n == null || n == 0) {
+                if (filled > 0) logger.info("Geohash backfill of {} finished ({} rows in the last run)", table, filled);
+                return true;
+            }
+            filled += n;
+        }
+        logger.info("Geohash backfill of {}: {} rows in this run", table, filled);
+        return false;
+    }
+}
@@ -0,0 +1,282 @@
+package com.safewalk.springboot.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Time partitioning and retention for {@code core_location_updates}.
+ *
+ * On PostgreSQL the table is range-partitioned by {@code recorded_at}, one partition per
+ * day ({@code core_location_updates_pYYYYMMDD}), created a few days ahead. Indexes are
+ * declared on the parent, so every partition gets its own (trip_id, recorded_at, id) and
+ * (geohash, recorded_at) indexes.
+ * Retention drops whole partitions older than {@code safewalk.locations.retention-days},
+ * which costs the same no matter how many rows they hold. An existing unpartitioned table
+ * is converted once at startup and kept as the DEFAULT partition; its rows age out by
+ * batched deletes over a recorded_at index. PostgreSQL refuses to create a partition while
+ * the DEFAULT partition holds rows for its range, so such rows (today's, right after the
+ * conversion) are moved into the new daily partition with the DEFAULT briefly detached.
+ * The parent keeps the trip_id foreign key to trips.
+ *
+ * Other databases (H2 in development) have no declarative partitioning; there the same
+ * retention runs as batched deletes by recorded_at.
+ *
+ * Queries keep going through the parent table, so TripLocationRepository works across
+ * partitions as before; its recorded_at-bounded variants only touch the partitions in range.
+ */
+@Component
+public class LocationPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationPartitionManager.class);
+
+    static final String TABLE = "core_location_updates";
+    private static final String LEGACY_TABLE = TABLE + "_legacy";
+    private static final String PARTITION_PREFIX = TABLE + "_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int DELETE_BATCH = 5_000;
+    private static final String TRIP_FK = "fk_location_trip";
+    private static final String COLUMNS = "id, latitude, longitude, \"timestamp\", trip_id, recorded_at, geohash";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int retentionDays;
+    private final int daysAhead;
+    private final boolean enabled;
+    private volatile boolean partitioned;
+
+    public LocationPartitionManager(DataSource dataSource,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${safewalk.locations.retention-days:30}") int retentionDays,
+                                    @Value("${safewalk.locations.partitions-ahead:3}") int daysAhead,
+                                    @Value("${safewalk.locations.partitioning.enabled:true}") boolean enabled) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.transactionTemplate = transactionTemplate;
+        this.retentionDays = Math.max(1, retentionDays);
+        this.daysAhead = Math.max(1, daysAhead);
+        this.enabled = enabled;
+    }
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!enabled) return;
+        try {
+            if (!isPostgres()) {
+                logger.info("Location partitioning needs PostgreSQL; using batched retention deletes on {}", TABLE);
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> ensurePartitionedTable());
+            partitioned = true;
+            createUpcomingPartitions();
+        } catch (Exception ex) {
+            logger.warn("Could not set up partitioning for {}: {}", TABLE, ex.getMessage());
+        }
+    }
+
+    /**
+     * Daily maintenance: make sure the next days have partitions, then apply retention.
+     */
+    @Scheduled(cron = "${safewalk.locations.maintenance-cron:0 15 0 * * *}")
+    public void maintain() {
+        if (!enabled) return;
+        if (partitioned) createUpcomingPartitions();
+        applyRetention();
+    }
+
+    void applyRetention() {
+        LocalDate cutoff = LocalDate.now().minusDays(retentionDays);
+        int dropped = 0;
+        if (partitioned) {
+            for (String partition : listPartitions()) {
+                LocalDate day = partitionDay(partition);
+                // A partition covers [day, day + 1); drop it once all of it is past the cutoff.
+                if (day != null && !day.plusDays(1).isAfter(cutoff)) {
+                    jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition);
+                    dropped++;
+                }
+            }
+        }
+        // Rows outside daily partitions (legacy DEFAULT partition, or no partitioning at all).
+        String target = partitioned ? LEGACY_TABLE : TABLE;
+        long deleted = partitioned && !tableExists(LEGACY_TABLE) ? 0 : deleteOlderThan(target, cutoff.atStartOfDay());
+        if (dropped > 0 || deleted > 0) {
+            logger.info("Location retention ({} days): dropped {} partitions, deleted {} rows", retentionDays, dropped, deleted);
+        }
+    }
+
+    private long deleteOlderThan(String table, LocalDateTime cutoff) {
+        long total = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(status -> jdbcTemplate.update(
+                    "DELETE FROM " + table + " WHERE id IN (SELECT id FROM " + table
+                            + " WHERE recorded_at < ? FETCH FIRST " + DELETE_BATCH + " ROWS ONLY)", cutoff));
+            if (deleted == null || deleted == 0) return total;
+            total += deleted;
+        }
+    }
+
+    private void ensurePartitionedTable() {
+        String kind = jdbcTemplate.query(
+                "SELECT c.relkind FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace "
+                        + "WHERE c.relname = ? AND n.nspname = current_schema()",
+                rs -> rs.next() ? rs.getString(1) : null, TABLE);
+        if ("p".equals(kind)) {
+            ensureGeohashColumn();
+            ensureTripForeignKey();
+            if (tableExists(LEGACY_TABLE)) ensureLegacyRecordedIndex();
+            return;
+        }
+
+        if (kind != null) {
+            logger.info("Converting {} to a partitioned table; existing rows move to the DEFAULT partition", TABLE);
+            // recorded_at is part of the partition key and primary key, so it must be set.
+            jdbcTemplate.execute("UPDATE " + TABLE + " SET recorded_at = COALESCE(\"timestamp\", now()) WHERE recorded_at IS NULL");
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY_TABLE);
+            // Free the names the new parent uses; a partition may not have its own identity.
+            jdbcTemplate.execute("ALTER TABLE " + LEGACY_TABLE + " DROP CONSTRAINT IF EXISTS " + TABLE + "_pkey");
+            jdbcTemplate.execute("ALTER INDEX IF EXISTS idx_location_trip_recorded RENAME TO idx_location_legacy_trip_recorded");
+            jdbcTemplate.execute("ALTER INDEX IF EXISTS idx_location_geohash RENAME TO idx_location_legacy_geohash");
+            jdbcTemplate.execute("ALTER TABLE " + LEGACY_TABLE + " ADD COLUMN IF NOT EXISTS geohash varchar(12)");
+            jdbcTemplate.execute("ALTER TABLE " + LEGACY_TABLE + " ALTER COLUMN id DROP IDENTITY IF EXISTS");
+            jdbcTemplate.execute("ALTER TABLE " + LEGACY_TABLE + " ALTER COLUMN id DROP DEFAULT");
+            jdbcTemplate.execute("ALTER TABLE " + LEGACY_TABLE + " ALTER COLUMN recorded_at SET NOT NULL");
+            ensureLegacyRecordedIndex();
+        }
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " ("
+                + "id bigint GENERATED BY DEFAULT AS IDENTITY, "
+                + "latitude double precision NOT NULL, "
+                + "longitude double precision NOT NULL, "
+                + "\"timestamp\" timestamp, "
+                + "trip_id bigint, "
+                + "recorded_at timestamp NOT NULL, "
+                + "geohash varchar(12), "
+                + "PRIMARY KEY (id, recorded_at), "
+                + "CONSTRAINT " + TRIP_FK + " FOREIGN KEY (trip_id) REFERENCES trips (id)"
+                + ") PARTITION BY RANGE (recorded_at)");
+        // Declared on the parent: PostgreSQL creates a local copy on every partition.
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_location_trip_recorded ON " + TABLE + " (trip_id, recorded_at, id)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_location_geohash ON " + TABLE + " (geohash, recorded_at)");
+
+        if (kind != null) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + LEGACY_TABLE + " DEFAULT");
+            // Keep ids increasing across the old and new rows.
+            jdbcTemplate.execute("SELECT setval(pg_get_serial_sequence('" + TABLE + "', 'id'), "
+                    + "COALESCE((SELECT max(id) FROM " + LEGACY_TABLE + "), 0) + 1, false)");
+        }
+    }
+
+    /** For tables partitioned before the geohash column existed. */
+    private void ensureGeohashColumn() {
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD COLUMN IF NOT EXISTS geohash varchar(12)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_location_geohash ON " + TABLE + " (geohash, recorded_at)");
+    }
+
+    /** For tables partitioned before the parent carried the trips foreign key. */
+    private void ensureTripForeignKey() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_constraint WHERE conname = ? AND conrelid = ?::regclass",
+                Integer.class, TRIP_FK, TABLE);
+        if (count != null && count > 0) return;
+        logger.info("Adding trip_id foreign key to {}", TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ADD CONSTRAINT " + TRIP_FK
+                + " FOREIGN KEY (trip_id) REFERENCES trips (id)");
+    }
+
+    private void ensureLegacyRecordedIndex() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_location_legacy_recorded ON " + LEGACY_TABLE + " (recorded_at)");
+    }
+
+    private void createUpcomingPartitions() {
+        LocalDate today = LocalDate.now();
+        boolean hasDefault = tableExists(LEGACY_TABLE);
+        for (int i = 0; i <= daysAhead; i++) {
+            LocalDate day = today.plusDays(i);
+            String partition = PARTITION_PREFIX + day.format(SUFFIX);
+            try {
+                if (hasDefault && !tableExists(partition) && defaultHasRows(day)) {
+                    transactionTemplate.executeWithoutResult(status -> moveOutOfDefault(partition, day));
+                } else {
+                    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + TABLE
+                            + " FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+                }
+            } catch (Exception ex) {
+                logger.warn("Could not create location partition for {}: {}", day, ex.getMessage());
+            }
+        }
+    }
+
+    private boolean defaultHasRows(LocalDate day) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM " + LEGACY_TABLE + " WHERE recorded_at >= ? AND recorded_at < ?)",
+                Boolean.class, day.atStartOfDay(), day.plusDays(1).atStartOfDay()));
+    }
+
+    /**
+     * Creates a day's partition while the DEFAULT partition holds rows for that day: detach
+     * the DEFAULT, create the partition, move the day's rows into it, re-attach. One
+     * transaction, so readers see either the old or the new layout.
+     */
+    private void moveOutOfDefault(String partition, LocalDate day) {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DETACH PARTITION " + LEGACY_TABLE);
+        jdbcTemplate.execute("CREATE TABLE " + partition + " PARTITION OF " + TABLE
+                + " FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+        int moved = jdbcTemplate.update("INSERT INTO " + TABLE + " (" + COLUMNS + ") SELECT " + COLUMNS
+                + " FROM " + LEGACY_TABLE + " WHERE recorded_at >= ? AND recorded_at < ?", from, to);
+        jdbcTemplate.update("DELETE FROM " + LEGACY_TABLE + " WHERE recorded_at >= ? AND recorded_at < ?", from, to);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + LEGACY_TABLE + " DEFAULT");
+        logger.info("Moved {} rows for {} from the DEFAULT partition into {}", moved, day, partition);
+    }
+
+    private List<String> listPartitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = ? AND c.relname LIKE ?",
+                String.class, TABLE, PARTITION_PREFIX + "%");
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace "
+                        + "WHERE c.relname = ? AND n.nspname = current_schema()",
+                Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private static LocalDate partitionDay(String partition) {
+        try {
+            return LocalDate.parse(partition.substring(PARTITION_PREFIX.length()), SUFFIX);
+        } catch (DateTimeParseException | IndexOutOfBoundsException ex) {
+            return null;
+        }
+    }
+
+    private boolean isPostgres() throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName());
+        }
+    }
+}
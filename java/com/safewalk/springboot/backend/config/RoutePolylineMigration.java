@@ -0,0 +1,183 @@
+package com.safewalk.springboot.backend.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safewalk.springboot.backend.entity.TripRoute;
+import com.safewalk.springboot.backend.geo.PolylineCodec;
+import com.safewalk.springboot.backend.repository.TripRouteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * One-off startup migration of route geometry out of the {@code trips} row into
+ * {@code trip_routes}.
+ *
+ * Older rows hold the route in {@code selected_route_polyline_json} (JSON text) and/or
+ * {@code selected_route_polyline[_full]} (binary); both are moved to a TripRoute, JSON
+ * being converted to the binary format on the way, and the columns on the trip are
+ * cleared. The Trip entity no longer maps them, so plain JDBC is used; on a schema that
+ * never had them the migration does nothing. Runs in batches until no rows are left.
+ * Rows whose JSON cannot be parsed keep their JSON and get an empty blob so they are
+ * not picked up again. The route bytes no longer loaded with every trip are logged.
+ *
+ * The migration starts once the application is ready, i.e. while it already serves
+ * traffic. Until it has finished, {@link #readLegacy} lets TripRouteService read a
+ * not-yet-moved route straight from the old columns.
+ */
+@Component
+public class RoutePolylineMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutePolylineMigration.class);
+
+    private static final TypeReference<List<List<Double>>> POLYLINE_TYPE = new TypeReference<>() {};
+
+    private static final String SELECT_BATCH =
+            "SELECT id, selected_route_polyline_json, selected_route_polyline, selected_route_polyline_full FROM trips "
+                    + "WHERE (selected_route_polyline IS NOT NULL AND octet_length(selected_route_polyline) > 0) "
+                    + "OR (selected_route_polyline IS NULL AND selected_route_polyline_json IS NOT NULL) "
+                    + "FETCH FIRST 500 ROWS ONLY";
+
+    private static final String SELECT_ONE =
+            "SELECT selected_route_polyline_json, selected_route_polyline, selected_route_polyline_full FROM trips "
+                    + "WHERE id = ?";
+
+    private final TripRouteRepository tripRouteRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private volatile Boolean legacyColumns;
+    private volatile boolean complete;
+
+    public RoutePolylineMigration(TripRouteRepository tripRouteRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  DataSource dataSource,
+                                  ObjectMapper objectMapper) {
+        this.tripRouteRepository = tripRouteRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        if (!hasLegacyColumns()) {
+            // Fresh schema: the legacy columns were never created.
+            logger.debug("No legacy route columns on trips; nothing to migrate");
+            complete = true;
+            return;
+        }
+        Stats stats = new Stats();
+        try {
+            while (true) {
+                Integer migrated = transactionTemplate.execute(status -> migrateBatch(stats));
+                if (migrated == null || migrated == 0) break;
+            }
+        } catch (DataAccessException ex) {
+            // Left incomplete: the legacy read fallback stays on and the next start resumes.
+            logger.warn("Route geometry migration stopped after {} trips: {}", stats.rows, ex.getMessage());
+            return;
+        }
+        complete = true;
+        if (stats.rows > 0) {
+            logger.info("Moved route geometry of {} trips to trip_routes: {} bytes off the trips table "
+                            + "(avg {} bytes per trip row), {} JSON routes converted ({} -> {} bytes), {} skipped",
+                    stats.rows, stats.movedBytes, stats.movedBytes / stats.rows,
+                    stats.jsonRows, stats.jsonBytes, stats.binaryBytes, stats.skipped);
+        }
+    }
+
+    /**
+     * A trip's route from the legacy trips columns, for reads that miss trip_routes while
+     * the migration is still running. Nothing is written.
+     *
+     * @return The route, or empty when the migration is done, the columns do not exist,
+     *         or the trip has no legacy route.
+     */
+    public Optional<TripRoute> readLegacy(long tripId) {
+        if (complete || !hasLegacyColumns()) return Optional.empty();
+        List<Object[]> rows = jdbcTemplate.query(SELECT_ONE, (rs, i) -> new Object[] {
+                rs.getString(1), rs.getBytes(2), rs.getBytes(3)}, tripId);
+        if (rows.isEmpty()) return Optional.empty();
+        String json = (String) rows.get(0)[0];
+        byte[] polyline = (byte[]) rows.get(0)[1];
+        byte[] polylineFull = (byte[]) rows.get(0)[2];
+        if (polyline == null || polyline.length == 0) {
+            if (json == null) return Optional.empty();
+            try {
+                polyline = PolylineCodec.encode(objectMapper.readValue(json, POLYLINE_TYPE));
+            } catch (Exception ex) {
+                logger.debug("Unreadable legacy route of Trip ID {}: {}", tripId, ex.getMessage());
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new TripRoute(tripId, polyline, polylineFull));
+    }
+
+    private boolean hasLegacyColumns() {
+        Boolean present = legacyColumns;
+        if (present == null) {
+            Integer count = jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM information_schema.columns WHERE lower(table_name) = 'trips' "
+                            + "AND lower(column_name) IN ('selected_route_polyline_json', "
+                            + "'selected_route_polyline', 'selected_route_polyline_full')",
+                    Integer.class);
+            present = count != null && count == 3;
+            legacyColumns = present;
+        }
+        return present;
+    }
+
+    private int migrateBatch(Stats stats) {
+        List<Object[]> rows = jdbcTemplate.query(SELECT_BATCH, (rs, i) -> new Object[] {
+                rs.getLong(1), rs.getString(2), rs.getBytes(3), rs.getBytes(4)});
+        for (Object[] row : rows) {
+            long tripId = (Long) row[0];
+            String json = (String) row[1];
+            byte[] polyline = (byte[]) row[2];
+            byte[] polylineFull = (byte[]) row[3];
+            long rowBytes = (json == null ? 0 : json.getBytes(StandardCharsets.UTF_8).length)
+                    + (polyline == null ? 0 : polyline.length) + (polylineFull == null ? 0 : polylineFull.length);
+
+            if (polyline == null) {
+                try {
+                    polyline = PolylineCodec.encode(objectMapper.readValue(json, POLYLINE_TYPE));
+                    stats.jsonRows++;
+                    stats.jsonBytes += json.getBytes(StandardCharsets.UTF_8).length;
+                    stats.binaryBytes += polyline.length;
+                } catch (Exception ex) {
+                    // Keep the JSON; an empty blob stops the next batch from picking the row up again.
+                    logger.warn("Could not migrate route of Trip ID {}: {}", tripId, ex.getMessage());
+                    jdbcTemplate.update("UPDATE trips SET selected_route_polyline = ? WHERE id = ?", new byte[0], tripId);
+                    stats.skipped++;
+                    continue;
+                }
+            }
+            tripRouteRepository.save(new TripRoute(tripId, polyline, polylineFull));
+            jdbcTemplate.update("UPDATE trips SET selected_route_polyline = NULL, selected_route_polyline_full = NULL, "
+                    + "selected_route_polyline_json = NULL WHERE id = ?", tripId);
+            stats.rows++;
+            stats.movedBytes += rowBytes;
+        }
+        return rows.size();
+    }
+
+    private static final class Stats {
+        long rows;
+        long skipped;
+        long movedBytes;
+        long jsonRows;
+        long jsonBytes;
+        long binaryBytes;
+    }
+}
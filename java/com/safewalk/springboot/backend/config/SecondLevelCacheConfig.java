@@ -0,0 +1,83 @@
+package com.safewalk.springboot.backend.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache for users and their emergency contacts, backed by
+ * Caffeine through JCache.
+ *
+ * Users and contacts are read on every SOS and trip start but rarely change, so the
+ * entity, collection and query regions below keep them out of the database. Each region
+ * is bounded by {@code safewalk.l2cache.max-entries} and expires entries
+ * {@code safewalk.l2cache.ttl} after they were written; UserServiceImpl evicts a user's
+ * entries when it saves them. The update-timestamps region, which Hibernate uses to
+ * invalidate cached queries, is bounded but never expires.
+ *
+ * Each application context gets its own CacheManager under a unique URI instead of the
+ * provider's JVM-wide default, so a second context in the same JVM (tests, a restart
+ * with devtools) neither fails on regions that already exist nor shares cached entities.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String USERS = "users";
+    public static final String USER_CONTACTS = "users.emergencyContacts";
+    public static final String EMERGENCY_CONTACTS = "emergencyContacts";
+    public static final String USER_QUERIES = "userQueries";
+
+    /** Regions with hit-ratio metrics; see SecondLevelCacheMetrics. */
+    public static final List<String> ENTITY_REGIONS = List.of(USERS, USER_CONTACTS, EMERGENCY_CONTACTS);
+    public static final List<String> QUERY_REGIONS = List.of(USER_QUERIES);
+
+    private static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+    private static final String DEFAULT_QUERY_RESULTS = "default-query-results-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(@Value("${safewalk.l2cache.max-entries:10000}") long maxEntries,
+                                                @Value("${safewalk.l2cache.ttl:PT30M}") Duration ttl) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(
+                URI.create("safewalk-l2-" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : List.of(USERS, USER_CONTACTS, EMERGENCY_CONTACTS, USER_QUERIES, DEFAULT_QUERY_RESULTS)) {
+            cacheManager.createCache(region, regionConfig(maxEntries, ttl));
+        }
+        cacheManager.createCache(UPDATE_TIMESTAMPS, regionConfig(maxEntries, null));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheProperties(CacheManager secondLevelCacheManager) {
+        return properties -> {
+            properties.put("hibernate.cache.use_second_level_cache", true);
+            properties.put("hibernate.cache.use_query_cache", true);
+            properties.put("hibernate.cache.region.factory_class", "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", secondLevelCacheManager);
+            // Regions are declared above; anything else gets a default cache and a warning.
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "create-warn");
+            // Per-region hit/miss counts for SecondLevelCacheMetrics.
+            properties.put("hibernate.generate_statistics", true);
+        };
+    }
+
+    private static CaffeineConfiguration<Object, Object> regionConfig(long maxEntries, Duration ttl) {
+        CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+        config.setMaximumSize(OptionalLong.of(maxEntries));
+        if (ttl != null) config.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        config.setStatisticsEnabled(true);
+        return config;
+    }
+}
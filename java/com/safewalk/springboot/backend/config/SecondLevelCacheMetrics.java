@@ -0,0 +1,56 @@
+package com.safewalk.springboot.backend.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Exports hits, misses and hit ratio of each second-level cache region declared in
+ * SecondLevelCacheConfig, as {@code safewalk.l2cache.requests{region, result}} and
+ * {@code safewalk.l2cache.hit.ratio{region}}.
+ */
+@Component
+public class SecondLevelCacheMetrics {
+
+    public SecondLevelCacheMetrics(EntityManagerFactory entityManagerFactory, MeterRegistry meterRegistry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (String region : SecondLevelCacheConfig.ENTITY_REGIONS) {
+            register(meterRegistry, region, statistics, s -> s.getDomainDataRegionStatistics(region));
+        }
+        for (String region : SecondLevelCacheConfig.QUERY_REGIONS) {
+            register(meterRegistry, region, statistics, s -> s.getQueryRegionStatistics(region));
+        }
+    }
+
+    private static void register(MeterRegistry registry, String region, Statistics statistics,
+                                 Function<Statistics, CacheRegionStatistics> lookup) {
+        ToDoubleFunction<Statistics> hits = s -> {
+            CacheRegionStatistics r = lookup.apply(s);
+            return r == null ? 0 : r.getHitCount();
+        };
+        ToDoubleFunction<Statistics> misses = s -> {
+            CacheRegionStatistics r = lookup.apply(s);
+            return r == null ? 0 : r.getMissCount();
+        };
+        FunctionCounter.builder("safewalk.l2cache.requests", statistics, hits)
+                .tags("region", region, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("safewalk.l2cache.requests", statistics, misses)
+                .tags("region", region, "result", "miss")
+                .register(registry);
+        Gauge.builder("safewalk.l2cache.hit.ratio", statistics, s -> {
+                    double h = hits.applyAsDouble(s), total = h + misses.applyAsDouble(s);
+                    return total == 0 ? Double.NaN : h / total;
+                })
+                .tag("region", region)
+                .register(registry);
+    }
+}
@@ -0,0 +1,57 @@
+package com.safewalk.springboot.backend.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Drops the NOT NULL constraint on {@code sos_events.latitude/longitude}, which older
+ * schemas have; an SOS raised without a known position is recorded with both empty.
+ *
+ * Runs while the context starts, after Hibernate has set up the schema, so it is done
+ * before the first SOS can arrive. Schema updates do not relax existing constraints on
+ * their own. Columns that are already nullable are left alone, so a migrated schema
+ * sees no DDL.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SosEventLocationMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(SosEventLocationMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SosEventLocationMigration(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @PostConstruct
+    public void migrate() {
+        List<String> notNull;
+        try {
+            notNull = jdbcTemplate.queryForList(
+                    "SELECT lower(column_name) FROM information_schema.columns WHERE lower(table_name) = 'sos_events' "
+                            + "AND lower(column_name) IN ('latitude', 'longitude') AND is_nullable = 'NO'",
+                    String.class);
+        } catch (DataAccessException ex) {
+            logger.warn("Could not check sos_events for NOT NULL positions: {}", ex.getMessage());
+            return;
+        }
+        for (String column : notNull) {
+            try {
+                jdbcTemplate.execute("ALTER TABLE sos_events ALTER COLUMN " + column + " DROP NOT NULL");
+                logger.info("Made sos_events.{} nullable", column);
+            } catch (DataAccessException ex) {
+                logger.warn("Could not make sos_events.{} nullable; SOS events without a position will fail: {}",
+                        column, ex.getMessage());
+            }
+        }
+    }
+}
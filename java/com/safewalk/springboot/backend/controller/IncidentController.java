@@ -0,0 +1,51 @@
+package com.safewalk.springboot.backend.controller;
+
+import com.safewalk.springboot.backend.exception.BadRequestException;
+import com.safewalk.springboot.backend.service.IncidentSearchService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only incident search for dashboards.
+ */
+@RestController
+@RequestMapping("/api/incidents")
+@RequiredArgsConstructor
+public class IncidentController {
+
+    private static final double MAX_RADIUS_METERS = 50_000;
+    private static final int MAX_HOURS = 24 * 30;
+
+    private final IncidentSearchService incidentSearchService;
+
+    /**
+     * Incidents within {@code radius} metres of a point in the last {@code hours} hours.
+     *
+     * @return 200 OK with the total count and the newest matching incidents.
+     */
+    @GetMapping("/near")
+    public ResponseEntity<Map<String, Object>> findNear(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "500") double radius,
+            @RequestParam(defaultValue = "24") int hours) {
+        if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+            throw new BadRequestException("lat/lng out of range");
+        }
+        if (radius <= 0 || radius > MAX_RADIUS_METERS) {
+            throw new BadRequestException("radius must be between 0 and " + (int) MAX_RADIUS_METERS + " meters");
+        }
+        if (hours <= 0 || hours > MAX_HOURS) {
+            throw new BadRequestException("hours must be between 1 and " + MAX_HOURS);
+        }
+        Duration window = Duration.ofHours(hours);
+        List<IncidentSearchService.Incident> incidents = incidentSearchService.findNear(lat, lng, radius, window);
+        long count = incidentSearchService.countNear(lat, lng, radius, window);
+        return ResponseEntity.ok(Map.of("count", count, "incidents", incidents));
+    }
+}
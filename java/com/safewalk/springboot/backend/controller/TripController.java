@@ -1,7 +1,10 @@
 package com.safewalk.springboot.backend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.safewalk.springboot.backend.dto.LocationUpdateDto;
 import com.safewalk.springboot.backend.dto.RouteOptionDto;
+import com.safewalk.springboot.backend.dto.TrackPageDto;
+import com.safewalk.springboot.backend.dto.TrackPointDto;
 import com.safewalk.springboot.backend.dto.TripCreationDto;
 import com.safewalk.springboot.backend.dto.TripRouteOptionsDto;
 import com.safewalk.springboot.backend.entity.CoreLocationUpdate;
@@ -12,8 +15,16 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
 
 /**
  * REST Controller for managing the entire Trip lifecycle.
@@ -27,7 +38,10 @@ public class TripController {
 
     private static final Logger logger = LoggerFactory.getLogger(TripController.class);
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final TripService tripService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Endpoint 1: Initiates a new trip request.
@@ -83,6 +97,75 @@ public class TripController {
         return ResponseEntity.ok(savedUpdate);
     }
 
+    /**
+     * Returns one page of a trip's recorded locations in chronological order.
+     * Works the same for live trips and for completed trips whose track was archived.
+     *
+     * @param tripId The ID of the trip.
+     * @param after Cursor from the previous page's nextCursor; omit for the first page.
+     * @param limit Page size (capped server-side).
+     * @return 200 OK with the page and the cursor for the next one.
+     */
+    @GetMapping("/{tripId}/locations")
+    public ResponseEntity<TrackPageDto> getLocationPage(
+            @PathVariable Long tripId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(tripService.getLocationPage(tripId, after, limit));
+    }
+
+    /**
+     * Streams a trip's full location history as NDJSON (one point per line, chunked),
+     * reading it page by page so server memory does not grow with the trip length.
+     *
+     * @param tripId The ID of the trip.
+     * @param minDistanceMeters Optional thinning for map display: skip points closer than
+     *                          this to the previous one sent (0 sends every point).
+     * @return 200 OK with an application/x-ndjson body.
+     */
+    @GetMapping(value = "/{tripId}/locations/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamLocationHistory(
+            @PathVariable Long tripId,
+            @RequestParam(defaultValue = "0") double minDistanceMeters) {
+        TripService.TrackWriter writer = tripService.openLocationHistory(tripId, minDistanceMeters);
+        StreamingResponseBody body = out -> {
+            OutputStream buffered = new BufferedOutputStream(out, 16 * 1024);
+            try {
+                long count = writer.writeTo(point -> {
+                    try {
+                        buffered.write(objectMapper.writeValueAsBytes(point));
+                        buffered.write('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                logger.debug("Streamed {} locations of trip ID {}", count, tripId);
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
+            }
+            buffered.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    /**
+     * Returns a trip's path downsampled for map display (Largest-Triangle-Three-Buckets).
+     * Points near SOS events and where the user left or rejoined the route are always
+     * included and carry a marker.
+     *
+     * @param tripId The ID of the trip.
+     * @param points Target number of points (used when zoom is not given).
+     * @param zoom Web-map zoom level the path will be drawn at.
+     * @return 200 OK with the downsampled points in order.
+     */
+    @GetMapping("/{tripId}/locations/downsampled")
+    public ResponseEntity<List<TrackPointDto>> getDownsampledHistory(
+            @PathVariable Long tripId,
+            @RequestParam(required = false) Integer points,
+            @RequestParam(required = false) Integer zoom) {
+        return ResponseEntity.ok(tripService.getDownsampledHistory(tripId, points, zoom));
+    }
+
     /**
      * Endpoint 4: Completes an active trip.
      * Marks the trip status as COMPLETED and stops monitoring.
@@ -12,6 +12,7 @@ public class RouteOptionDto {
     private Long duration;        // seconds
     private Double safetyScore;
     private List<LocationDto> polyline;
+    private List<String> scoringFactors; // factors behind safetyScore; ":cached" marks a stale value
 
     public RouteOptionDto() {}
 
@@ -36,4 +37,7 @@ public class RouteOptionDto {
 
     public List<LocationDto> getPolyline() { return polyline; }
     public void setPolyline(List<LocationDto> polyline) { this.polyline = polyline; }
+
+    public List<String> getScoringFactors() { return scoringFactors; }
+    public void setScoringFactors(List<String> scoringFactors) { this.scoringFactors = scoringFactors; }
 }
@@ -0,0 +1,28 @@
+package com.safewalk.springboot.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One keyset page of a trip's location history.
+ * * Pass {@code nextCursor} back as {@code after} to fetch the following page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrackPageDto {
+
+    private Long tripId;
+
+    private List<TrackPointDto> points;
+
+    /**
+     * Opaque cursor for the next page, or null when this is the last page.
+     */
+    private String nextCursor;
+}
@@ -0,0 +1,38 @@
+package com.safewalk.springboot.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One recorded point of a trip's location history.
+ * * Returned by GET /api/trips/{tripId}/locations and, one per line, by the NDJSON stream.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrackPointDto {
+
+    private Double lat;
+
+    private Double lng;
+
+    /**
+     * Device time of the update, if the bot sent one.
+     */
+    private LocalDateTime timestamp;
+
+    /**
+     * When the core backend accepted the update.
+     */
+    private LocalDateTime recordedAt;
+
+    /**
+     * Why the point was kept when downsampling ("sos", "deviation"); null otherwise.
+     */
+    private String marker;
+}
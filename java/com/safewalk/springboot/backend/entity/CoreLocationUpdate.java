@@ -1,5 +1,6 @@
 package com.safewalk.springboot.backend.entity;
 
+import com.safewalk.springboot.backend.geo.GeoHash;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
@@ -7,7 +8,13 @@ import java.time.LocalDateTime;
  * Minimal entity to represent incoming location updates.
  */
 @Entity
-@Table(name = "core_location_updates")
+@Table(name = "core_location_updates",
+        indexes = {
+                @Index(name = "idx_location_trip_recorded", columnList = "trip_id, recorded_at, id"),
+                @Index(name = "idx_location_geohash", columnList = "geohash, recorded_at"),
+                // Serves the batched retention deletes where the table is not partitioned.
+                @Index(name = "idx_location_recorded", columnList = "recorded_at")
+        })
 public class CoreLocationUpdate {
 
     @Id
@@ -23,6 +30,19 @@ public class CoreLocationUpdate {
     @Column(name = "timestamp")
     private LocalDateTime timestamp;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "trip_id")
+    private Trip trip;
+
+    // When the core backend stored the update (timestamp is the device time).
+    // Partition key of core_location_updates, so it is always set.
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+
+    // Geohash of latitude/longitude (GeoHash.STORED_PRECISION), set on insert.
+    @Column(name = "geohash", length = 12)
+    private String geohash;
+
     public CoreLocationUpdate() {}
 
     public CoreLocationUpdate(Double latitude, Double longitude, LocalDateTime timestamp) {
@@ -31,6 +51,14 @@ public class CoreLocationUpdate {
         this.timestamp = timestamp;
     }
 
+    @PrePersist
+    void onPersist() {
+        if (recordedAt == null) recordedAt = LocalDateTime.now();
+        if (latitude != null && longitude != null) {
+            geohash = GeoHash.encode(latitude, longitude, GeoHash.STORED_PRECISION);
+        }
+    }
+
     public Long getId() {
         return id;
     }
@@ -55,4 +83,22 @@ public class CoreLocationUpdate {
     public void setTimestamp(LocalDateTime timestamp) {
         this.timestamp = timestamp;
     }
+
+    public Trip getTrip() {
+        return trip;
+    }
+    public void setTrip(Trip trip) {
+        this.trip = trip;
+    }
+
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+    public void setRecordedAt(LocalDateTime recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+
+    public String getGeohash() {
+        return geohash;
+    }
 }
@@ -1,11 +1,14 @@
 package com.safewalk.springboot.backend.entity;
 
+import com.safewalk.springboot.backend.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * JPA Entity for a User's Emergency Contact.
@@ -13,6 +16,8 @@ import lombok.NoArgsConstructor;
  */
 @Entity
 @Table(name = "emergency_contacts")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.EMERGENCY_CONTACTS)
 @Data
 @Builder
 @NoArgsConstructor
@@ -0,0 +1,42 @@
+package com.safewalk.springboot.backend.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.elasticsearch.annotations.DateFormat;
+import org.springframework.data.elasticsearch.annotations.Document;
+import org.springframework.data.elasticsearch.annotations.Field;
+import org.springframework.data.elasticsearch.annotations.FieldType;
+import org.springframework.data.elasticsearch.annotations.GeoPointField;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+
+import java.time.LocalDateTime;
+
+/**
+ * Elasticsearch document for a safety incident (SOS event or route deviation).
+ * * Mapped with a geo_point location and a date, so radius-and-time queries are served
+ * by the index. Used by ElasticsearchIncidentSearchService only; the source of truth for
+ * SOS events stays in sos_events.
+ */
+@Document(indexName = "safewalk-incidents")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IncidentDocument {
+
+    @Id
+    private String id;
+
+    @Field(type = FieldType.Keyword)
+    private String type;
+
+    @Field(type = FieldType.Long)
+    private Long tripId;
+
+    @GeoPointField
+    private GeoPoint location;
+
+    @Field(type = FieldType.Date, format = DateFormat.date_hour_minute_second_millis)
+    private LocalDateTime occurredAt;
+}
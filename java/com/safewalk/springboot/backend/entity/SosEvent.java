@@ -1,5 +1,6 @@
 package com.safewalk.springboot.backend.entity;
 
+import com.safewalk.springboot.backend.geo.GeoHash;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -17,7 +18,8 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "sos_events", indexes = {
-    @Index(name = "idx_sos_trip_time", columnList = "trip_id, created_at")
+    @Index(name = "idx_sos_trip_time", columnList = "trip_id, created_at"),
+    @Index(name = "idx_sos_geohash_time", columnList = "geohash, created_at")
 })
 @Data
 @Builder
@@ -35,14 +37,18 @@ public class SosEvent {
     @NotNull
     private Trip trip;
 
-    @Column(nullable = false)
-    @NotNull
+    // Null when no position was known at the time of the SOS.
+    @Column
     private Double latitude;
 
-    @Column(nullable = false)
-    @NotNull
+    @Column
     private Double longitude;
 
+    // Geohash of latitude/longitude (GeoHash.STORED_PRECISION), kept in sync on save;
+    // backs the cell-range queries in SosEventGeoRepository.
+    @Column(name = "geohash", length = 12)
+    private String geohash;
+
     // Optional message from the user
     @Size(max = 500)
     private String message;
@@ -56,4 +62,12 @@ public class SosEvent {
     @Column(nullable = false)
     @Builder.Default
     private String status = "PENDING";
+
+    @PrePersist
+    @PreUpdate
+    void updateGeohash() {
+        if (latitude != null && longitude != null) {
+            geohash = GeoHash.encode(latitude, longitude, GeoHash.STORED_PRECISION);
+        }
+    }
 }
\ No newline at end of file
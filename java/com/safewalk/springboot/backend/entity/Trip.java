@@ -5,6 +5,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "trips")
+@EntityListeners(TripLatestLocationListener.class)
 public class Trip {
 
     @Id
@@ -14,12 +15,16 @@ public class Trip {
     @Column(name = "telegram_chat_id")
     private Long telegramChatId;
 
+    // Written on insert only; later changes go through TripStateTransitionService.
     @Enumerated(EnumType.STRING)
-    @Column(name = "status")
+    @Column(name = "status", updatable = false)
     private TripStatus status = TripStatus.CREATED;
 
-    @Column(name = "selected_route_polyline_json", columnDefinition = "TEXT")
-    private String selectedRoutePolylineJson;
+    // Route geometry lives in trip_routes (TripRoute), so loading a trip stays cheap.
+
+    // Max distance between the simplified and the full route.
+    @Column(name = "route_tolerance_meters")
+    private Double routeToleranceMeters;
 
     @Column(name = "deviation_threshold_meters")
     private Double deviationThresholdMeters = 30.0;
@@ -39,6 +44,17 @@ public class Trip {
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    @Column(name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    // Set once the location rows have been moved to trip_track_archives.
+    @Column(name = "track_archived_at")
+    private LocalDateTime trackArchivedAt;
+
+    // Filled on load from LatestPositionStore; never stored with the trip.
     @Transient
     private CoreLocationUpdate latestLocation;
 
@@ -52,8 +68,8 @@ public class Trip {
     public TripStatus getStatus() { return status; }
     public void setStatus(TripStatus status) { this.status = status; }
 
-    public String getSelectedRoutePolylineJson() { return selectedRoutePolylineJson; }
-    public void setSelectedRoutePolylineJson(String s) { this.selectedRoutePolylineJson = s; }
+    public double getRouteToleranceMeters() { return routeToleranceMeters == null ? 0.0 : routeToleranceMeters; }
+    public void setRouteToleranceMeters(Double routeToleranceMeters) { this.routeToleranceMeters = routeToleranceMeters; }
 
     public Double getDeviationThresholdMeters() { return deviationThresholdMeters == null ? 30.0 : deviationThresholdMeters; }
     public void setDeviationThresholdMeters(Double d) { this.deviationThresholdMeters = d; }
@@ -73,6 +89,15 @@ public class Trip {
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
+    public LocalDateTime getStartedAt() { return startedAt; }
+    public void setStartedAt(LocalDateTime startedAt) { this.startedAt = startedAt; }
+
+    public LocalDateTime getCompletedAt() { return completedAt; }
+    public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
+
+    public LocalDateTime getTrackArchivedAt() { return trackArchivedAt; }
+    public void setTrackArchivedAt(LocalDateTime trackArchivedAt) { this.trackArchivedAt = trackArchivedAt; }
+
     public CoreLocationUpdate getLatestLocation() { return latestLocation; }
     public void setLatestLocation(CoreLocationUpdate latestLocation) { this.latestLocation = latestLocation; }
 }
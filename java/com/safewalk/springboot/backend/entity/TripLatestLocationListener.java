@@ -0,0 +1,32 @@
+package com.safewalk.springboot.backend.entity;
+
+import com.safewalk.springboot.backend.service.LatestPositionStore;
+import jakarta.persistence.PostLoad;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the transient {@link Trip#getLatestLocation()} from the in-memory
+ * {@link LatestPositionStore} whenever a trip is loaded. No query is run.
+ *
+ * Hibernate gets this listener from the Spring context, so the store is injected;
+ * it is looked up lazily because entity listeners are created while JPA starts up.
+ */
+@Component
+public class TripLatestLocationListener {
+
+    private final ObjectProvider<LatestPositionStore> store;
+
+    public TripLatestLocationListener(ObjectProvider<LatestPositionStore> store) {
+        this.store = store;
+    }
+
+    @PostLoad
+    void fillLatestLocation(Trip trip) {
+        if (trip.getLatestLocation() != null) return;
+        LatestPositionStore positions = store.getIfAvailable();
+        if (positions == null) return;
+        LatestPositionStore.LatestPosition latest = positions.get(trip.getId());
+        if (latest != null) trip.setLatestLocation(latest.toUpdate());
+    }
+}
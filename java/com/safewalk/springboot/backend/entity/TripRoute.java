@@ -0,0 +1,44 @@
+package com.safewalk.springboot.backend.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Geometry of a trip's selected route, kept out of the trips row.
+ *
+ * Trips are loaded and saved on every status change and location update; the route is
+ * only needed for deviation checks and map views and is read through TripRouteService,
+ * which caches the decoded points. One row per started trip, keyed by trip ID.
+ */
+@Entity
+@Table(name = "trip_routes")
+public class TripRoute {
+
+    @Id
+    @Column(name = "trip_id")
+    private Long tripId;
+
+    // Route geometry encoded with PolylineCodec (simplified at trip start).
+    @Column(name = "polyline", length = 1048576)
+    private byte[] polyline;
+
+    // Unsimplified geometry; null when simplification removed nothing.
+    @Column(name = "polyline_full", length = 1048576)
+    private byte[] polylineFull;
+
+    public TripRoute() {}
+
+    public TripRoute(Long tripId, byte[] polyline, byte[] polylineFull) {
+        this.tripId = tripId;
+        this.polyline = polyline;
+        this.polylineFull = polylineFull;
+    }
+
+    public Long getTripId() { return tripId; }
+    public void setTripId(Long tripId) { this.tripId = tripId; }
+
+    public byte[] getPolyline() { return polyline; }
+    public void setPolyline(byte[] polyline) { this.polyline = polyline; }
+
+    public byte[] getPolylineFull() { return polylineFull; }
+    public void setPolylineFull(byte[] polylineFull) { this.polylineFull = polylineFull; }
+}
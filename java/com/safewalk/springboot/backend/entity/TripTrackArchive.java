@@ -0,0 +1,59 @@
+package com.safewalk.springboot.backend.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * The recorded track of a completed trip, moved out of core_location_updates into one
+ * compressed columnar blob (see TrackCodec). One row per archived trip.
+ */
+@Entity
+@Table(name = "trip_track_archives")
+public class TripTrackArchive {
+
+    @Id
+    @Column(name = "trip_id")
+    private Long tripId;
+
+    @Column(name = "point_count", nullable = false)
+    private int pointCount;
+
+    @Column(name = "first_recorded_at")
+    private LocalDateTime firstRecordedAt;
+
+    @Column(name = "last_recorded_at")
+    private LocalDateTime lastRecordedAt;
+
+    // Estimated table + index bytes the rows used before archiving, for storage metrics.
+    @Column(name = "row_bytes", nullable = false)
+    private long rowBytes;
+
+    @Column(name = "data", nullable = false, length = 16777216)
+    private byte[] data;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt = LocalDateTime.now();
+
+    public TripTrackArchive() {}
+
+    public Long getTripId() { return tripId; }
+    public void setTripId(Long tripId) { this.tripId = tripId; }
+
+    public int getPointCount() { return pointCount; }
+    public void setPointCount(int pointCount) { this.pointCount = pointCount; }
+
+    public LocalDateTime getFirstRecordedAt() { return firstRecordedAt; }
+    public void setFirstRecordedAt(LocalDateTime firstRecordedAt) { this.firstRecordedAt = firstRecordedAt; }
+
+    public LocalDateTime getLastRecordedAt() { return lastRecordedAt; }
+    public void setLastRecordedAt(LocalDateTime lastRecordedAt) { this.lastRecordedAt = lastRecordedAt; }
+
+    public long getRowBytes() { return rowBytes; }
+    public void setRowBytes(long rowBytes) { this.rowBytes = rowBytes; }
+
+    public byte[] getData() { return data; }
+    public void setData(byte[] data) { this.data = data; }
+
+    public LocalDateTime getArchivedAt() { return archivedAt; }
+    public void setArchivedAt(LocalDateTime archivedAt) { this.archivedAt = archivedAt; }
+}
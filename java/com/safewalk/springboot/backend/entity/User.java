@@ -1,5 +1,6 @@
 package com.safewalk.springboot.backend.entity;
 
+import com.safewalk.springboot.backend.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotNull;
@@ -7,15 +8,20 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 /**
  * JPA Entity for User data.
+ * * Cached in the second-level cache together with its contact list (see SecondLevelCacheConfig).
  */
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.USERS)
 @Data
 @Builder
 @NoArgsConstructor
@@ -51,5 +57,6 @@ public class User {
 
     // One-to-Many relationship for emergency contacts
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.USER_CONTACTS)
     private List<EmergencyContact> emergencyContacts;
 }
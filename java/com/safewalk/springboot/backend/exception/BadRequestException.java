@@ -0,0 +1,18 @@
+package com.safewalk.springboot.backend.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Invalid client input that bean validation cannot express (e.g. a malformed history
+ * cursor or an out-of-range query parameter).
+ * * Translated to HTTP 400 (Bad Request). Internal IllegalArgumentExceptions are not, so
+ * a server-side bug still surfaces as a 500.
+ */
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class BadRequestException extends RuntimeException {
+
+    public BadRequestException(String message) {
+        super(message);
+    }
+}
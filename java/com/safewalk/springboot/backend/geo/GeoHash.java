@@ -0,0 +1,139 @@
+package com.safewalk.springboot.backend.geo;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Geohash encoding used to quantize coordinates into cells for caching and indexing.
+ * Precision 7 is a cell of roughly 150 m x 150 m, precision 6 roughly 1.2 km x 0.6 km.
+ *
+ * Every point inside a cell has a hash starting with the cell's hash, and hashes sort
+ * like their cells, so a cell is a contiguous range of a sorted (indexed) hash column:
+ * {@code [cell, upperBound(cell))}.
+ */
+public final class GeoHash {
+
+    /** Precision stored in the geohash columns (cells of roughly 5 m x 5 m). */
+    public static final int STORED_PRECISION = 9;
+
+    private static final String ALPHABET = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final char[] BASE32 = ALPHABET.toCharArray();
+
+    private GeoHash() {}
+
+    /**
+     * Encodes a coordinate into a geohash string of the given length.
+     */
+    public static String encode(double lat, double lng, int precision) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        StringBuilder sb = new StringBuilder(precision);
+        boolean evenBit = true;
+        int bit = 0, ch = 0;
+        while (sb.length() < precision) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (lng >= mid) { ch = (ch << 1) | 1; minLng = mid; } else { ch = ch << 1; maxLng = mid; }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) { ch = (ch << 1) | 1; minLat = mid; } else { ch = ch << 1; maxLat = mid; }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                sb.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Encodes a coordinate into the same cell as {@link #encode}, packed into the low
+     * {@code 5 * precision} bits of a long (precision up to 12). Cheaper than the string
+     * form for hash keys.
+     */
+    public static long encodeLong(double lat, double lng, int precision) {
+        double minLat = -90, maxLat = 90, minLng = -180, maxLng = 180;
+        long bits = 0;
+        boolean evenBit = true;
+        for (int i = 0, total = 5 * precision; i < total; i++) {
+            if (evenBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (lng >= mid) { bits = (bits << 1) | 1; minLng = mid; } else { bits = bits << 1; maxLng = mid; }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) { bits = (bits << 1) | 1; minLat = mid; } else { bits = bits << 1; maxLat = mid; }
+            }
+            evenBit = !evenBit;
+        }
+        return bits;
+    }
+
+    /** Height of a cell at the given precision, in degrees of latitude. */
+    public static double cellHeightDegrees(int precision) {
+        return 180.0 / (1L << (5 * precision / 2));
+    }
+
+    /** Width of a cell at the given precision, in degrees of longitude. */
+    public static double cellWidthDegrees(int precision) {
+        return 360.0 / (1L << ((5 * precision + 1) / 2));
+    }
+
+    /**
+     * Cells covering a bounding box: the cell of the box's centre and its eight neighbours,
+     * at the finest precision (up to {@code maxPrecision}) whose cells are at least as large
+     * as half the box. The box then cannot reach past the neighbours, and the cells read
+     * are a small multiple of the box instead of one cell that contains it whole (a 500 m
+     * radius stays at precision 6 rather than dropping to 5). Fewer than nine cells are
+     * returned near the poles; longitudes wrap across the antimeridian.
+     */
+    public static List<String> covering(double minLat, double minLng, double maxLat, double maxLng, int maxPrecision) {
+        double halfLat = (maxLat - minLat) / 2;
+        double halfLng = (maxLng - minLng) / 2;
+        int precision = maxPrecision;
+        while (precision > 1
+                && (cellHeightDegrees(precision) < halfLat || cellWidthDegrees(precision) < halfLng)) {
+            precision--;
+        }
+        return neighbourhood(minLat + halfLat, minLng + halfLng, precision);
+    }
+
+    /**
+     * The cell containing a point and its (up to) eight neighbours, centre first.
+     */
+    public static List<String> neighbourhood(double lat, double lng, int precision) {
+        double dLat = cellHeightDegrees(precision);
+        double dLng = cellWidthDegrees(precision);
+        Set<String> cells = new LinkedHashSet<>();
+        cells.add(encode(lat, lng, precision));
+        for (int i = -1; i <= 1; i++) {
+            double cellLat = lat + i * dLat;
+            if (cellLat < -90 || cellLat > 90) continue;
+            for (int j = -1; j <= 1; j++) {
+                double cellLng = lng + j * dLng;
+                if (cellLng < -180) cellLng += 360;
+                if (cellLng >= 180) cellLng -= 360;
+                cells.add(encode(cellLat, cellLng, precision));
+            }
+        }
+        return new ArrayList<>(cells);
+    }
+
+    /**
+     * Smallest hash greater than every hash starting with {@code prefix}, i.e. the exclusive
+     * end of the prefix's range; null if there is none (prefix of all 'z').
+     */
+    public static String upperBound(String prefix) {
+        char[] chars = prefix.toCharArray();
+        for (int i = chars.length - 1; i >= 0; i--) {
+            int idx = ALPHABET.indexOf(chars[i]);
+            if (idx < BASE32.length - 1) {
+                chars[i] = BASE32[idx + 1];
+                return new String(chars, 0, i + 1);
+            }
+        }
+        return null;
+    }
+}
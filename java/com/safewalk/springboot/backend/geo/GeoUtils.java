@@ -0,0 +1,36 @@
+package com.safewalk.springboot.backend.geo;
+
+/**
+ * Small coordinate helpers shared by the TomTom integration, scoring and storage code.
+ */
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_METERS = 6371000;
+
+    private GeoUtils() {}
+
+    /**
+     * Parses a "lat,lng" string. Returns null for free-text addresses or malformed input.
+     */
+    public static double[] parseLatLng(String latLng) {
+        if (latLng == null) return null;
+        int comma = latLng.indexOf(',');
+        if (comma <= 0 || comma == latLng.length() - 1) return null;
+        try {
+            double lat = Double.parseDouble(latLng.substring(0, comma).trim());
+            double lng = Double.parseDouble(latLng.substring(comma + 1).trim());
+            if (lat < -90 || lat > 90 || lng < -180 || lng > 180) return null;
+            return new double[] {lat, lng};
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    public static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1), phi2 = Math.toRadians(lat2);
+        double dphi = Math.toRadians(lat2 - lat1), dlambda = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dphi / 2) * Math.sin(dphi / 2)
+                + Math.cos(phi1) * Math.cos(phi2) * Math.sin(dlambda / 2) * Math.sin(dlambda / 2);
+        return EARTH_RADIUS_METERS * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -0,0 +1,192 @@
+package com.safewalk.springboot.backend.geo;
+
+import java.util.Arrays;
+
+/**
+ * Immutable grid index of points of interest for fast radius counts.
+ *
+ * Points are bucketed into an equal-angle grid over their bounding box and stored in
+ * flat primitive arrays sorted by cell, so a radius query only touches the few cells
+ * that overlap the search circle. Categories are stored as small integer codes.
+ */
+public final class PoiIndex {
+
+    /** Target grid resolution; the grid is coarsened if the bounding box is very large. */
+    private static final double CELL_METERS = 250;
+    private static final int MAX_CELLS = 4_000_000;
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+
+    private final String[] categories;
+    private final double minLat;
+    private final double minLng;
+    private final double cellDegrees;
+    private final int rows;
+    private final int cols;
+    private final int[] cellStart;
+    private final float[] lats;
+    private final float[] lngs;
+    private final byte[] categoryCodes;
+
+    private PoiIndex(String[] categories, double minLat, double minLng, double cellDegrees, int rows, int cols,
+                     int[] cellStart, float[] lats, float[] lngs, byte[] categoryCodes) {
+        this.categories = categories;
+        this.minLat = minLat;
+        this.minLng = minLng;
+        this.cellDegrees = cellDegrees;
+        this.rows = rows;
+        this.cols = cols;
+        this.cellStart = cellStart;
+        this.lats = lats;
+        this.lngs = lngs;
+        this.categoryCodes = categoryCodes;
+    }
+
+    public int size() {
+        return lats.length;
+    }
+
+    /**
+     * Visits every point; used to derive other precomputed structures from the POI data.
+     */
+    public void forEach(PoiVisitor visitor) {
+        for (int i = 0; i < lats.length; i++) {
+            visitor.visit(categories[categoryCodes[i]], lats[i], lngs[i]);
+        }
+    }
+
+    @FunctionalInterface
+    public interface PoiVisitor {
+        void visit(String category, double lat, double lng);
+    }
+
+    /**
+     * Counts POIs of the given category (case-insensitive) within {@code radiusMeters}.
+     * Returns 0 for categories the index does not know.
+     */
+    public int countNear(double lat, double lng, String category, int radiusMeters) {
+        int code = codeOf(category);
+        if (code < 0 || lats.length == 0) return 0;
+
+        double latRadius = radiusMeters / METERS_PER_DEGREE;
+        double lngRadius = latRadius / Math.max(0.01, Math.cos(Math.toRadians(lat)));
+        if (lat + latRadius < minLat || lng + lngRadius < minLng) return 0;
+        int r0 = clamp((int) Math.floor((lat - latRadius - minLat) / cellDegrees), rows);
+        int r1 = clamp((int) Math.floor((lat + latRadius - minLat) / cellDegrees), rows);
+        int c0 = clamp((int) Math.floor((lng - lngRadius - minLng) / cellDegrees), cols);
+        int c1 = clamp((int) Math.floor((lng + lngRadius - minLng) / cellDegrees), cols);
+
+        // Equirectangular distance is accurate enough at POI search radii.
+        double cosLat = Math.cos(Math.toRadians(lat));
+        double maxSq = (double) radiusMeters * radiusMeters;
+        int count = 0;
+        for (int r = r0; r <= r1; r++) {
+            int rowBase = r * cols;
+            for (int i = cellStart[rowBase + c0], end = cellStart[rowBase + c1 + 1]; i < end; i++) {
+                if (categoryCodes[i] != code) continue;
+                double dy = (lats[i] - lat) * METERS_PER_DEGREE;
+                double dx = (lngs[i] - lng) * METERS_PER_DEGREE * cosLat;
+                if (dx * dx + dy * dy <= maxSq) count++;
+            }
+        }
+        return count;
+    }
+
+    private int codeOf(String category) {
+        if (category == null) return -1;
+        for (int i = 0; i < categories.length; i++) {
+            if (categories[i].equalsIgnoreCase(category)) return i;
+        }
+        return -1;
+    }
+
+    private static int clamp(int v, int size) {
+        return Math.max(0, Math.min(size - 1, v));
+    }
+
+    /**
+     * Accumulates points and builds the immutable index.
+     */
+    public static final class Builder {
+
+        private String[] categories = new String[0];
+        private double[] lats = new double[1024];
+        private double[] lngs = new double[1024];
+        private byte[] codes = new byte[1024];
+        private int size;
+
+        public Builder add(String category, double lat, double lng) {
+            if (category == null || category.isBlank()) return this;
+            int code = code(category.trim().toLowerCase());
+            if (size == lats.length) {
+                int cap = size * 2;
+                lats = Arrays.copyOf(lats, cap);
+                lngs = Arrays.copyOf(lngs, cap);
+                codes = Arrays.copyOf(codes, cap);
+            }
+            lats[size] = lat;
+            lngs[size] = lng;
+            codes[size] = (byte) code;
+            size++;
+            return this;
+        }
+
+        private int code(String category) {
+            for (int i = 0; i < categories.length; i++) {
+                if (categories[i].equals(category)) return i;
+            }
+            if (categories.length == Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many POI categories");
+            }
+            categories = Arrays.copyOf(categories, categories.length + 1);
+            categories[categories.length - 1] = category;
+            return categories.length - 1;
+        }
+
+        public PoiIndex build() {
+            double minLat = 90, maxLat = -90, minLng = 180, maxLng = -180;
+            for (int i = 0; i < size; i++) {
+                minLat = Math.min(minLat, lats[i]);
+                maxLat = Math.max(maxLat, lats[i]);
+                minLng = Math.min(minLng, lngs[i]);
+                maxLng = Math.max(maxLng, lngs[i]);
+            }
+            if (size == 0) {
+                minLat = maxLat = minLng = maxLng = 0;
+            }
+
+            double cellDegrees = CELL_METERS / METERS_PER_DEGREE;
+            int rows = (int) ((maxLat - minLat) / cellDegrees) + 1;
+            int cols = (int) ((maxLng - minLng) / cellDegrees) + 1;
+            while ((long) rows * cols > MAX_CELLS) {
+                cellDegrees *= 2;
+                rows = (int) ((maxLat - minLat) / cellDegrees) + 1;
+                cols = (int) ((maxLng - minLng) / cellDegrees) + 1;
+            }
+
+            // Counting sort by cell.
+            int[] cellOf = new int[size];
+            int[] cellStart = new int[rows * cols + 1];
+            for (int i = 0; i < size; i++) {
+                int r = clamp((int) ((lats[i] - minLat) / cellDegrees), rows);
+                int c = clamp((int) ((lngs[i] - minLng) / cellDegrees), cols);
+                cellOf[i] = r * cols + c;
+                cellStart[cellOf[i] + 1]++;
+            }
+            for (int i = 1; i < cellStart.length; i++) {
+                cellStart[i] += cellStart[i - 1];
+            }
+            int[] next = Arrays.copyOf(cellStart, cellStart.length - 1);
+            float[] outLat = new float[size];
+            float[] outLng = new float[size];
+            byte[] outCode = new byte[size];
+            for (int i = 0; i < size; i++) {
+                int slot = next[cellOf[i]]++;
+                outLat[slot] = (float) lats[i];
+                outLng[slot] = (float) lngs[i];
+                outCode[slot] = codes[i];
+            }
+            return new PoiIndex(categories.clone(), minLat, minLng, cellDegrees, rows, cols,
+                    cellStart, outLat, outLng, outCode);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.safewalk.springboot.backend.geo;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Holds the current {@link PoiIndex} loaded from a local file of police stations,
+ * hospitals, lit streets, open shops and so on.
+ *
+ * Supported formats: CSV with {@code category,lat,lng[,...]} rows (a header row is
+ * skipped), or a GeoJSON FeatureCollection of Points with a {@code category} property.
+ * The file is checked periodically and, when it changes, a new index is built off to
+ * the side and swapped in atomically, so queries never see a half-loaded index.
+ */
+@Component
+public class PoiIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PoiIndexService.class);
+
+    private final Path file;
+    private final AtomicReference<PoiIndex> current = new AtomicReference<>();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private volatile FileTime loadedModified;
+
+    public PoiIndexService(@Value("${safewalk.poi.file:}") String file) {
+        this.file = file == null || file.isBlank() ? null : Paths.get(file.trim());
+    }
+
+    public boolean isLoaded() {
+        return current.get() != null;
+    }
+
+    /**
+     * The currently loaded index, or null if none has been loaded.
+     */
+    public PoiIndex current() {
+        return current.get();
+    }
+
+    /**
+     * Counts POIs of a category near a coordinate, or returns -1 if no index is loaded.
+     */
+    public int countNear(double lat, double lng, String category, int radiusMeters) {
+        PoiIndex index = current.get();
+        return index == null ? -1 : index.countNear(lat, lng, category, radiusMeters);
+    }
+
+    @PostConstruct
+    void load() {
+        reloadIfChanged();
+    }
+
+    @Scheduled(fixedDelayString = "${safewalk.poi.reload-check-ms:60000}")
+    public void reloadIfChanged() {
+        if (file == null || !Files.isRegularFile(file)) return;
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (modified.equals(loadedModified)) return;
+
+            long start = System.nanoTime();
+            PoiIndex index = read(file);
+            current.set(index);
+            loadedModified = modified;
+            logger.info("Loaded POI index from {}: {} points in {} ms", file, index.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception ex) {
+            // Keep serving the previous index.
+            logger.warn("Failed to load POI index from {}: {}", file, ex.getMessage());
+        }
+    }
+
+    private PoiIndex read(Path path) throws IOException {
+        String name = path.getFileName().toString().toLowerCase();
+        if (name.endsWith(".json") || name.endsWith(".geojson")) {
+            return readGeoJson(path);
+        }
+        return readCsv(path);
+    }
+
+    private PoiIndex readCsv(Path path) throws IOException {
+        PoiIndex.Builder builder = new PoiIndex.Builder();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split(",", 4);
+                if (parts.length < 3) continue;
+                try {
+                    double lat = Double.parseDouble(parts[1].trim());
+                    double lng = Double.parseDouble(parts[2].trim());
+                    builder.add(parts[0], lat, lng);
+                } catch (NumberFormatException ex) {
+                    // header or malformed row
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private PoiIndex readGeoJson(Path path) throws IOException {
+        PoiIndex.Builder builder = new PoiIndex.Builder();
+        JsonNode features = mapper.readTree(path.toFile()).path("features");
+        for (JsonNode feature : features) {
+            JsonNode geometry = feature.path("geometry");
+            if (!"Point".equals(geometry.path("type").asText())) continue;
+            JsonNode coords = geometry.path("coordinates");
+            if (coords.size() < 2) continue;
+            // GeoJSON order is [lng, lat].
+            builder.add(feature.path("properties").path("category").asText(null),
+                    coords.get(1).asDouble(), coords.get(0).asDouble());
+        }
+        return builder.build();
+    }
+}
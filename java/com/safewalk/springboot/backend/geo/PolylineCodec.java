@@ -0,0 +1,110 @@
+package com.safewalk.springboot.backend.geo;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact binary encoding of route geometry.
+ *
+ * Coordinates are rounded to 1e-6 degrees (about 0.1 m), delta-encoded against the
+ * previous point and written as zigzag varints, the same idea as Google's encoded
+ * polyline but in bytes rather than printable characters. A typical walking route
+ * vertex takes 2-4 bytes instead of ~40 bytes of JSON text.
+ *
+ * Layout: format version (1 byte), point count (varint), then per point the lat and
+ * lng deltas (zigzag varints).
+ */
+public final class PolylineCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final double SCALE = 1e6;
+
+    private PolylineCodec() {}
+
+    /**
+     * @param points Interleaved lat,lng pairs.
+     */
+    public static byte[] encode(double[] points) {
+        int count = points.length / 2;
+        // Worst case: 5 bytes per varint.
+        byte[] out = new byte[1 + 5 + count * 10];
+        int pos = 0;
+        out[pos++] = FORMAT_VERSION;
+        pos = writeVarint(out, pos, count);
+        long prevLat = 0, prevLng = 0;
+        for (int i = 0; i < count; i++) {
+            long lat = Math.round(points[2 * i] * SCALE);
+            long lng = Math.round(points[2 * i + 1] * SCALE);
+            pos = writeVarint(out, pos, zigzag(lat - prevLat));
+            pos = writeVarint(out, pos, zigzag(lng - prevLng));
+            prevLat = lat;
+            prevLng = lng;
+        }
+        return Arrays.copyOf(out, pos);
+    }
+
+    /**
+     * Encodes a polyline in the legacy {@code [[lat, lng], ...]} list form.
+     */
+    public static byte[] encode(List<List<Double>> polyline) {
+        double[] points = new double[polyline.size() * 2];
+        int n = 0;
+        for (List<Double> p : polyline) {
+            if (p == null || p.size() < 2 || p.get(0) == null || p.get(1) == null) continue;
+            points[n++] = p.get(0);
+            points[n++] = p.get(1);
+        }
+        return encode(n == points.length ? points : Arrays.copyOf(points, n));
+    }
+
+    /**
+     * @return Interleaved lat,lng pairs.
+     * @throws IllegalArgumentException if the data is not in a known format.
+     */
+    public static double[] decode(byte[] data) {
+        if (data == null || data.length == 0) return new double[0];
+        if (data[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown polyline format " + data[0]);
+        }
+        int[] pos = {1};
+        int count = (int) readVarint(data, pos);
+        double[] points = new double[count * 2];
+        long lat = 0, lng = 0;
+        for (int i = 0; i < count; i++) {
+            lat += unzigzag(readVarint(data, pos));
+            lng += unzigzag(readVarint(data, pos));
+            points[2 * i] = lat / SCALE;
+            points[2 * i + 1] = lng / SCALE;
+        }
+        return points;
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static int writeVarint(byte[] out, int pos, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out[pos++] = (byte) v;
+        return pos;
+    }
+
+    private static long readVarint(byte[] data, int[] pos) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            if (pos[0] >= data.length) throw new IllegalArgumentException("Truncated polyline");
+            byte b = data[pos[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+            shift += 7;
+        }
+    }
+}
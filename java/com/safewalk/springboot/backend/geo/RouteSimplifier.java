@@ -0,0 +1,84 @@
+package com.safewalk.springboot.backend.geo;
+
+import java.util.Arrays;
+
+/**
+ * Douglas-Peucker simplification of route geometry with a tolerance in meters.
+ *
+ * Every dropped vertex lies within the tolerance of the simplified segment that
+ * replaces it (point-to-segment distance, not distance to the infinite line), so the
+ * simplified route stays within the tolerance of the original everywhere. Distances
+ * use a local equirectangular projection, which is accurate at route scale.
+ */
+public final class RouteSimplifier {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+
+    private RouteSimplifier() {}
+
+    /**
+     * @param points Interleaved lat,lng pairs.
+     * @return A subset of the input points (first and last always kept), same layout.
+     */
+    public static double[] simplify(double[] points, double toleranceMeters) {
+        int n = points.length / 2;
+        if (n <= 2 || toleranceMeters <= 0) return points.clone();
+
+        // Project once into local meters.
+        double cosLat = Math.cos(Math.toRadians(points[0]));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = (points[2 * i] - points[0]) * METERS_PER_DEGREE;
+            x[i] = (points[2 * i + 1] - points[1]) * METERS_PER_DEGREE * cosLat;
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        double tolSq = toleranceMeters * toleranceMeters;
+
+        // Explicit stack of [first, last] ranges instead of recursion.
+        int[] stack = new int[2 * n];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            double maxSq = -1;
+            int index = -1;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistanceSq(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (d > maxSq) {
+                    maxSq = d;
+                    index = i;
+                }
+            }
+            if (index >= 0 && maxSq > tolSq) {
+                keep[index] = true;
+                stack[top++] = first;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = last;
+            }
+        }
+
+        double[] out = new double[2 * n];
+        int size = 0;
+        for (int i = 0; i < n; i++) {
+            if (!keep[i]) continue;
+            out[size++] = points[2 * i];
+            out[size++] = points[2 * i + 1];
+        }
+        return Arrays.copyOf(out, size);
+    }
+
+    private static double segmentDistanceSq(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax, dy = by - ay;
+        double lenSq = dx * dx + dy * dy;
+        double t = lenSq == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lenSq));
+        double ex = px - (ax + t * dx), ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
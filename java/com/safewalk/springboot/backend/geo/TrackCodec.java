@@ -0,0 +1,169 @@
+package com.safewalk.springboot.backend.geo;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed columnar encoding of a recorded trip track.
+ *
+ * The track is stored column by column rather than point by point: all recorded times,
+ * then all device-time offsets, then all latitudes, then all longitudes. Each column is
+ * delta-encoded against the previous value and written as zigzag varints, which turns a
+ * steady 5-second update stream into runs of near-identical bytes; the whole buffer is
+ * then deflated. Times are kept to the millisecond, coordinates to 1e-6 degrees as in
+ * {@link PolylineCodec}.
+ *
+ * Layout before compression: format version (1 byte), point count (varint), then the
+ * four columns. Device times are stored as offsets from the recorded time, with 0
+ * meaning "no device time" and zigzag(offset) + 1 otherwise.
+ */
+public final class TrackCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+    private static final double SCALE = 1e6;
+
+    private TrackCodec() {}
+
+    /**
+     * Decoded track columns; all arrays describe the same points in order.
+     *
+     * @param recordedAt Server receive times, epoch millis.
+     * @param deviceTime Device times, epoch millis, or {@code Long.MIN_VALUE} if unknown.
+     * @param points     Interleaved lat,lng pairs.
+     */
+    public record Track(long[] recordedAt, long[] deviceTime, double[] points) {
+        public int size() {
+            return recordedAt.length;
+        }
+    }
+
+    public static byte[] encode(Track track) {
+        int count = track.size();
+        // Worst case: 10 bytes per varint, four columns.
+        byte[] raw = new byte[1 + 5 + count * 40];
+        int pos = 0;
+        raw[pos++] = FORMAT_VERSION;
+        pos = writeVarint(raw, pos, count);
+
+        long prev = 0;
+        for (long t : track.recordedAt()) {
+            pos = writeVarint(raw, pos, zigzag(t - prev));
+            prev = t;
+        }
+        for (int i = 0; i < count; i++) {
+            long device = track.deviceTime()[i];
+            pos = writeVarint(raw, pos, device == Long.MIN_VALUE ? 0 : zigzag(device - track.recordedAt()[i]) + 1);
+        }
+        for (int c = 0; c < 2; c++) {
+            prev = 0;
+            for (int i = 0; i < count; i++) {
+                long v = Math.round(track.points()[2 * i + c] * SCALE);
+                pos = writeVarint(raw, pos, zigzag(v - prev));
+                prev = v;
+            }
+        }
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw, 0, pos);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, pos / 2));
+            byte[] buffer = new byte[4096];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the data is corrupt or in an unknown format.
+     */
+    public static Track decode(byte[] data) {
+        if (data == null || data.length == 0) return new Track(new long[0], new long[0], new double[0]);
+        byte[] raw = inflate(data);
+        if (raw.length == 0 || raw[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unknown track format");
+        }
+        int[] pos = {1};
+        int count = (int) readVarint(raw, pos);
+        long[] recordedAt = new long[count];
+        long[] deviceTime = new long[count];
+        double[] points = new double[count * 2];
+
+        long acc = 0;
+        for (int i = 0; i < count; i++) {
+            acc += unzigzag(readVarint(raw, pos));
+            recordedAt[i] = acc;
+        }
+        for (int i = 0; i < count; i++) {
+            long v = readVarint(raw, pos);
+            deviceTime[i] = v == 0 ? Long.MIN_VALUE : recordedAt[i] + unzigzag(v - 1);
+        }
+        for (int c = 0; c < 2; c++) {
+            acc = 0;
+            for (int i = 0; i < count; i++) {
+                acc += unzigzag(readVarint(raw, pos));
+                points[2 * i + c] = acc / SCALE;
+            }
+        }
+        return new Track(recordedAt, deviceTime, points);
+    }
+
+    private static byte[] inflate(byte[] data) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data);
+            byte[] out = new byte[Math.max(256, data.length * 4)];
+            int size = 0;
+            while (!inflater.finished()) {
+                if (size == out.length) out = Arrays.copyOf(out, out.length * 2);
+                int n = inflater.inflate(out, size, out.length - size);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated track");
+                }
+                size += n;
+            }
+            return Arrays.copyOf(out, size);
+        } catch (DataFormatException ex) {
+            throw new IllegalArgumentException("Corrupt track", ex);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static int writeVarint(byte[] out, int pos, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out[pos++] = (byte) v;
+        return pos;
+    }
+
+    private static long readVarint(byte[] data, int[] pos) {
+        long result = 0;
+        int shift = 0;
+        while (true) {
+            if (pos[0] >= data.length) throw new IllegalArgumentException("Truncated track");
+            byte b = data[pos[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return result;
+            shift += 7;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.safewalk.springboot.backend.geo;
+
+import java.util.Arrays;
+
+/**
+ * Largest-Triangle-Three-Buckets downsampling of a recorded track, for map display.
+ *
+ * Points are bucketed by position in the track; from each bucket LTTB keeps the point
+ * that forms the largest triangle with the point kept from the previous bucket and the
+ * average of the next bucket, which preserves turns and excursions that a uniform
+ * stride would cut. Areas use a local equirectangular projection.
+ *
+ * Points flagged as required (SOS, deviation) are always kept: the track is split at
+ * them, and each piece gets a share of the point budget proportional to its length in
+ * points, with its end points fixed.
+ */
+public final class TrackDownsampler {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+    private static final double METERS_PER_PIXEL_Z0 = 156_543.03;
+
+    private TrackDownsampler() {}
+
+    /**
+     * @param points   Interleaved lat,lng pairs in track order.
+     * @param target   Desired number of points (at least 2); required points may push the
+     *                 result above it.
+     * @param required Indices that must be kept; may be null.
+     * @return Sorted indices of the points to keep (first and last always included).
+     */
+    public static int[] select(double[] points, int target, boolean[] required) {
+        int n = points.length / 2;
+        if (n <= Math.max(2, target)) {
+            int[] all = new int[n];
+            for (int i = 0; i < n; i++) all[i] = i;
+            return all;
+        }
+
+        double cosLat = Math.cos(Math.toRadians(points[0]));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            y[i] = points[2 * i] * METERS_PER_DEGREE;
+            x[i] = points[2 * i + 1] * METERS_PER_DEGREE * cosLat;
+        }
+
+        // Split points: first, last and every required index.
+        int[] splits = new int[n];
+        int s = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || i == n - 1 || (required != null && required[i])) splits[s++] = i;
+        }
+
+        int[] out = new int[Math.max(target, s) + s];
+        int size = 0;
+        int budget = Math.max(0, target - s);
+        for (int k = 0; k + 1 < s; k++) {
+            int from = splits[k], to = splits[k + 1];
+            out[size++] = from;
+            int interior = to - from - 1;
+            if (interior <= 0) continue;
+            int share = (int) Math.round((double) budget * interior / (n - s));
+            if (share >= interior) {
+                for (int i = from + 1; i < to; i++) out = append(out, size++, i);
+            } else if (share > 0) {
+                for (int i : lttb(x, y, from, to, share)) out = append(out, size++, i);
+            }
+        }
+        out = append(out, size++, n - 1);
+        return Arrays.copyOf(out, size);
+    }
+
+    /**
+     * Number of points worth drawing for a track at a web-map zoom level: about one per
+     * {@code pixelsPerPoint} screen pixels along the track.
+     */
+    public static int targetForZoom(double[] points, int zoom, double pixelsPerPoint) {
+        int n = points.length / 2;
+        if (n < 2) return n;
+        double length = 0;
+        for (int i = 1; i < n; i++) {
+            length += GeoUtils.haversineMeters(points[2 * i - 2], points[2 * i - 1], points[2 * i], points[2 * i + 1]);
+        }
+        double metersPerPixel = METERS_PER_PIXEL_Z0 * Math.cos(Math.toRadians(points[0])) / Math.pow(2, zoom);
+        long target = (long) Math.ceil(length / (metersPerPixel * pixelsPerPoint));
+        return (int) Math.max(2, Math.min(n, target));
+    }
+
+    /**
+     * LTTB over the open interval (from, to) with both ends fixed; picks {@code count}
+     * interior indices.
+     */
+    private static int[] lttb(double[] x, double[] y, int from, int to, int count) {
+        int[] picked = new int[count];
+        int interior = to - from - 1;
+        double bucketSize = (double) interior / count;
+        int a = from;
+        for (int b = 0; b < count; b++) {
+            int start = from + 1 + (int) Math.floor(b * bucketSize);
+            int end = from + 1 + (int) Math.floor((b + 1) * bucketSize);
+            end = Math.min(Math.max(end, start + 1), to);
+
+            // Average of the next bucket (or the fixed end point after the last bucket).
+            double avgX, avgY;
+            if (b + 1 < count) {
+                int nStart = end;
+                int nEnd = Math.min(Math.max(from + 1 + (int) Math.floor((b + 2) * bucketSize), nStart + 1), to);
+                avgX = 0;
+                avgY = 0;
+                for (int i = nStart; i < nEnd; i++) {
+                    avgX += x[i];
+                    avgY += y[i];
+                }
+                avgX /= nEnd - nStart;
+                avgY /= nEnd - nStart;
+            } else {
+                avgX = x[to];
+                avgY = y[to];
+            }
+
+            double maxArea = -1;
+            int best = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((x[a] - avgX) * (y[i] - y[a]) - (x[a] - x[i]) * (avgY - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    best = i;
+                }
+            }
+            picked[b] = best;
+            a = best;
+        }
+        return picked;
+    }
+
+    private static int[] append(int[] out, int pos, int value) {
+        if (pos == out.length) out = Arrays.copyOf(out, out.length * 2);
+        out[pos] = value;
+        return out;
+    }
+}
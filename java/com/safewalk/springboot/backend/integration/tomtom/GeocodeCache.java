@@ -0,0 +1,322 @@
+package com.safewalk.springboot.backend.integration.tomtom;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.safewalk.springboot.backend.geo.GeoUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Two-tier cache of geocode results keyed by a normalized address.
+ *
+ * The memory tier is a size-bounded Caffeine cache. Every result is also appended to a
+ * small binary log on disk which is replayed at startup, so repeat destinations survive
+ * restarts without another TomTom call. "Not found" results are cached too, with a
+ * shorter TTL so a newly mapped address is picked up reasonably soon.
+ *
+ * Log record: storedAt (long millis), normalized address (UTF), found flag (byte),
+ * then lat and lng (double) when found. A log that does not start with the 8-byte header
+ * of the current format is discarded.
+ */
+@Component
+public class GeocodeCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeocodeCache.class);
+
+    private static final int MAGIC = 0x53574743; // "SWGC"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+
+    private static final Pattern APOSTROPHE = Pattern.compile("['\u2019]");
+    private static final Pattern PUNCTUATION = Pattern.compile("[^\\p{L}\\p{Nd}\\s]");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    /** Street types, expanded only after a street name ("Main St", not "St Mary's Road"). */
+    private static final Map<String, String> STREET_SUFFIXES = Map.ofEntries(
+            Map.entry("st", "street"),
+            Map.entry("rd", "road"),
+            Map.entry("ave", "avenue"),
+            Map.entry("av", "avenue"),
+            Map.entry("blvd", "boulevard"),
+            Map.entry("ln", "lane"),
+            Map.entry("dr", "drive"),
+            Map.entry("hwy", "highway"),
+            Map.entry("sq", "square"),
+            Map.entry("pl", "place"),
+            Map.entry("ct", "court"));
+    /** Unambiguous in any position. */
+    private static final Map<String, String> ABBREVIATIONS = Map.of(
+            "apt", "apartment",
+            "bldg", "building",
+            "opp", "opposite",
+            "nr", "near");
+
+    private final Path file;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final Cache<String, Entry> cache;
+    private final Counter hits;
+    private final Counter misses;
+    private DataOutputStream log;
+
+    public GeocodeCache(@Value("${tomtom.geocode-cache.file:data/geocode-cache.bin}") String file,
+                        @Value("${tomtom.geocode-cache.max-entries:50000}") long maxEntries,
+                        @Value("${tomtom.geocode-cache.ttl:P30D}") Duration ttl,
+                        @Value("${tomtom.geocode-cache.negative-ttl:PT6H}") Duration negativeTtl,
+                        MeterRegistry meterRegistry) {
+        this.file = Paths.get(file);
+        this.ttlMillis = ttl.toMillis();
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry value, long currentTime) {
+                        return remainingNanos(value);
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+                        return remainingNanos(value);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+        this.hits = Counter.builder("tomtom.geocode.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("tomtom.geocode.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("tomtom.geocode.cache.size", cache, Cache::estimatedSize).register(meterRegistry);
+    }
+
+    /**
+     * Normalizes an address for use as a cache key: lower case, punctuation stripped,
+     * apostrophes dropped, whitespace collapsed and common street abbreviations expanded.
+     *
+     * Street types are only expanded when they follow a word, so a leading "St" (Saint)
+     * or one after a house number is kept. Single-letter directions are left alone,
+     * since "Block E" and "Block East" need not be the same place.
+     */
+    public static String normalize(String address) {
+        if (address == null) return "";
+        String cleaned = APOSTROPHE.matcher(address.toLowerCase()).replaceAll("");
+        cleaned = PUNCTUATION.matcher(cleaned).replaceAll(" ");
+        String[] tokens = WHITESPACE.split(cleaned.trim());
+        StringBuilder sb = new StringBuilder(cleaned.length());
+        String previous = null;
+        for (String token : tokens) {
+            if (token.isEmpty()) continue;
+            if (sb.length() > 0) sb.append(' ');
+            String expanded = ABBREVIATIONS.get(token);
+            if (expanded == null && isStreetName(previous)) {
+                expanded = STREET_SUFFIXES.get(token);
+            }
+            sb.append(expanded != null ? expanded : token);
+            previous = token;
+        }
+        return sb.toString();
+    }
+
+    private static boolean isStreetName(String token) {
+        return token != null && Character.isLetter(token.charAt(0))
+                && !STREET_SUFFIXES.containsKey(token);
+    }
+
+    /**
+     * Looks up a normalized address; never null.
+     */
+    public Lookup get(String normalizedAddress) {
+        Entry entry = cache.getIfPresent(normalizedAddress);
+        if (entry == null) {
+            misses.increment();
+            return Lookup.MISS;
+        }
+        hits.increment();
+        return new Lookup(true, entry.latLng);
+    }
+
+    /**
+     * Stores a geocode result; a null latLng records a negative result.
+     */
+    public void put(String normalizedAddress, String latLng) {
+        Entry entry = new Entry(latLng, System.currentTimeMillis());
+        cache.put(normalizedAddress, entry);
+        append(normalizedAddress, entry);
+    }
+
+    @PostConstruct
+    void warmUp() {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Map<String, Entry> live = new HashMap<>();
+            int records = replay(live);
+            if (records > 2 * live.size() + 1024) {
+                compact(live);
+            }
+            live.forEach(cache::put);
+            log = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+            if (Files.size(file) == 0) {
+                writeHeader(log);
+                log.flush();
+            }
+            logger.info("Geocode cache warmed with {} entries from {}", live.size(), file);
+        } catch (IOException ex) {
+            // The memory tier still works without the log.
+            logger.warn("Geocode cache log unavailable at {}: {}", file, ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (log == null) return;
+        try {
+            log.close();
+        } catch (IOException ex) {
+            logger.debug("Failed to close geocode cache log", ex);
+        }
+        log = null;
+    }
+
+    private synchronized void append(String key, Entry entry) {
+        if (log == null) return;
+        try {
+            writeRecord(log, key, entry);
+            log.flush();
+        } catch (IOException ex) {
+            logger.warn("Failed to append to geocode cache log: {}", ex.getMessage());
+        }
+    }
+
+    /** Reads the log into {@code live}, dropping expired records; returns the number of records read. */
+    private int replay(Map<String, Entry> live) throws IOException {
+        if (!Files.exists(file) || Files.size(file) == 0) return 0;
+        int records = 0;
+        long validBytes = HEADER_BYTES;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (Files.size(file) < HEADER_BYTES || in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                logger.warn("Ignoring geocode cache log {} with unknown format", file);
+                Files.delete(file);
+                return 0;
+            }
+            long now = System.currentTimeMillis();
+            while (true) {
+                String key;
+                Entry entry;
+                try {
+                    long storedAt = in.readLong();
+                    key = in.readUTF();
+                    boolean found = in.readByte() == 1;
+                    String latLng = found ? format(in.readDouble(), in.readDouble()) : null;
+                    entry = new Entry(latLng, storedAt);
+                } catch (EOFException eof) {
+                    break;
+                }
+                records++;
+                validBytes += recordSize(key, entry);
+                if (entry.storedAt + ttlFor(entry) > now) {
+                    live.put(key, entry);
+                } else {
+                    live.remove(key);
+                }
+            }
+        }
+        // Drop a partially written tail record left by a crash.
+        if (validBytes < Files.size(file)) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(validBytes);
+            }
+        }
+        return records;
+    }
+
+    private void compact(Map<String, Entry> live) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            writeHeader(out);
+            for (Map.Entry<String, Entry> e : live.entrySet()) {
+                writeRecord(out, e.getKey(), e.getValue());
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+    }
+
+    private static void writeRecord(DataOutputStream out, String key, Entry entry) throws IOException {
+        out.writeLong(entry.storedAt);
+        out.writeUTF(key);
+        double[] ll = GeoUtils.parseLatLng(entry.latLng);
+        if (ll == null) {
+            out.writeByte(0);
+        } else {
+            out.writeByte(1);
+            out.writeDouble(ll[0]);
+            out.writeDouble(ll[1]);
+        }
+    }
+
+    private static long recordSize(String key, Entry entry) {
+        int utfBytes = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            utfBytes += (c >= 0x0001 && c <= 0x007F) ? 1 : (c <= 0x07FF ? 2 : 3);
+        }
+        return 8 + 2 + utfBytes + 1 + (entry.latLng == null ? 0 : 16);
+    }
+
+    private static String format(double lat, double lng) {
+        // Same shape as TomTomSearchService produces.
+        return String.format("%s,%s", lat, lng);
+    }
+
+    private long ttlFor(Entry entry) {
+        return entry.latLng == null ? negativeTtlMillis : ttlMillis;
+    }
+
+    private long remainingNanos(Entry entry) {
+        long remaining = entry.storedAt + ttlFor(entry) - System.currentTimeMillis();
+        return Duration.ofMillis(Math.max(0, remaining)).toNanos();
+    }
+
+    /**
+     * Result of {@link #get}: {@code cached} is false on a miss; on a hit {@code latLng}
+     * is the cached "lat,lng", or null for a cached "not found".
+     */
+    public record Lookup(boolean cached, String latLng) {
+        static final Lookup MISS = new Lookup(false, null);
+    }
+
+    private record Entry(String latLng, long storedAt) {}
+}
@@ -0,0 +1,233 @@
+package com.safewalk.springboot.backend.integration.tomtom;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.safewalk.springboot.backend.geo.GeoHash;
+import com.safewalk.springboot.backend.geo.GeoUtils;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Cache of TomTom calculateRoute results used by {@link TomTomRoutingService}.
+ *
+ * Entries are keyed by the geohash cells of source and destination plus the number of
+ * alternatives, so trips between the same areas (campus to hostel, station to office)
+ * reuse one upstream call. Cells are precision 8 (about 38 m x 19 m) by default, and every
+ * answer is fitted to the caller's exact endpoints, so a route shared within a cell still
+ * starts and ends where this caller asked. Eviction is size (approximate bytes) and age
+ * based; entries older than the TTL are still served for a short stale window while a
+ * background refresh replaces them. Concurrent misses for the same key share one upstream call.
+ */
+@Component
+public class RouteCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RouteCache.class);
+
+    // Closer than this, the cached geometry already starts/ends at the caller's point.
+    private static final double SPLICE_MIN_METERS = 1.0;
+
+    private final Cache<RouteKey, CachedRoutes> cache;
+    private final Set<RouteKey> refreshing = ConcurrentHashMap.newKeySet();
+    private final TaskExecutor executor;
+    private final int precision;
+    private final long ttlNanos;
+    private final MeterRegistry meterRegistry;
+    private final Timer upstreamTimer;
+    private final SingleFlight<RouteKey, List<Map<String, Object>>> singleFlight;
+
+    public RouteCache(@Value("${tomtom.route-cache.geohash-precision:8}") int precision,
+                      @Value("${tomtom.route-cache.ttl:PT30M}") Duration ttl,
+                      @Value("${tomtom.route-cache.stale-window:PT10M}") Duration staleWindow,
+                      @Value("${tomtom.route-cache.max-bytes:33554432}") long maxBytes,
+                      @Qualifier("tomtomExecutor") TaskExecutor executor,
+                      MeterRegistry meterRegistry) {
+        this.precision = precision;
+        this.ttlNanos = ttl.toNanos();
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((RouteKey k, CachedRoutes v) -> v.weight)
+                .expireAfterWrite(ttl.plus(staleWindow))
+                .build();
+        this.upstreamTimer = Timer.builder("tomtom.route.upstream.latency")
+                .description("Latency of TomTom calculateRoute calls made on cache misses and refreshes")
+                .register(meterRegistry);
+        Gauge.builder("tomtom.route.cache.size", cache, Cache::estimatedSize).register(meterRegistry);
+        this.singleFlight = new SingleFlight<>("routing", meterRegistry);
+    }
+
+    /**
+     * Returns cached routes for the quantized endpoints, loading them on a miss, fitted to
+     * this caller's exact endpoints (see {@link #fitEndpoints}).
+     *
+     * @param loader Upstream call; returns null on failure (nothing is cached then).
+     * @return The routes, or null if the loader failed on a miss.
+     */
+    public List<Map<String, Object>> get(String source, String destination, int alternatives,
+                                         Supplier<List<Map<String, Object>>> loader) {
+        long start = System.nanoTime();
+        RouteKey key = keyFor(source, destination, alternatives);
+        CachedRoutes entry = cache.getIfPresent(key);
+
+        if (entry == null) {
+            // Concurrent misses share one load, which may have been made for another caller's points.
+            List<Map<String, Object>> routes = load(key, loader);
+            record("miss", start);
+            return fitEndpoints(routes, source, destination);
+        }
+
+        if (System.nanoTime() - entry.loadedAt > ttlNanos) {
+            // Serve the stale routes now and refresh once in the background.
+            if (refreshing.add(key)) {
+                try {
+                    executor.execute(() -> {
+                        try {
+                            load(key, loader);
+                        } finally {
+                            refreshing.remove(key);
+                        }
+                    });
+                } catch (RejectedExecutionException rejected) {
+                    // Executor saturated: leave the key free for a later request to retry the refresh.
+                    refreshing.remove(key);
+                    logger.debug("Background refresh of {} rejected; serving stale routes", key);
+                }
+            }
+            record("stale", start);
+            return fitEndpoints(entry.routes, source, destination);
+        }
+
+        record("hit", start);
+        return fitEndpoints(entry.routes, source, destination);
+    }
+
+    /**
+     * Adds straight legs from the caller's origin to the start of each route and from its
+     * end to the caller's destination, extending distance and duration by them at the
+     * route's own pace. Routes without points (stubs) and free-text endpoints are returned
+     * unchanged; cached maps are never modified.
+     */
+    static List<Map<String, Object>> fitEndpoints(List<Map<String, Object>> routes, String source, String destination) {
+        if (routes == null) return null;
+        double[] from = GeoUtils.parseLatLng(source);
+        double[] to = GeoUtils.parseLatLng(destination);
+        if (from == null || to == null) return routes;
+        List<Map<String, Object>> out = new ArrayList<>(routes.size());
+        for (Map<String, Object> route : routes) {
+            out.add(route.get("points") instanceof double[] points && points.length >= 2
+                    ? fit(route, points, from, to) : route);
+        }
+        return out;
+    }
+
+    private static Map<String, Object> fit(Map<String, Object> route, double[] points, double[] from, double[] to) {
+        int n = points.length;
+        double head = GeoUtils.haversineMeters(from[0], from[1], points[0], points[1]);
+        double tail = GeoUtils.haversineMeters(points[n - 2], points[n - 1], to[0], to[1]);
+        boolean addHead = head > SPLICE_MIN_METERS;
+        boolean addTail = tail > SPLICE_MIN_METERS;
+        if (!addHead && !addTail) return route;
+
+        double[] fitted = new double[n + (addHead ? 2 : 0) + (addTail ? 2 : 0)];
+        int pos = 0;
+        if (addHead) {
+            fitted[pos++] = from[0];
+            fitted[pos++] = from[1];
+        }
+        System.arraycopy(points, 0, fitted, pos, n);
+        pos += n;
+        if (addTail) {
+            fitted[pos++] = to[0];
+            fitted[pos] = to[1];
+        }
+
+        double extra = (addHead ? head : 0) + (addTail ? tail : 0);
+        Map<String, Object> copy = new HashMap<>(route);
+        copy.put("points", fitted);
+        if (route.get("distanceMeters") instanceof Number distance) {
+            double meters = distance.doubleValue();
+            copy.put("distanceMeters", meters + extra);
+            if (meters > 0 && route.get("durationSec") instanceof Number duration) {
+                copy.put("durationSec", duration.doubleValue() * (meters + extra) / meters);
+            }
+        }
+        return Map.copyOf(copy);
+    }
+
+    private List<Map<String, Object>> load(RouteKey key, Supplier<List<Map<String, Object>>> loader) {
+        return singleFlight.execute(key, () -> {
+            List<Map<String, Object>> routes = upstreamTimer.record(loader);
+            if (routes != null && !routes.isEmpty()) {
+                cache.put(key, new CachedRoutes(routes));
+            } else {
+                logger.debug("Not caching empty/failed route result for {}", key);
+            }
+            return routes;
+        });
+    }
+
+    private void record(String result, long startNanos) {
+        Timer.builder("tomtom.route.cache.latency")
+                .tag("result", result)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    RouteKey keyFor(String source, String destination, int alternatives) {
+        return new RouteKey(cell(source), cell(destination), alternatives);
+    }
+
+    private String cell(String location) {
+        double[] ll = GeoUtils.parseLatLng(location);
+        if (ll == null) {
+            // Free-text address: fall back to the normalized text itself.
+            return location == null ? "" : location.trim().toLowerCase();
+        }
+        return GeoHash.encode(ll[0], ll[1], precision);
+    }
+
+    record RouteKey(String sourceCell, String destinationCell, int alternatives) {}
+
+    private static final class CachedRoutes {
+        private final List<Map<String, Object>> routes;
+        private final long loadedAt = System.nanoTime();
+        private final int weight;
+
+        private CachedRoutes(List<Map<String, Object>> routes) {
+            this.routes = List.copyOf(routes);
+            this.weight = weigh(routes);
+        }
+
+        /** Rough retained size in bytes, dominated by route geometry. */
+        private static int weigh(List<Map<String, Object>> routes) {
+            long bytes = 64;
+            for (Map<String, Object> route : routes) {
+                bytes += 256;
+                for (Object value : route.values()) {
+                    if (value instanceof String s) bytes += 40 + 2L * s.length();
+                    else if (value instanceof double[] d) bytes += 16 + 8L * d.length;
+                }
+            }
+            return (int) Math.min(Integer.MAX_VALUE, bytes);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.safewalk.springboot.backend.integration.tomtom;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent TomTom requests: the first caller for a key performs
+ * the upstream call, every caller that arrives while it is in flight waits for and
+ * shares the same result (or exception). Nothing is remembered after the call completes;
+ * caching is the job of the caches in front of this.
+ *
+ * @param <K> request key (must implement equals/hashCode)
+ * @param <V> result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final Counter upstreamCounter;
+    private final Counter coalescedCounter;
+
+    public SingleFlight(String endpoint, MeterRegistry meterRegistry) {
+        this.upstreamCounter = Counter.builder("tomtom.requests.upstream")
+                .tag("endpoint", endpoint)
+                .description("TomTom calls actually sent upstream")
+                .register(meterRegistry);
+        this.coalescedCounter = Counter.builder("tomtom.requests.coalesced")
+                .tag("endpoint", endpoint)
+                .description("TomTom calls served by joining an identical in-flight call")
+                .register(meterRegistry);
+    }
+
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalescedCounter.increment();
+            return join(existing);
+        }
+
+        upstreamCounter.increment();
+        try {
+            V value = call.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException ex) {
+            mine.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.safewalk.springboot.backend.integration.tomtom;
+
+/**
+ * Client-side token bucket matching the TomTom QPS quota.
+ *
+ * {@link #reserve} hands out future tokens so callers can wait for their slot without
+ * spinning; {@link #tryAcquire} only succeeds when a token is available right now and is
+ * used for optional traffic such as hedged requests.
+ */
+class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double burst;
+    private double tokens;
+    private long lastRefill;
+
+    TokenBucket(double permitsPerSecond, int burst) {
+        this.permitsPerNano = permitsPerSecond / 1e9;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Reserves one token.
+     *
+     * @return Nanoseconds to wait before using it, or -1 if that would exceed {@code maxWaitNanos}
+     *         (nothing is reserved then).
+     */
+    synchronized long reserve(long maxWaitNanos) {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        long wait = (long) Math.ceil((1 - tokens) / permitsPerNano);
+        if (wait > maxWaitNanos) return -1;
+        tokens -= 1;
+        return wait;
+    }
+
+    synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) return false;
+        tokens -= 1;
+        return true;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+    }
+}
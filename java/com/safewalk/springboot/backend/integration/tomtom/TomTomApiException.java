@@ -0,0 +1,50 @@
+package com.safewalk.springboot.backend.integration.tomtom;
+
+/**
+ * A TomTom call failed: non-2xx status, transport error, or rejected by the local rate limit.
+ */
+public class TomTomApiException extends RuntimeException {
+
+    /**
+     * Pseudo-status of a call refused by the local token bucket. Not 429: retrying would
+     * only take more tokens from the budget that is already exhausted.
+     */
+    public static final int LOCAL_RATE_LIMITED = -1;
+
+    private final int status;
+
+    public TomTomApiException(String message, int status) {
+        super(message);
+        this.status = status;
+    }
+
+    public TomTomApiException(String message, Throwable cause) {
+        super(message, cause);
+        this.status = 0;
+    }
+
+    public static TomTomApiException localRateLimited() {
+        return new TomTomApiException("Local TomTom rate limit exceeded", LOCAL_RATE_LIMITED);
+    }
+
+    /**
+     * HTTP status, 0 when no response was received, or {@link #LOCAL_RATE_LIMITED}.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Whether the call was refused by our own rate limiter without reaching TomTom.
+     */
+    public boolean isLocallyRateLimited() {
+        return status == LOCAL_RATE_LIMITED;
+    }
+
+    /**
+     * Whether repeating the same idempotent request may succeed.
+     */
+    public boolean isRetryable() {
+        return status == 0 || status == 429 || status >= 500;
+    }
+}
@@ -0,0 +1,55 @@
+package com.safewalk.springboot.backend.integration.tomtom;
+
+import com.safewalk.springboot.backend.service.TomTomService;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The one TomTom gateway used by the rest of the backend.
+ *
+ * Routing, search and traffic keep their own caching, coalescing and parsing; all of them
+ * share the {@link TomTomHttpClient} transport, so the rate limit, hedging, retries and
+ * per-endpoint metrics apply to every TomTom call.
+ */
+@Service
+public class TomTomGateway implements TomTomService {
+
+    private final TomTomRoutingService routing;
+    private final TomTomSearchService search;
+    private final TomTomTrafficService traffic;
+
+    public TomTomGateway(TomTomRoutingService routing,
+                         TomTomSearchService search,
+                         TomTomTrafficService traffic) {
+        this.routing = routing;
+        this.search = search;
+        this.traffic = traffic;
+    }
+
+    @Override
+    public List<Map<String, Object>> getRoutes(String source, String destination, int alternatives) {
+        return routing.getRoutes(source, destination, alternatives);
+    }
+
+    @Override
+    public String geocode(String address) {
+        return search.geocode(address);
+    }
+
+    @Override
+    public int countPoisNear(String latLng, String category, int radiusMeters) {
+        return search.countPoisNear(latLng, category, radiusMeters);
+    }
+
+    @Override
+    public Map<String, Object> getTraffic(String latLng) {
+        return traffic.getTraffic(latLng);
+    }
+
+    @Override
+    public List<Map<String, Object>> getTrafficAlong(double[] points) {
+        return traffic.getTrafficAlong(points);
+    }
+}
@@ -0,0 +1,220 @@
+package com.safewalk.springboot.backend.integration.tomtom;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking transport for every TomTom call, on the JDK {@link HttpClient} async API.
+ *
+ * - Rate limit: a token bucket sized to our quota ({@code tomtom.gateway.qps} / {@code .burst});
+ *   requests wait for their slot, or fail fast if the wait would exceed the request timeout.
+ * - Hedging: if a request has not answered after the endpoint's recent p95 latency, a second
+ *   identical request is sent (only if a token is free right now) and the first answer wins.
+ * - Retries: idempotent GETs are retried on transport errors, 429 and 5xx with full-jitter
+ *   exponential backoff. A request refused by the local rate limit is not retried.
+ *
+ * Latency, errors, hedges and retries are recorded per endpoint.
+ */
+@Component
+public class TomTomHttpClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(TomTomHttpClient.class);
+
+    private final HttpClient http;
+    private final TokenBucket rateLimit;
+    private final Duration requestTimeout;
+    private final int maxAttempts;
+    private final long retryBaseMillis;
+    private final long hedgeMinMillis;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    public TomTomHttpClient(@Value("${tomtom.gateway.qps:5}") double qps,
+                            @Value("${tomtom.gateway.burst:10}") int burst,
+                            @Value("${tomtom.gateway.timeout-ms:5000}") long timeoutMillis,
+                            @Value("${tomtom.gateway.max-attempts:3}") int maxAttempts,
+                            @Value("${tomtom.gateway.retry-base-ms:100}") long retryBaseMillis,
+                            @Value("${tomtom.gateway.hedge-min-ms:50}") long hedgeMinMillis,
+                            MeterRegistry meterRegistry) {
+        this.requestTimeout = Duration.ofMillis(timeoutMillis);
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(Math.min(timeoutMillis, 2000)))
+                .build();
+        this.rateLimit = new TokenBucket(qps, burst);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBaseMillis = retryBaseMillis;
+        this.hedgeMinMillis = hedgeMinMillis;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Asynchronous GET; completes with the 2xx response body or a {@link TomTomApiException}.
+     *
+     * @param endpoint Metric/hedging key, e.g. "routing", "geocode", "traffic".
+     */
+    public CompletableFuture<byte[]> get(String endpoint, URI uri) {
+        return attempt(endpoint, uri, 1);
+    }
+
+    /**
+     * Blocking convenience for callers behind synchronous interfaces.
+     *
+     * @throws TomTomApiException if the call failed after retries
+     */
+    public byte[] fetch(String endpoint, URI uri) {
+        try {
+            return get(endpoint, uri).join();
+        } catch (CompletionException ex) {
+            throw unwrap(ex);
+        }
+    }
+
+    private CompletableFuture<byte[]> attempt(String endpoint, URI uri, int attempt) {
+        return hedged(endpoint, uri).handle((body, ex) -> {
+            if (ex == null) return CompletableFuture.completedFuture(body);
+            TomTomApiException failure = unwrap(ex);
+            if (!failure.isRetryable() || attempt >= maxAttempts) {
+                return CompletableFuture.<byte[]>failedFuture(failure);
+            }
+            meterRegistry.counter("tomtom.upstream.retries", "endpoint", endpoint).increment();
+            long cap = retryBaseMillis << (attempt - 1);
+            long delay = ThreadLocalRandom.current().nextLong(cap + 1);
+            logger.debug("Retrying TomTom {} call (attempt {}) in {} ms: {}", endpoint, attempt + 1, delay, failure.getMessage());
+            return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> attempt(endpoint, uri, attempt + 1));
+        }).thenCompose(f -> f);
+    }
+
+    private CompletableFuture<byte[]> hedged(String endpoint, URI uri) {
+        CompletableFuture<byte[]> result = new CompletableFuture<>();
+        AtomicInteger outstanding = new AtomicInteger(1);
+
+        CompletableFuture<byte[]> primary = send(endpoint, uri, true);
+        primary.whenComplete((body, ex) -> settle(result, outstanding, body, ex));
+
+        long hedgeAfter = latency(endpoint).hedgeDelayMillis(hedgeMinMillis, requestTimeout.toMillis());
+        CompletableFuture.delayedExecutor(hedgeAfter, TimeUnit.MILLISECONDS).execute(() -> {
+            if (result.isDone() || !rateLimit.tryAcquire()) return;
+            outstanding.incrementAndGet();
+            meterRegistry.counter("tomtom.upstream.hedged", "endpoint", endpoint).increment();
+            CompletableFuture<byte[]> backup = send(endpoint, uri, false);
+            backup.whenComplete((body, ex) -> settle(result, outstanding, body, ex));
+            result.whenComplete((body, ex) -> backup.cancel(true));
+        });
+        result.whenComplete((body, ex) -> primary.cancel(true));
+        return result;
+    }
+
+    /** First success wins; fail only when every request sent so far has failed. */
+    private void settle(CompletableFuture<byte[]> result, AtomicInteger outstanding, byte[] body, Throwable ex) {
+        if (ex == null) {
+            result.complete(body);
+        } else if (outstanding.decrementAndGet() == 0) {
+            result.completeExceptionally(ex);
+        }
+    }
+
+    private CompletableFuture<byte[]> send(String endpoint, URI uri, boolean takeToken) {
+        long wait = 0;
+        if (takeToken) {
+            wait = rateLimit.reserve(requestTimeout.toNanos());
+            if (wait < 0) {
+                meterRegistry.counter("tomtom.upstream.errors", "endpoint", endpoint, "type", "rate_limited").increment();
+                return CompletableFuture.failedFuture(TomTomApiException.localRateLimited());
+            }
+        }
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(requestTimeout).GET().build();
+        CompletableFuture<Void> slot = wait == 0
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS));
+
+        return slot.thenCompose(ignored -> {
+            long start = System.nanoTime();
+            return http.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                    .handle((response, ex) -> {
+                        long elapsed = System.nanoTime() - start;
+                        if (ex != null) {
+                            record(endpoint, "error", elapsed);
+                            meterRegistry.counter("tomtom.upstream.errors", "endpoint", endpoint, "type", "transport").increment();
+                            throw new CompletionException(new TomTomApiException("TomTom " + endpoint + " call failed", ex));
+                        }
+                        int status = response.statusCode();
+                        if (status / 100 != 2) {
+                            record(endpoint, "http_" + status, elapsed);
+                            meterRegistry.counter("tomtom.upstream.errors", "endpoint", endpoint, "type", "http_" + status).increment();
+                            throw new CompletionException(new TomTomApiException("TomTom " + endpoint + " returned " + status, status));
+                        }
+                        record(endpoint, "ok", elapsed);
+                        latency(endpoint).add(elapsed);
+                        return response.body();
+                    });
+        });
+    }
+
+    private void record(String endpoint, String outcome, long nanos) {
+        Timer.builder("tomtom.upstream.latency")
+                .tag("endpoint", endpoint)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private LatencyWindow latency(String endpoint) {
+        return latencies.computeIfAbsent(endpoint, k -> new LatencyWindow());
+    }
+
+    private static TomTomApiException unwrap(Throwable ex) {
+        Throwable cause = ex;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof TomTomApiException t ? t : new TomTomApiException("TomTom call failed", cause);
+    }
+
+    /**
+     * Rolling window of recent successful latencies per endpoint, for the hedge delay.
+     */
+    private static final class LatencyWindow {
+        private static final int SIZE = 128;
+        private final long[] samples = new long[SIZE];
+        private int count;
+        private int next;
+        private long p95Millis = -1;
+
+        synchronized void add(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % SIZE;
+            if (count < SIZE) count++;
+            // Recompute occasionally rather than on every read.
+            if (next % 16 == 0) {
+                long[] copy = Arrays.copyOf(samples, count);
+                Arrays.sort(copy);
+                p95Millis = TimeUnit.NANOSECONDS.toMillis(copy[(int) Math.min(count - 1, Math.ceil(count * 0.95) - 1)]);
+            }
+        }
+
+        /** Hedge after the recent p95; until enough samples exist, wait half the timeout. */
+        synchronized long hedgeDelayMillis(long minMillis, long timeoutMillis) {
+            if (p95Millis < 0) return Math.max(minMillis, timeoutMillis / 2);
+            return Math.max(minMillis, p95Millis);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.safewalk.springboot.backend.integration.tomtom;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Streaming parser for TomTom calculateRoute responses.
+ *
+ * Reads {@code routes[].summary} and {@code routes[].legs[].points} token by token into
+ * typed routes with a flat coordinate buffer, and skips everything else (guidance,
+ * sections, leg summaries) without building a tree. Shared by both routing clients.
+ */
+public final class TomTomRouteParser {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private TomTomRouteParser() {}
+
+    /**
+     * One route of a calculateRoute response.
+     *
+     * @param points Interleaved lat,lng pairs over all legs.
+     */
+    public record ParsedRoute(double lengthInMeters, double travelTimeInSeconds, double[] points) {}
+
+    public static List<ParsedRoute> parse(InputStream body) throws IOException {
+        try (JsonParser p = JSON.createParser(body)) {
+            return parse(p);
+        }
+    }
+
+    public static List<ParsedRoute> parse(String body) throws IOException {
+        try (JsonParser p = JSON.createParser(body)) {
+            return parse(p);
+        }
+    }
+
+    private static List<ParsedRoute> parse(JsonParser p) throws IOException {
+        List<ParsedRoute> routes = new ArrayList<>();
+        if (p.nextToken() != JsonToken.START_OBJECT) return routes;
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("routes".equals(field) && value == JsonToken.START_ARRAY) {
+                while (p.nextToken() == JsonToken.START_OBJECT) {
+                    routes.add(readRoute(p));
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        return routes;
+    }
+
+    private static ParsedRoute readRoute(JsonParser p) throws IOException {
+        double length = 0, travelTime = 0;
+        PointBuffer points = new PointBuffer();
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("summary".equals(field) && value == JsonToken.START_OBJECT) {
+                while (p.nextToken() == JsonToken.FIELD_NAME) {
+                    String name = p.currentName();
+                    p.nextToken();
+                    if ("lengthInMeters".equals(name)) length = p.getValueAsDouble();
+                    else if ("travelTimeInSeconds".equals(name)) travelTime = p.getValueAsDouble();
+                    else p.skipChildren();
+                }
+            } else if ("legs".equals(field) && value == JsonToken.START_ARRAY) {
+                while (p.nextToken() == JsonToken.START_OBJECT) {
+                    readLeg(p, points);
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+        return new ParsedRoute(length, travelTime, points.toArray());
+    }
+
+    private static void readLeg(JsonParser p, PointBuffer points) throws IOException {
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+            String field = p.currentName();
+            JsonToken value = p.nextToken();
+            if ("points".equals(field) && value == JsonToken.START_ARRAY) {
+                while (p.nextToken() == JsonToken.START_OBJECT) {
+                    double lat = Double.NaN, lng = Double.NaN;
+                    while (p.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = p.currentName();
+                        p.nextToken();
+                        if ("latitude".equals(name)) lat = p.getValueAsDouble();
+                        else if ("longitude".equals(name)) lng = p.getValueAsDouble();
+                        else p.skipChildren();
+                    }
+                    if (!Double.isNaN(lat) && !Double.isNaN(lng)) points.add(lat, lng);
+                }
+            } else {
+                p.skipChildren();
+            }
+        }
+    }
+
+    private static final class PointBuffer {
+        private double[] data = new double[256];
+        private int size;
+
+        void add(double lat, double lng) {
+            if (size + 2 > data.length) data = Arrays.copyOf(data, data.length * 2);
+            data[size++] = lat;
+            data[size++] = lng;
+        }
+
+        double[] toArray() {
+            return Arrays.copyOf(data, size);
+        }
+    }
+}
@@ -1,12 +1,13 @@
 package com.safewalk.springboot.backend.integration.tomtom;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safewalk.springboot.backend.routing.LocalRoutingEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.ByteArrayInputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
@@ -14,31 +15,56 @@ import java.util.Map;
 
 /**
  * TomTom routing client. Uses real TomTom API when tomtom.api.key is set, otherwise returns deterministic stubs.
- * Expects source/destination as "lat,lng".
+ * Expects source/destination as "lat,lng". Real results go through the shared RouteCache.
+ * When TomTom is not configured or fails, routes come from the offline LocalRoutingEngine
+ * if a road graph is loaded, and from deterministic stubs otherwise.
+ * Callers outside this package should go through {@link TomTomGateway}.
  */
 @Service
 public class TomTomRoutingService {
 
+    private static final Logger logger = LoggerFactory.getLogger(TomTomRoutingService.class);
+
     private final String apiKey;
     private final boolean useStub;
-    private final RestTemplate rest;
-    private final ObjectMapper mapper = new ObjectMapper();
+    private final TomTomHttpClient http;
+    private final RouteCache routeCache;
+    private final LocalRoutingEngine localRouting;
 
     public TomTomRoutingService(@Value("${tomtom.api.key:}") String apiKey,
                                 @Value("${tomtom.stub.enabled:true}") boolean stub,
-                                RestTemplate rest) {
+                                TomTomHttpClient http,
+                                RouteCache routeCache,
+                                LocalRoutingEngine localRouting) {
         this.apiKey = apiKey == null ? "" : apiKey.trim();
         this.useStub = this.apiKey.isEmpty() || stub;
-        this.rest = rest;
+        this.http = http;
+        this.routeCache = routeCache;
+        this.localRouting = localRouting;
     }
 
     /**
      * Returns a list of route maps:
-     * id (Integer), distanceMeters (Double), durationSec (Double), polyline (String)
+     * id (Integer), distanceMeters (Double), durationSec (Double), polyline (String),
+     * and for real results points (double[], interleaved lat,lng)
      */
     public List<Map<String, Object>> getRoutes(String source, String destination, int alternatives) {
-        if (useStub) return stubRoutes(source, destination);
+        if (useStub) return fallbackRoutes(source, destination, alternatives);
+
+        List<Map<String, Object>> routes = routeCache.get(source, destination, alternatives,
+                () -> fetchRoutes(source, destination, alternatives));
+        return routes != null ? routes : fallbackRoutes(source, destination, alternatives);
+    }
 
+    private List<Map<String, Object>> fallbackRoutes(String source, String destination, int alternatives) {
+        List<Map<String, Object>> local = localRouting.getRoutes(source, destination, alternatives);
+        return local != null ? local : stubRoutes(source, destination);
+    }
+
+    /**
+     * Calls TomTom calculateRoute. Returns null on any failure so the result is not cached.
+     */
+    private List<Map<String, Object>> fetchRoutes(String source, String destination, int alternatives) {
         try {
             String coords = String.format("%s:%s", source, destination);
             UriComponentsBuilder b = UriComponentsBuilder
@@ -48,29 +74,19 @@ public class TomTomRoutingService {
                     .queryParam("maxAlternatives", alternatives);
 
             URI uri = b.buildAndExpand(coords).toUri();
-            String body = rest.getForObject(uri, String.class);
-            if (body == null) return stubRoutes(source, destination);
+            byte[] body = http.fetch("routing", uri);
+            List<TomTomRouteParser.ParsedRoute> routes = TomTomRouteParser.parse(new ByteArrayInputStream(body));
 
-            JsonNode root = mapper.readTree(body);
-            JsonNode routes = root.path("routes");
-            List<Map<String, Object>> out = new ArrayList<>();
+            List<Map<String, Object>> out = new ArrayList<>(routes.size());
             int idx = 1;
-            if (routes.isArray()) {
-                for (JsonNode r : routes) {
-                    double distance = r.path("summary").path("lengthInMeters").asDouble(0.0);
-                    double duration = r.path("summary").path("travelTimeInSeconds").asDouble(0.0);
-                    String polyline = "";
-                    JsonNode sections = r.path("sections");
-                    if (sections.isArray() && sections.size() > 0) {
-                        polyline = sections.get(0).path("polyline").asText("");
-                    }
-                    out.add(Map.of("id", idx++, "distanceMeters", distance, "durationSec", duration, "polyline", polyline));
-                }
+            for (TomTomRouteParser.ParsedRoute r : routes) {
+                out.add(Map.of("id", idx++, "distanceMeters", r.lengthInMeters(), "durationSec", r.travelTimeInSeconds(),
+                        "polyline", "", "points", r.points()));
             }
-            if (out.isEmpty()) return stubRoutes(source, destination);
-            return out;
+            return out.isEmpty() ? null : out;
         } catch (Exception ex) {
-            return stubRoutes(source, destination);
+            logger.warn("TomTom routing failed, falling back to stub routes: {}", ex.getMessage());
+            return null;
         }
     }
 
@@ -2,30 +2,45 @@ package com.safewalk.springboot.backend.integration.tomtom;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safewalk.springboot.backend.geo.GeoUtils;
+import com.safewalk.springboot.backend.geo.PoiIndexService;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
 import java.net.URI;
 
 /**
  * Minimal TomTom search/geocode service. If api key is blank, geocoding returns null and POI search returns zero hits.
+ * Geocode results are cached by normalized address in {@link GeocodeCache}, and identical
+ * concurrent misses share one upstream call. Callers outside this package should go
+ * through {@link TomTomGateway}.
  */
 @Service
 public class TomTomSearchService {
 
     private final String apiKey;
     private final boolean useStub;
-    private final RestTemplate rest;
+    private final TomTomHttpClient http;
     private final ObjectMapper mapper = new ObjectMapper();
+    private final GeocodeCache geocodeCache;
+    private final PoiIndexService poiIndex;
+    private final SingleFlight<String, String> geocodeFlight;
 
     public TomTomSearchService(@Value("${tomtom.api.key:}") String apiKey,
                                @Value("${tomtom.stub.enabled:true}") boolean stub,
-                               RestTemplate rest) {
+                               TomTomHttpClient http,
+                               GeocodeCache geocodeCache,
+                               PoiIndexService poiIndex,
+                               MeterRegistry meterRegistry) {
         this.apiKey = apiKey == null ? "" : apiKey.trim();
         this.useStub = this.apiKey.isEmpty() || stub;
-        this.rest = rest;
+        this.http = http;
+        this.geocodeCache = geocodeCache;
+        this.poiIndex = poiIndex;
+        this.geocodeFlight = new SingleFlight<>("geocode", meterRegistry);
     }
 
     /**
@@ -33,6 +48,25 @@ public class TomTomSearchService {
      */
     public String geocode(String address) {
         if (useStub) return null;
+        String key = GeocodeCache.normalize(address);
+        if (key.isEmpty()) return null;
+
+        GeocodeCache.Lookup cached = geocodeCache.get(key);
+        if (cached.cached()) return cached.latLng();
+
+        try {
+            return geocodeFlight.execute(key, () -> {
+                String latLng = fetchGeocode(address);
+                // Cache "not found" as well; transport errors throw and are not cached.
+                geocodeCache.put(key, latLng);
+                return latLng;
+            });
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    private String fetchGeocode(String address) {
         try {
             String q = address;
             UriComponentsBuilder b = UriComponentsBuilder
@@ -41,8 +75,7 @@ public class TomTomSearchService {
                     .queryParam("limit", 1);
 
             URI uri = b.buildAndExpand(q).toUri();
-            String body = rest.getForObject(uri, String.class);
-            if (body == null) return null;
+            byte[] body = http.fetch("geocode", uri);
             JsonNode root = mapper.readTree(body);
             JsonNode results = root.path("results");
             if (results.isArray() && results.size() > 0) {
@@ -52,16 +85,23 @@ public class TomTomSearchService {
                 return String.format("%s,%s", lat, lon);
             }
             return null;
-        } catch (Exception ex) {
-            return null;
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unreadable TomTom geocode response", ex);
         }
     }
 
     /**
      * Count POIs of interest near a sample coordinate.
-     * For full TomTom usage implement search/POI queries; here we return 0 for stub mode or on error.
+     * Answered from the local POI index when one is loaded; otherwise falls back to the
+     * stub counts, or 0 for real mode (TomTom POI search is not wired up).
      */
     public int countPoisNear(String latLng, String category, int radiusMeters) {
+        if (poiIndex.isLoaded()) {
+            double[] ll = GeoUtils.parseLatLng(latLng);
+            if (ll != null) {
+                return Math.max(0, poiIndex.countNear(ll[0], ll[1], category, radiusMeters));
+            }
+        }
         if (useStub) {
             // deterministic fake counts based on category hash
             return Math.abs((latLng + "|" + category).hashCode() % 3);
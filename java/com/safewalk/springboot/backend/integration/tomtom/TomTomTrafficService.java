@@ -1,28 +1,123 @@
 package com.safewalk.springboot.backend.integration.tomtom;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safewalk.springboot.backend.geo.GeoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
- * Minimal Traffic service. If API is available, extend to query TomTom Traffic API.
+ * Minimal Traffic service backed by the TomTom Flow Segment Data API.
+ * Results are cached per map tile in {@link TrafficTileCache}, so nearby points and
+ * concurrent requests share one upstream call. A route is sampled at no more than
+ * {@code tomtom.traffic.samples-per-route} tiles, so scoring stays within the shared
+ * TomTom rate limit and leaves room for routing and geocoding.
+ * Callers outside this package should go through {@link TomTomGateway}.
  */
 @Service
 public class TomTomTrafficService {
 
+    private static final Logger logger = LoggerFactory.getLogger(TomTomTrafficService.class);
+
+    private final String apiKey;
     private final boolean useStub;
+    private final TomTomHttpClient http;
+    private final TrafficTileCache tileCache;
+    private final int samplesPerRoute;
+    private final ObjectMapper mapper = new ObjectMapper();
 
     public TomTomTrafficService(@Value("${tomtom.stub.enabled:true}") boolean stub,
-                                @Value("${tomtom.api.key:}") String apiKey) {
-        this.useStub = apiKey == null || apiKey.isBlank() || stub;
+                                @Value("${tomtom.api.key:}") String apiKey,
+                                TomTomHttpClient http,
+                                TrafficTileCache tileCache,
+                                @Value("${tomtom.traffic.samples-per-route:3}") int samplesPerRoute) {
+        this.apiKey = apiKey == null ? "" : apiKey.trim();
+        this.useStub = this.apiKey.isEmpty() || stub;
+        this.http = http;
+        this.tileCache = tileCache;
+        this.samplesPerRoute = Math.max(1, samplesPerRoute);
     }
 
     public Map<String, Object> getTraffic(String latLng) {
         if (useStub) {
             return Map.of("latLng", latLng, "congestion", "LOW", "speedKmph", 25.0);
         }
-        // For production: call TomTom traffic endpoints and parse response
+        double[] ll = GeoUtils.parseLatLng(latLng);
+        if (ll == null) return unknown(latLng);
+        return getTrafficAlong(ll).get(0);
+    }
+
+    /**
+     * Traffic for up to {@code tomtom.traffic.samples-per-route} map tiles evenly spread
+     * along a route, in route order. Each entry has the same shape as {@link #getTraffic},
+     * with latLng set to a route point inside the tile.
+     *
+     * @param points Interleaved lat,lng pairs.
+     */
+    public List<Map<String, Object>> getTrafficAlong(double[] points) {
+        Map<Long, String> tiles = tileCache.sample(tileCache.tilesAlong(points), samplesPerRoute);
+        List<Map<String, Object>> out = new ArrayList<>(tiles.size());
+        if (useStub) {
+            tiles.values().forEach(latLng -> out.add(Map.of("latLng", latLng, "congestion", "LOW", "speedKmph", 25.0)));
+            return out;
+        }
+
+        Map<Long, TrafficTileCache.TrafficSample> samples;
+        try {
+            samples = tileCache.getAll(tiles, this::fetchTraffic).join();
+        } catch (RuntimeException ex) {
+            logger.warn("TomTom traffic lookup failed for {} tiles: {}", tiles.size(), ex.getMessage());
+            samples = Map.of();
+        }
+        for (Map.Entry<Long, String> tile : tiles.entrySet()) {
+            TrafficTileCache.TrafficSample s = samples.get(tile.getKey());
+            out.add(s == null ? unknown(tile.getValue())
+                    : Map.of("latLng", tile.getValue(), "congestion", s.congestion(), "speedKmph", s.speedKmph()));
+        }
+        return out;
+    }
+
+    private CompletableFuture<TrafficTileCache.TrafficSample> fetchTraffic(String latLng) {
+        URI uri = UriComponentsBuilder
+                .fromUriString("https://api.tomtom.com/traffic/services/4/flowSegmentData/absolute/10/json")
+                .queryParam("key", apiKey)
+                .queryParam("point", latLng)
+                .build()
+                .toUri();
+        return http.get("traffic", uri).thenApply(body -> {
+            try {
+                JsonNode flow = mapper.readTree(body).path("flowSegmentData");
+                double current = flow.path("currentSpeed").asDouble(0.0);
+                double freeFlow = flow.path("freeFlowSpeed").asDouble(0.0);
+                return new TrafficTileCache.TrafficSample(congestion(current, freeFlow), current);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }).whenComplete((sample, ex) -> {
+            if (ex != null) logger.warn("TomTom traffic lookup failed for {}: {}", latLng, ex.getMessage());
+        });
+    }
+
+    private String congestion(double current, double freeFlow) {
+        if (freeFlow <= 0) return "UNKNOWN";
+        double ratio = current / freeFlow;
+        if (ratio >= 0.75) return "LOW";
+        if (ratio >= 0.4) return "MEDIUM";
+        return "HIGH";
+    }
+
+    private Map<String, Object> unknown(String latLng) {
         return Map.of("latLng", latLng, "congestion", "UNKNOWN", "speedKmph", 0.0);
     }
 }
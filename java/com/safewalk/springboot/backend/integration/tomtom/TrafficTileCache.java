@@ -0,0 +1,149 @@
+package com.safewalk.springboot.backend.integration.tomtom;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Short-lived traffic cache keyed by slippy-map tiles instead of raw coordinates.
+ *
+ * Points that fall into the same tile (zoom 17 is roughly 300 m x 300 m at the equator,
+ * less at higher latitudes) share one upstream lookup. Lookups are bulk: the caller passes
+ * every tile it needs, hits are served from memory, and the misses are loaded
+ * concurrently as one call per distinct tile. Loads already in flight are joined rather
+ * than repeated. Failed tiles are simply absent from the result and are not cached.
+ */
+@Component
+public class TrafficTileCache {
+
+    private final int zoom;
+    private final AsyncCache<Long, TrafficSample> cache;
+    private final Counter hits;
+    private final Counter misses;
+
+    public TrafficTileCache(@Value("${tomtom.traffic-cache.zoom:17}") int zoom,
+                            @Value("${tomtom.traffic-cache.ttl:PT2M}") Duration ttl,
+                            @Value("${tomtom.traffic-cache.max-tiles:20000}") long maxTiles,
+                            MeterRegistry meterRegistry) {
+        this.zoom = Math.max(1, Math.min(22, zoom));
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxTiles)
+                .expireAfterWrite(ttl)
+                .buildAsync();
+        this.hits = Counter.builder("tomtom.traffic.cache.requests").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("tomtom.traffic.cache.requests").tag("result", "miss").register(meterRegistry);
+        Gauge.builder("tomtom.traffic.cache.hit.ratio", this, TrafficTileCache::hitRatio).register(meterRegistry);
+        Gauge.builder("tomtom.traffic.cache.size", cache, c -> c.synchronous().estimatedSize()).register(meterRegistry);
+    }
+
+    /**
+     * Congestion and speed for one tile.
+     */
+    public record TrafficSample(String congestion, double speedKmph) {}
+
+    /**
+     * Packs the tile containing the point into a long (zoom, x, y).
+     */
+    public long tileOf(double lat, double lng) {
+        int n = 1 << zoom;
+        double latRad = Math.toRadians(Math.max(-85.0511, Math.min(85.0511, lat)));
+        int x = (int) Math.floor((lng + 180.0) / 360.0 * n);
+        int y = (int) Math.floor((1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2 * n);
+        x = Math.max(0, Math.min(n - 1, x));
+        y = Math.max(0, Math.min(n - 1, y));
+        return ((long) zoom << 58) | ((long) x << 29) | y;
+    }
+
+    /**
+     * Tiles crossed by a polyline, in route order, each with a point of the route inside it
+     * (the point used for the upstream lookup).
+     *
+     * @param points Interleaved lat,lng pairs.
+     */
+    public Map<Long, String> tilesAlong(double[] points) {
+        Map<Long, String> tiles = new LinkedHashMap<>();
+        int n = points.length / 2;
+        for (int i = 0; i < n; i++) {
+            double lat = points[2 * i], lng = points[2 * i + 1];
+            tiles.putIfAbsent(tileOf(lat, lng), lat + "," + lng);
+            if (i + 1 < n) {
+                // Sample long segments so tiles between far-apart vertices are not skipped.
+                double nLat = points[2 * i + 2], nLng = points[2 * i + 3];
+                // Tiles are square in Mercator: 360 / 2^zoom degrees wide, cos(lat) times that high.
+                double tileWidth = 360.0 / (1 << zoom);
+                double tileHeight = tileWidth * Math.cos(Math.toRadians(Math.max(Math.abs(lat), Math.abs(nLat))));
+                int steps = (int) Math.ceil(Math.max(Math.abs(nLat - lat) / (tileHeight / 2),
+                        Math.abs(nLng - lng) / (tileWidth / 2)));
+                for (int s = 1; s < steps; s++) {
+                    double t = (double) s / steps;
+                    double sLat = lat + t * (nLat - lat), sLng = lng + t * (nLng - lng);
+                    tiles.putIfAbsent(tileOf(sLat, sLng), sLat + "," + sLng);
+                }
+            }
+        }
+        return tiles;
+    }
+
+    /**
+     * At most {@code max} of the given tiles, evenly spaced along the route and including
+     * the first and last, so a long route costs a bounded number of upstream calls.
+     */
+    public Map<Long, String> sample(Map<Long, String> tiles, int max) {
+        if (tiles.size() <= max) return tiles;
+        List<Map.Entry<Long, String>> all = new ArrayList<>(tiles.entrySet());
+        Map<Long, String> sampled = new LinkedHashMap<>();
+        for (int s = 0; s < max; s++) {
+            int i = max == 1 ? 0 : (int) ((long) s * (all.size() - 1) / (max - 1));
+            sampled.put(all.get(i).getKey(), all.get(i).getValue());
+        }
+        return sampled;
+    }
+
+    /**
+     * Bulk lookup.
+     *
+     * @param tiles  Tile key -> "lat,lng" of a point inside it, used for loading on a miss.
+     * @param loader Upstream lookup for one point; a failed future leaves the tile out.
+     * @return Samples for every tile that is cached or loaded successfully.
+     */
+    public CompletableFuture<Map<Long, TrafficSample>> getAll(Map<Long, String> tiles,
+                                                              Function<String, CompletableFuture<TrafficSample>> loader) {
+        for (Long tile : tiles.keySet()) {
+            if (cache.getIfPresent(tile) != null) hits.increment();
+            else misses.increment();
+        }
+        return cache.getAll(tiles.keySet(), (missing, executor) -> {
+            Map<Long, CompletableFuture<TrafficSample>> loads = new HashMap<>();
+            for (Long tile : missing) {
+                loads.put(tile, loader.apply(tiles.get(tile)).exceptionally(ex -> null));
+            }
+            return CompletableFuture.allOf(loads.values().toArray(new CompletableFuture[0]))
+                    .thenApply(ignored -> {
+                        Map<Long, TrafficSample> loaded = new HashMap<>();
+                        loads.forEach((tile, f) -> {
+                            TrafficSample sample = f.join();
+                            if (sample != null) loaded.put(tile, sample);
+                        });
+                        return loaded;
+                    });
+        });
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+}
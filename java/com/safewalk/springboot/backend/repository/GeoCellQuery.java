@@ -0,0 +1,102 @@
+package com.safewalk.springboot.backend.repository;
+
+import com.safewalk.springboot.backend.geo.GeoHash;
+import com.safewalk.springboot.backend.geo.GeoUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Radius and bounding-box queries over an entity with {@code latitude}, {@code longitude}
+ * and an indexed {@code geohash} column.
+ * * The box is covered by the 3 x 3 geohash cells around its centre, at the precision
+ * where a cell is at least half the box; each cell is a range scan of the geohash index.
+ * Rows are then filtered exactly: by latitude/longitude bounds in SQL and, for radius
+ * queries, by haversine distance. Radius candidates are read newest first from a cursor,
+ * {@value #FETCH_SIZE} rows per round trip, until {@code limit} rows pass the distance
+ * filter or the box has no more rows. A dense area only reads the batches it needs, and
+ * rows in the box corners never cut the result short.
+ */
+final class GeoCellQuery<T> {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+    private static final int FETCH_SIZE = 500;
+
+    private final EntityManager entityManager;
+    private final Class<T> type;
+    private final String timeAttribute;
+    private final Function<T, Double> latitude;
+    private final Function<T, Double> longitude;
+
+    GeoCellQuery(EntityManager entityManager, Class<T> type, String timeAttribute,
+                 Function<T, Double> latitude, Function<T, Double> longitude) {
+        this.entityManager = entityManager;
+        this.type = type;
+        this.timeAttribute = timeAttribute;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    List<T> withinRadius(double lat, double lng, double radiusMeters, LocalDateTime since, int limit) {
+        double dLat = radiusMeters / METERS_PER_DEGREE;
+        double dLng = radiusMeters / (METERS_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(lat))));
+        TypedQuery<T> query = boxQuery(lat - dLat, lng - dLng, lat + dLat, lng + dLng, since)
+                .setHint("org.hibernate.fetchSize", FETCH_SIZE);
+        List<T> result = new ArrayList<>();
+        try (Stream<T> candidates = query.getResultStream()) {
+            var it = candidates.iterator();
+            while (it.hasNext() && result.size() < limit) {
+                T row = it.next();
+                if (GeoUtils.haversineMeters(lat, lng, latitude.apply(row), longitude.apply(row)) <= radiusMeters) {
+                    result.add(row);
+                } else {
+                    entityManager.detach(row);
+                }
+            }
+        }
+        return result;
+    }
+
+    List<T> withinBox(double minLat, double minLng, double maxLat, double maxLng, LocalDateTime since, int limit) {
+        return boxQuery(minLat, minLng, maxLat, maxLng, since).setMaxResults(limit).getResultList();
+    }
+
+    private TypedQuery<T> boxQuery(double minLat, double minLng, double maxLat, double maxLng, LocalDateTime since) {
+        minLat = Math.max(-90, minLat);
+        maxLat = Math.min(90, maxLat);
+        minLng = Math.max(-180, minLng);
+        maxLng = Math.min(180, maxLng);
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = cb.createQuery(type);
+        Root<T> root = query.from(type);
+        Path<String> geohash = root.get("geohash");
+
+        List<Predicate> cells = new ArrayList<>();
+        for (String cell : GeoHash.covering(minLat, minLng, maxLat, maxLng, GeoHash.STORED_PRECISION)) {
+            String end = GeoHash.upperBound(cell);
+            cells.add(end == null
+                    ? cb.greaterThanOrEqualTo(geohash, cell)
+                    : cb.and(cb.greaterThanOrEqualTo(geohash, cell), cb.lessThan(geohash, end)));
+        }
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.or(cells.toArray(new Predicate[0])));
+        where.add(cb.between(root.get("latitude"), minLat, maxLat));
+        where.add(cb.between(root.get("longitude"), minLng, maxLng));
+        if (since != null) where.add(cb.greaterThanOrEqualTo(root.get(timeAttribute), since));
+        query.where(where.toArray(new Predicate[0]));
+        query.orderBy(cb.desc(root.get(timeAttribute)));
+
+        return entityManager.createQuery(query);
+    }
+}
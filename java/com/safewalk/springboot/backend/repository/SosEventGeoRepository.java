@@ -0,0 +1,26 @@
+package com.safewalk.springboot.backend.repository;
+
+import com.safewalk.springboot.backend.entity.SosEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Spatial queries on SOS events, served by the (geohash, created_at) index.
+ * * Mixed into SosEventRepository.
+ */
+public interface SosEventGeoRepository {
+
+    /**
+     * SOS events within {@code radiusMeters} of a point since the given instant (null for
+     * all time), newest first, at most {@code limit}.
+     */
+    List<SosEvent> findWithinRadius(double lat, double lng, double radiusMeters, LocalDateTime since, int limit);
+
+    /**
+     * SOS events inside a bounding box since the given instant (null for all time),
+     * newest first, at most {@code limit}.
+     */
+    List<SosEvent> findWithinBox(double minLat, double minLng, double maxLat, double maxLng,
+                                 LocalDateTime since, int limit);
+}
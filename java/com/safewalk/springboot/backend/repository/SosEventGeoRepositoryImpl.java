@@ -0,0 +1,30 @@
+package com.safewalk.springboot.backend.repository;
+
+import com.safewalk.springboot.backend.entity.SosEvent;
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+class SosEventGeoRepositoryImpl implements SosEventGeoRepository {
+
+    private final GeoCellQuery<SosEvent> query;
+
+    SosEventGeoRepositoryImpl(EntityManager entityManager) {
+        this.query = new GeoCellQuery<>(entityManager, SosEvent.class, "createdAt",
+                SosEvent::getLatitude, SosEvent::getLongitude);
+    }
+
+    @Override
+    @Transactional(readOnly = true) // candidates are streamed from an open cursor
+    public List<SosEvent> findWithinRadius(double lat, double lng, double radiusMeters, LocalDateTime since, int limit) {
+        return query.withinRadius(lat, lng, radiusMeters, since, limit);
+    }
+
+    @Override
+    public List<SosEvent> findWithinBox(double minLat, double minLng, double maxLat, double maxLng,
+                                        LocalDateTime since, int limit) {
+        return query.withinBox(minLat, minLng, maxLat, maxLng, since, limit);
+    }
+}
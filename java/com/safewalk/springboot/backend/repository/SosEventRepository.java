@@ -3,8 +3,11 @@ package com.safewalk.springboot.backend.repository;
 import com.safewalk.springboot.backend.entity.SosEvent;
 import com.safewalk.springboot.backend.entity.Trip;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -13,7 +16,7 @@ import java.util.List;
  * * Provides access for logging new SOS events and retrieving historical data for a trip.
  */
 @Repository
-public interface SosEventRepository extends JpaRepository<SosEvent, Long> {
+public interface SosEventRepository extends JpaRepository<SosEvent, Long>, SosEventGeoRepository {
 
     /**
      * Finds all SOS events associated with a specific trip.
@@ -22,4 +25,21 @@ public interface SosEventRepository extends JpaRepository<SosEvent, Long> {
      * @return A list of SosEvent entities for the given trip.
      */
     List<SosEvent> findAllByTrip(Trip trip);
+
+    /**
+     * Location and time of every SOS event since the given instant, as
+     * {@code [latitude, longitude, createdAt]} rows. Used to build the safety tile grid
+     * without loading full entities.
+     */
+    @Query("select s.latitude, s.longitude, s.createdAt from SosEvent s where s.createdAt >= :since")
+    List<Object[]> findLocationsSince(@Param("since") LocalDateTime since);
+
+    /**
+     * Every SOS event since the given instant as
+     * {@code [id, tripId, latitude, longitude, createdAt]} rows, skipping events without a
+     * position. Used to warm the in-memory incident store.
+     */
+    @Query("select s.id, s.trip.id, s.latitude, s.longitude, s.createdAt from SosEvent s "
+            + "where s.createdAt >= :since and s.latitude is not null and s.longitude is not null")
+    List<Object[]> findIncidentsSince(@Param("since") LocalDateTime since);
 }
\ No newline at end of file
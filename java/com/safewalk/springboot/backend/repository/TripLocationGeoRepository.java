@@ -0,0 +1,28 @@
+package com.safewalk.springboot.backend.repository;
+
+import com.safewalk.springboot.backend.entity.CoreLocationUpdate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Spatial queries on location history, served by the (geohash, recorded_at) index.
+ * * Mixed into TripLocationRepository. Bounding by {@code since} also limits the scan to
+ * the daily partitions in range.
+ */
+public interface TripLocationGeoRepository {
+
+    /**
+     * Location updates within {@code radiusMeters} of a point recorded since the given
+     * instant (null for all retained history), newest first, at most {@code limit}.
+     */
+    List<CoreLocationUpdate> findWithinRadius(double lat, double lng, double radiusMeters,
+                                              LocalDateTime since, int limit);
+
+    /**
+     * Location updates inside a bounding box recorded since the given instant (null for
+     * all retained history), newest first, at most {@code limit}.
+     */
+    List<CoreLocationUpdate> findWithinBox(double minLat, double minLng, double maxLat, double maxLng,
+                                           LocalDateTime since, int limit);
+}
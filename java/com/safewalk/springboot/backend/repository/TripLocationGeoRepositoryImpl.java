@@ -0,0 +1,31 @@
+package com.safewalk.springboot.backend.repository;
+
+import com.safewalk.springboot.backend.entity.CoreLocationUpdate;
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+class TripLocationGeoRepositoryImpl implements TripLocationGeoRepository {
+
+    private final GeoCellQuery<CoreLocationUpdate> query;
+
+    TripLocationGeoRepositoryImpl(EntityManager entityManager) {
+        this.query = new GeoCellQuery<>(entityManager, CoreLocationUpdate.class, "recordedAt",
+                CoreLocationUpdate::getLatitude, CoreLocationUpdate::getLongitude);
+    }
+
+    @Override
+    @Transactional(readOnly = true) // candidates are streamed from an open cursor
+    public List<CoreLocationUpdate> findWithinRadius(double lat, double lng, double radiusMeters,
+                                                     LocalDateTime since, int limit) {
+        return query.withinRadius(lat, lng, radiusMeters, since, limit);
+    }
+
+    @Override
+    public List<CoreLocationUpdate> findWithinBox(double minLat, double minLng, double maxLat, double maxLng,
+                                                  LocalDateTime since, int limit) {
+        return query.withinBox(minLat, minLng, maxLat, maxLng, since, limit);
+    }
+}
@@ -2,9 +2,14 @@ package com.safewalk.springboot.backend.repository;
 
 import com.safewalk.springboot.backend.entity.CoreLocationUpdate;
 import com.safewalk.springboot.backend.entity.Trip;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,7 +19,7 @@ import java.util.Optional;
  * * This data is crucial for historical analysis and debugging deviation events.
  */
 @Repository
-public interface TripLocationRepository extends JpaRepository<CoreLocationUpdate, Long> {
+public interface TripLocationRepository extends JpaRepository<CoreLocationUpdate, Long>, TripLocationGeoRepository {
 
     /**
      * Finds the latest location update for a specific trip, ordered by timestamp.
@@ -32,4 +37,55 @@ public interface TripLocationRepository extends JpaRepository<CoreLocationUpdate
      * @return A list of all CoreLocationUpdate entities for the trip.
      */
     List<CoreLocationUpdate> findAllByTripOrderByRecordedAtAsc(Trip trip);
+
+    /**
+     * Latest location update for a trip, looking only at rows recorded after {@code since}
+     * (typically the trip start), so only the partitions in range are scanned.
+     *
+     * @param trip The Trip entity.
+     * @param since Lower bound on recorded_at.
+     * @return An Optional containing the latest location update.
+     */
+    Optional<CoreLocationUpdate> findTopByTripAndRecordedAtGreaterThanEqualOrderByRecordedAtDesc(Trip trip, LocalDateTime since);
+
+    /**
+     * Location updates for a trip recorded after {@code since}, ordered chronologically.
+     *
+     * @param trip The Trip entity.
+     * @param since Lower bound on recorded_at.
+     * @return The matching CoreLocationUpdate entities.
+     */
+    List<CoreLocationUpdate> findAllByTripAndRecordedAtGreaterThanEqualOrderByRecordedAtAsc(Trip trip, LocalDateTime since);
+
+    /**
+     * Deletes all location updates of a trip in one statement.
+     * * Used once the trip's track has been archived.
+     *
+     * @param trip The Trip entity.
+     * @return The number of rows deleted.
+     */
+    @Modifying
+    @Query("DELETE FROM CoreLocationUpdate u WHERE u.trip = :trip")
+    int deleteAllByTrip(@Param("trip") Trip trip);
+
+    /**
+     * Keyset page of a trip's history after the position (afterRecordedAt, afterId), as
+     * {@code [id, latitude, longitude, timestamp, recordedAt]} rows ordered by
+     * (recorded_at, id). Served by the (trip_id, recorded_at, id) index, so the cost of a
+     * page does not depend on how far into the trip it is. The plain lower bound on
+     * recorded_at lets PostgreSQL prune the daily partitions before the cursor.
+     *
+     * @param trip The Trip entity.
+     * @param afterRecordedAt recorded_at of the last row already returned.
+     * @param afterId ID of the last row already returned.
+     * @param page Page size (use PageRequest.of(0, size)).
+     */
+    @Query("SELECT u.id, u.latitude, u.longitude, u.timestamp, u.recordedAt FROM CoreLocationUpdate u "
+            + "WHERE u.trip = :trip AND u.recordedAt >= :afterRecordedAt "
+            + "AND (u.recordedAt > :afterRecordedAt OR u.id > :afterId) "
+            + "ORDER BY u.recordedAt ASC, u.id ASC")
+    List<Object[]> findPageAfter(@Param("trip") Trip trip,
+                                 @Param("afterRecordedAt") LocalDateTime afterRecordedAt,
+                                 @Param("afterId") Long afterId,
+                                 Pageable page);
 }
\ No newline at end of file
@@ -3,10 +3,13 @@ package com.safewalk.springboot.backend.repository;
 import com.safewalk.springboot.backend.entity.Trip;
 import com.safewalk.springboot.backend.entity.TripStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -44,4 +47,61 @@ public interface TripRepository extends JpaRepository<Trip, Long> {
      * @return A list of all active Trip entities.
      */
     List<Trip> findAllByStatus(TripStatus status);
+
+    /**
+     * Loads only the ID, chat ID and status of a trip.
+     * * Used where a status check does not justify loading the whole row.
+     *
+     * @param tripId The unique ID of the trip.
+     * @return An Optional containing the projection, or empty if not found.
+     */
+    Optional<TripStatusView> findStatusViewById(Long tripId);
+
+    /**
+     * Finds a batch of trips in the given status, completed before the cutoff, whose
+     * location rows have not been archived yet, with IDs above {@code afterId} in ID order.
+     * * Used by the track archival job, which walks the candidates once per run so a trip
+     * that fails to archive does not come back in every batch.
+     */
+    List<Trip> findTop100ByStatusAndTrackArchivedAtIsNullAndCompletedAtBeforeAndIdGreaterThanOrderByIdAsc(
+            TripStatus status, LocalDateTime cutoff, Long afterId);
+
+    /**
+     * Stamps a trip's track as archived without writing any other column.
+     */
+    @Modifying
+    @Query("UPDATE Trip t SET t.trackArchivedAt = :archivedAt WHERE t.id = :tripId")
+    int markTrackArchived(@Param("tripId") Long tripId, @Param("archivedAt") LocalDateTime archivedAt);
+
+    /**
+     * Sets the status of a trip only if it is currently in one of the given statuses.
+     * * One statement, no prior load; used by TripStateTransitionService.
+     *
+     * @return The number of rows updated (0 on conflict).
+     */
+    @Modifying
+    @Query("UPDATE Trip t SET t.status = :to WHERE t.id = :tripId AND t.status IN :from")
+    int compareAndSetStatus(@Param("tripId") Long tripId,
+                            @Param("from") Collection<TripStatus> from,
+                            @Param("to") TripStatus to);
+
+    /**
+     * Same as {@link #compareAndSetStatus} for COMPLETED, also stamping the completion time.
+     */
+    @Modifying
+    @Query("UPDATE Trip t SET t.status = com.safewalk.springboot.backend.entity.TripStatus.COMPLETED, "
+            + "t.completedAt = :completedAt WHERE t.id = :tripId AND t.status IN :from")
+    int compareAndSetCompleted(@Param("tripId") Long tripId,
+                               @Param("from") Collection<TripStatus> from,
+                               @Param("completedAt") LocalDateTime completedAt);
+
+    /**
+     * Same as {@link #compareAndSetStatus} for CANCELLED, also storing the reason.
+     */
+    @Modifying
+    @Query("UPDATE Trip t SET t.status = com.safewalk.springboot.backend.entity.TripStatus.CANCELLED, "
+            + "t.cancellationReason = :reason WHERE t.id = :tripId AND t.status IN :from")
+    int compareAndSetCancelled(@Param("tripId") Long tripId,
+                               @Param("from") Collection<TripStatus> from,
+                               @Param("reason") String reason);
 }
\ No newline at end of file
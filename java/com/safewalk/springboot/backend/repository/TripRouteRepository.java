@@ -0,0 +1,12 @@
+package com.safewalk.springboot.backend.repository;
+
+import com.safewalk.springboot.backend.entity.TripRoute;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for trip route geometry, keyed by trip ID.
+ */
+@Repository
+public interface TripRouteRepository extends JpaRepository<TripRoute, Long> {
+}
@@ -0,0 +1,16 @@
+package com.safewalk.springboot.backend.repository;
+
+import com.safewalk.springboot.backend.entity.TripStatus;
+
+/**
+ * Closed projection of the few Trip columns that status checks need.
+ * * Spring Data selects only these columns instead of the whole trips row.
+ */
+public interface TripStatusView {
+
+    Long getId();
+
+    Long getTelegramChatId();
+
+    TripStatus getStatus();
+}
@@ -0,0 +1,12 @@
+package com.safewalk.springboot.backend.repository;
+
+import com.safewalk.springboot.backend.entity.TripTrackArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for archived trip tracks, keyed by trip ID.
+ */
+@Repository
+public interface TripTrackArchiveRepository extends JpaRepository<TripTrackArchive, Long> {
+}
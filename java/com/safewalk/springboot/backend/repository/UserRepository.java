@@ -1,7 +1,12 @@
 package com.safewalk.springboot.backend.repository;
 
+import com.safewalk.springboot.backend.config.SecondLevelCacheConfig;
 import com.safewalk.springboot.backend.entity.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -16,9 +21,29 @@ public interface UserRepository extends JpaRepository<User, Long> {
     /**
      * Finds a User entity by their unique Telegram Chat ID.
      * * Required for the SosService and TripService to identify the user initiating the trip.
+     * * Served from the second-level query cache when possible.
      *
      * @param telegramChatId The unique Telegram chat identifier.
      * @return An Optional containing the User if found.
      */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = SecondLevelCacheConfig.USER_QUERIES)
+    })
     Optional<User> findByTelegramChatId(Long telegramChatId);
+
+    /**
+     * Finds a User with their emergency contacts loaded in the same query.
+     * * Used to prepare SOS dossiers without a second lazy load. Cached like
+     * findByTelegramChatId; the contacts then come from the collection cache.
+     *
+     * @param telegramChatId The unique Telegram chat identifier.
+     * @return An Optional containing the User if found.
+     */
+    @QueryHints({
+            @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+            @QueryHint(name = "org.hibernate.cacheRegion", value = SecondLevelCacheConfig.USER_QUERIES)
+    })
+    @Query("SELECT u FROM User u LEFT JOIN FETCH u.emergencyContacts WHERE u.telegramChatId = :telegramChatId")
+    Optional<User> findWithContactsByTelegramChatId(@Param("telegramChatId") Long telegramChatId);
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+package com.safewalk.springboot.backend.routing;
+
+import com.safewalk.springboot.backend.geo.GeoUtils;
+
+import java.util.Arrays;
+
+/**
+ * A* shortest path over a {@link RoadGraph} with an optional per-edge penalty factor.
+ *
+ * Working arrays are sized to the graph once and reused; a search stamp marks which
+ * entries belong to the current query, so nothing is cleared between queries. Penalties
+ * live in a primitive array indexed by edge; only the edges touched are reset by
+ * {@link #clearPenalties}. Instances are not thread-safe; LocalRoutingEngine lends them
+ * out from a bounded pool.
+ */
+final class AStarSearch {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+    // Slightly under-estimate so the heuristic stays admissible against haversine edge lengths.
+    private static final double HEURISTIC_SCALE = 0.99;
+
+    private final RoadGraph graph;
+    private final int[] stamp;
+    private final double[] dist;
+    private final int[] prevEdge;
+    private final int[] prevNode;
+    private int current;
+
+    private final float[] penalty;
+    private int[] penalized = new int[256];
+    private int penalizedCount;
+
+    // Binary min-heap of (priority, node) with lazy deletion.
+    private double[] heapKey = new double[1024];
+    private int[] heapNode = new int[1024];
+    private int heapSize;
+
+    AStarSearch(RoadGraph graph) {
+        this.graph = graph;
+        int n = graph.nodeCount();
+        this.stamp = new int[n];
+        this.dist = new double[n];
+        this.prevEdge = new int[n];
+        this.prevNode = new int[n];
+        this.penalty = new float[graph.edgeCount()];
+        Arrays.fill(penalty, 1f);
+    }
+
+    /** Multiplies an edge's weight by {@code factor} for the following searches. */
+    void penalize(int edge, float factor) {
+        if (penalty[edge] == 1f) {
+            if (penalizedCount == penalized.length) penalized = Arrays.copyOf(penalized, penalizedCount * 2);
+            penalized[penalizedCount++] = edge;
+        }
+        penalty[edge] *= factor;
+    }
+
+    /** Resets every edge penalized since the last call. */
+    void clearPenalties() {
+        for (int i = 0; i < penalizedCount; i++) penalty[penalized[i]] = 1f;
+        penalizedCount = 0;
+    }
+
+    /**
+     * A path as node and edge indices, with its unpenalized length in meters.
+     */
+    record Path(int[] nodes, int[] edges, double lengthMeters) {}
+
+    /**
+     * Shortest path under the current penalties (see {@link #penalize}).
+     *
+     * @return The shortest path, or null if {@code to} is unreachable.
+     */
+    Path search(int from, int to) {
+        if (++current == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            current = 1;
+        }
+        heapSize = 0;
+        double tLat = graph.lat[to], tLng = graph.lng[to];
+        double cosLat = Math.cos(Math.toRadians(tLat));
+
+        visit(from, 0, -1, -1);
+        push(heuristic(from, tLat, tLng, cosLat), from);
+        while (heapSize > 0) {
+            double key = heapKey[0];
+            int node = pop();
+            if (node == to) break;
+            double g = dist[node];
+            if (key - heuristic(node, tLat, tLng, cosLat) > g + 1e-6) continue; // stale entry
+
+            for (int e = graph.offsets[node], end = graph.offsets[node + 1]; e < end; e++) {
+                int next = graph.targets[e];
+                double candidate = g + graph.lengths[e] * penalty[e];
+                if (stamp[next] != current || candidate < dist[next]) {
+                    visit(next, candidate, e, node);
+                    push(candidate + heuristic(next, tLat, tLng, cosLat), next);
+                }
+            }
+        }
+        if (stamp[to] != current) return null;
+
+        int count = 1;
+        for (int v = to; prevNode[v] >= 0; v = prevNode[v]) count++;
+        int[] nodes = new int[count];
+        int[] edges = new int[count - 1];
+        double length = 0;
+        int i = count - 1;
+        for (int v = to; ; v = prevNode[v]) {
+            nodes[i] = v;
+            if (prevNode[v] < 0) break;
+            edges[i - 1] = prevEdge[v];
+            length += graph.lengths[prevEdge[v]];
+            i--;
+        }
+        return new Path(nodes, edges, length);
+    }
+
+    private void visit(int node, double d, int edge, int from) {
+        stamp[node] = current;
+        dist[node] = d;
+        prevEdge[node] = edge;
+        prevNode[node] = from;
+    }
+
+    private double heuristic(int node, double tLat, double tLng, double cosLat) {
+        double dy = (graph.lat[node] - tLat) * METERS_PER_DEGREE;
+        double dx = (graph.lng[node] - tLng) * METERS_PER_DEGREE * cosLat;
+        return Math.sqrt(dx * dx + dy * dy) * HEURISTIC_SCALE;
+    }
+
+    private void push(double key, int node) {
+        if (heapSize == heapKey.length) {
+            heapKey = Arrays.copyOf(heapKey, heapSize * 2);
+            heapNode = Arrays.copyOf(heapNode, heapSize * 2);
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapKey[parent] <= key) break;
+            heapKey[i] = heapKey[parent];
+            heapNode[i] = heapNode[parent];
+            i = parent;
+        }
+        heapKey[i] = key;
+        heapNode[i] = node;
+    }
+
+    private int pop() {
+        int top = heapNode[0];
+        double key = heapKey[--heapSize];
+        int node = heapNode[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) break;
+            if (child + 1 < heapSize && heapKey[child + 1] < heapKey[child]) child++;
+            if (heapKey[child] >= key) break;
+            heapKey[i] = heapKey[child];
+            heapNode[i] = heapNode[child];
+            i = child;
+        }
+        heapKey[i] = key;
+        heapNode[i] = node;
+        return top;
+    }
+}
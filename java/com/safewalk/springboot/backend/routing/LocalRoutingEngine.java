@@ -0,0 +1,185 @@
+package com.safewalk.springboot.backend.routing;
+
+import com.safewalk.springboot.backend.geo.GeoUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Offline walking router over a local {@link RoadGraph}, used when TomTom is not
+ * configured or not reachable.
+ *
+ * Alternatives come from the penalty method: after each path is found, its edges are
+ * made more expensive and A* runs again. A candidate is kept only if it is not much
+ * longer than the best path and does not mostly overlap a path already kept.
+ * Results use the same map contract as TomTomRoutingService.getRoutes.
+ *
+ * Each search holds arrays sized to the graph, so at most {@code safewalk.routing.searches}
+ * of them exist; they are created on demand and shared through a pool. A query that
+ * cannot get one within {@code safewalk.routing.wait-ms} is answered as unavailable.
+ * The graph file is built with {@link RoadGraphConverter}.
+ */
+@Component
+public class LocalRoutingEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalRoutingEngine.class);
+
+    private static final double WALKING_SPEED_MPS = 1.3;
+    private static final double SNAP_RADIUS_METERS = 500;
+    private static final float PENALTY = 1.4f;
+    private static final double MAX_STRETCH = 1.5;
+    private static final double MAX_OVERLAP = 0.75;
+
+    private final String graphFile;
+    private final int maxSearches;
+    private final long waitMs;
+    private final Timer queryTimer;
+    private volatile RoadGraph graph;
+    private final BlockingQueue<AStarSearch> idle;
+    private final AtomicInteger created = new AtomicInteger();
+
+    public LocalRoutingEngine(@Value("${safewalk.routing.graph-file:}") String graphFile,
+                              @Value("${safewalk.routing.searches:4}") int maxSearches,
+                              @Value("${safewalk.routing.wait-ms:2000}") long waitMs,
+                              MeterRegistry meterRegistry) {
+        this.graphFile = graphFile == null ? "" : graphFile.trim();
+        this.maxSearches = Math.max(1, maxSearches);
+        this.waitMs = waitMs;
+        this.idle = new ArrayBlockingQueue<>(this.maxSearches);
+        this.queryTimer = Timer.builder("safewalk.routing.local.latency")
+                .description("Local routing query latency including alternatives")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void load() {
+        if (graphFile.isEmpty()) return;
+        Path path = Paths.get(graphFile);
+        if (!Files.isRegularFile(path)) {
+            logger.warn("Road graph file {} not found; local routing disabled", path);
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            RoadGraph loaded = RoadGraph.load(path);
+            this.graph = loaded;
+            logger.info("Loaded road graph {}: {} nodes, {} edges in {} ms", path,
+                    loaded.nodeCount(), loaded.edgeCount(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception ex) {
+            logger.warn("Failed to load road graph {}: {}", path, ex.getMessage());
+        }
+    }
+
+    public boolean isAvailable() {
+        return graph != null;
+    }
+
+    /**
+     * Routes between two "lat,lng" points.
+     *
+     * @return Up to {@code alternatives} routes (at least one if reachable), or null when
+     *         the engine is unavailable or the points cannot be routed.
+     */
+    public List<Map<String, Object>> getRoutes(String source, String destination, int alternatives) {
+        RoadGraph g = graph;
+        if (g == null) return null;
+        double[] from = GeoUtils.parseLatLng(source);
+        double[] to = GeoUtils.parseLatLng(destination);
+        if (from == null || to == null) return null;
+
+        return queryTimer.record(() -> {
+            int a = g.nearestNode(from[0], from[1], SNAP_RADIUS_METERS);
+            int b = g.nearestNode(to[0], to[1], SNAP_RADIUS_METERS);
+            if (a < 0 || b < 0) return null;
+
+            AStarSearch search = borrow(g);
+            if (search == null) {
+                logger.warn("All {} local route searches busy; no local route", maxSearches);
+                return null;
+            }
+            List<AStarSearch.Path> paths;
+            try {
+                paths = alternatives(search, a, b, Math.max(1, alternatives));
+            } finally {
+                search.clearPenalties();
+                idle.offer(search);
+            }
+            if (paths.isEmpty()) return null;
+
+            List<Map<String, Object>> out = new ArrayList<>(paths.size());
+            int id = 1;
+            for (AStarSearch.Path p : paths) {
+                double[] points = new double[p.nodes().length * 2];
+                for (int i = 0; i < p.nodes().length; i++) {
+                    points[2 * i] = g.lat[p.nodes()[i]];
+                    points[2 * i + 1] = g.lng[p.nodes()[i]];
+                }
+                out.add(Map.of("id", id++, "distanceMeters", p.lengthMeters(),
+                        "durationSec", p.lengthMeters() / WALKING_SPEED_MPS, "polyline", "", "points", points));
+            }
+            return out;
+        });
+    }
+
+    /** An idle search, a new one while under the cap, or null after waiting {@code waitMs}. */
+    private AStarSearch borrow(RoadGraph g) {
+        AStarSearch search = idle.poll();
+        if (search != null) return search;
+        if (created.incrementAndGet() <= maxSearches) return new AStarSearch(g);
+        created.decrementAndGet();
+        try {
+            return idle.poll(waitMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private List<AStarSearch.Path> alternatives(AStarSearch search, int from, int to, int k) {
+        List<AStarSearch.Path> kept = new ArrayList<>(k);
+        AStarSearch.Path best = search.search(from, to);
+        if (best == null) return kept;
+        kept.add(best);
+
+        for (int attempt = 0; attempt < 3 * k && kept.size() < k; attempt++) {
+            for (AStarSearch.Path p : kept) {
+                for (int e : p.edges()) search.penalize(e, PENALTY);
+            }
+            AStarSearch.Path candidate = search.search(from, to);
+            if (candidate == null) break;
+            if (candidate.lengthMeters() > MAX_STRETCH * best.lengthMeters()) break;
+            if (distinct(candidate, kept)) kept.add(candidate);
+        }
+        return kept;
+    }
+
+    private boolean distinct(AStarSearch.Path candidate, List<AStarSearch.Path> kept) {
+        RoadGraph g = graph;
+        for (AStarSearch.Path p : kept) {
+            int[] edges = p.edges().clone();
+            Arrays.sort(edges);
+            double shared = 0;
+            for (int e : candidate.edges()) {
+                if (Arrays.binarySearch(edges, e) >= 0) shared += g.lengths[e];
+            }
+            if (shared > MAX_OVERLAP * candidate.lengthMeters()) return false;
+        }
+        return true;
+    }
+}
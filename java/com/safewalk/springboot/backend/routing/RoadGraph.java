@@ -0,0 +1,177 @@
+package com.safewalk.springboot.backend.routing;
+
+import com.safewalk.springboot.backend.geo.GeoUtils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Immutable walkable road graph in compressed sparse row form.
+ *
+ * Node i has coordinates (lat[i], lng[i]) and outgoing edges
+ * targets[offsets[i] .. offsets[i+1]) with lengths in meters in the same slots of
+ * {@code lengths}. A coarse grid over the nodes answers nearest-node lookups; its cells
+ * start at ~200 m and grow for large extents so the grid never exceeds
+ * {@value #MAX_CELLS} cells.
+ *
+ * File format (big-endian, produced offline from an OSM extract):
+ * magic "SWRG" (int), version 1 (int), node count N (int), edge count E (int),
+ * N x (lat int, lng int) in 1e-6 degrees, N+1 x offset (int), E x target (int),
+ * E x length in decimeters (int). Two-way streets appear as two directed edges.
+ * {@link RoadGraphConverter} writes it from a CSV of road segments.
+ */
+public final class RoadGraph {
+
+    private static final int MAGIC = 0x53575247; // "SWRG"
+    private static final int FORMAT_VERSION = 1;
+    private static final double MIN_CELL_DEGREES = 0.002; // ~200 m
+    static final int MAX_CELLS = 1 << 22;
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+
+    final double[] lat;
+    final double[] lng;
+    final int[] offsets;
+    final int[] targets;
+    final float[] lengths;
+
+    private final double minLat;
+    private final double minLng;
+    private final double cellDegrees;
+    private final int rows;
+    private final int cols;
+    private final int[] cellStart;
+    private final int[] cellNodes;
+
+    RoadGraph(double[] lat, double[] lng, int[] offsets, int[] targets, float[] lengths) {
+        this.lat = lat;
+        this.lng = lng;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.lengths = lengths;
+
+        int n = lat.length;
+        double minLa = 90, maxLa = -90, minLn = 180, maxLn = -180;
+        for (int i = 0; i < n; i++) {
+            minLa = Math.min(minLa, lat[i]);
+            maxLa = Math.max(maxLa, lat[i]);
+            minLn = Math.min(minLn, lng[i]);
+            maxLn = Math.max(maxLn, lng[i]);
+        }
+        if (n == 0) minLa = maxLa = minLn = maxLn = 0;
+        this.minLat = minLa;
+        this.minLng = minLn;
+        double cell = MIN_CELL_DEGREES;
+        while (((long) ((maxLa - minLa) / cell) + 1) * ((long) ((maxLn - minLn) / cell) + 1) > MAX_CELLS) {
+            cell *= 2;
+        }
+        this.cellDegrees = cell;
+        this.rows = (int) ((maxLa - minLa) / cell) + 1;
+        this.cols = (int) ((maxLn - minLn) / cell) + 1;
+
+        // Counting sort of nodes by cell.
+        int[] cellOf = new int[n];
+        this.cellStart = new int[rows * cols + 1];
+        for (int i = 0; i < n; i++) {
+            cellOf[i] = row(lat[i]) * cols + col(lng[i]);
+            cellStart[cellOf[i] + 1]++;
+        }
+        for (int i = 1; i < cellStart.length; i++) cellStart[i] += cellStart[i - 1];
+        int[] next = Arrays.copyOf(cellStart, cellStart.length - 1);
+        this.cellNodes = new int[n];
+        for (int i = 0; i < n; i++) cellNodes[next[cellOf[i]]++] = i;
+    }
+
+    public static RoadGraph load(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a road graph file: " + file);
+            }
+            int n = in.readInt();
+            int e = in.readInt();
+            double[] lat = new double[n];
+            double[] lng = new double[n];
+            for (int i = 0; i < n; i++) {
+                lat[i] = in.readInt() / 1e6;
+                lng[i] = in.readInt() / 1e6;
+            }
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i <= n; i++) offsets[i] = in.readInt();
+            int[] targets = new int[e];
+            for (int i = 0; i < e; i++) targets[i] = in.readInt();
+            float[] lengths = new float[e];
+            for (int i = 0; i < e; i++) lengths[i] = in.readInt() / 10f;
+            return new RoadGraph(lat, lng, offsets, targets, lengths);
+        }
+    }
+
+    /** Writes the graph in the format read by {@link #load}. */
+    public void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(nodeCount());
+            out.writeInt(edgeCount());
+            for (int i = 0; i < nodeCount(); i++) {
+                out.writeInt((int) Math.round(lat[i] * 1e6));
+                out.writeInt((int) Math.round(lng[i] * 1e6));
+            }
+            for (int offset : offsets) out.writeInt(offset);
+            for (int target : targets) out.writeInt(target);
+            for (float length : lengths) out.writeInt(Math.round(length * 10));
+        }
+    }
+
+    public int nodeCount() {
+        return lat.length;
+    }
+
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    /**
+     * Nearest node within {@code maxMeters}, or -1.
+     */
+    public int nearestNode(double qLat, double qLng, double maxMeters) {
+        // A degree of longitude shrinks with cos(lat), so more columns are needed to cover maxMeters.
+        double cellMeters = cellDegrees * METERS_PER_DEGREE;
+        int rowReach = (int) Math.ceil(maxMeters / cellMeters) + 1;
+        int colReach = (int) Math.min(cols, Math.ceil(maxMeters
+                / (cellMeters * Math.max(0.01, Math.cos(Math.toRadians(qLat))))) + 1);
+        int r = row(qLat), c = col(qLng);
+        int best = -1;
+        double bestDist = maxMeters;
+        for (int dr = -rowReach; dr <= rowReach; dr++) {
+            int rr = r + dr;
+            if (rr < 0 || rr >= rows) continue;
+            for (int dc = -colReach; dc <= colReach; dc++) {
+                int cc = c + dc;
+                if (cc < 0 || cc >= cols) continue;
+                int cell = rr * cols + cc;
+                for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                    int node = cellNodes[k];
+                    double d = GeoUtils.haversineMeters(qLat, qLng, lat[node], lng[node]);
+                    if (d < bestDist) {
+                        bestDist = d;
+                        best = node;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private int row(double la) {
+        return Math.max(0, Math.min(rows - 1, (int) ((la - minLat) / cellDegrees)));
+    }
+
+    private int col(double ln) {
+        return Math.max(0, Math.min(cols - 1, (int) ((ln - minLng) / cellDegrees)));
+    }
+}
@@ -0,0 +1,117 @@
+package com.safewalk.springboot.backend.routing;
+
+import com.safewalk.springboot.backend.geo.GeoUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Builds the road graph file read by {@link RoadGraph#load} from a CSV of road segments.
+ *
+ * One line per straight segment: {@code from_lat,from_lng,to_lat,to_lng[,oneway]}, where
+ * {@code oneway} is {@code true}/{@code 1} for segments walkable in one direction only.
+ * Lines starting with '#' or a letter (a header) are skipped. Endpoints equal to 1e-6
+ * degrees are the same node. Such a CSV can be exported from the walkable ways of an OSM
+ * extract, e.g. with PostGIS {@code ST_DumpSegments} over an osm2pgsql import.
+ *
+ * Run from the application jar:
+ * {@code java -cp app.jar -Dloader.main=com.safewalk.springboot.backend.routing.RoadGraphConverter
+ * org.springframework.boot.loader.launch.PropertiesLauncher segments.csv graph.swrg}
+ * and point {@code safewalk.routing.graph-file} at the output.
+ */
+public final class RoadGraphConverter {
+
+    private RoadGraphConverter() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: RoadGraphConverter <segments.csv> <graph.swrg>");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        RoadGraph graph;
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(args[0]))) {
+            graph = convert(in);
+        }
+        Path out = Paths.get(args[1]);
+        graph.write(out);
+        System.out.printf("Wrote %s: %d nodes, %d edges in %d ms%n", out, graph.nodeCount(), graph.edgeCount(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /** Reads segments and returns the graph with edges grouped by source node. */
+    public static RoadGraph convert(BufferedReader in) throws IOException {
+        Map<Long, Integer> nodeIds = new HashMap<>();
+        double[] lat = new double[1024];
+        double[] lng = new double[1024];
+        int[] from = new int[1024];
+        int[] to = new int[1024];
+        float[] length = new float[1024];
+        int nodes = 0, edges = 0;
+
+        String line;
+        int lineNo = 0;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#' || Character.isLetter(line.charAt(0))) continue;
+            String[] f = line.split(",");
+            if (f.length < 4) throw new IOException("Line " + lineNo + ": expected from_lat,from_lng,to_lat,to_lng");
+            double lat1 = Double.parseDouble(f[0].trim()), lng1 = Double.parseDouble(f[1].trim());
+            double lat2 = Double.parseDouble(f[2].trim()), lng2 = Double.parseDouble(f[3].trim());
+            boolean oneway = f.length > 4 && (f[4].trim().equalsIgnoreCase("true") || f[4].trim().equals("1"));
+
+            int[] ends = new int[2];
+            for (int k = 0; k < 2; k++) {
+                double la = k == 0 ? lat1 : lat2, ln = k == 0 ? lng1 : lng2;
+                long key = Math.round(la * 1e6) * 400_000_000L + Math.round(ln * 1e6);
+                Integer id = nodeIds.get(key);
+                if (id == null) {
+                    if (nodes == lat.length) {
+                        lat = Arrays.copyOf(lat, nodes * 2);
+                        lng = Arrays.copyOf(lng, nodes * 2);
+                    }
+                    lat[nodes] = la;
+                    lng[nodes] = ln;
+                    id = nodes++;
+                    nodeIds.put(key, id);
+                }
+                ends[k] = id;
+            }
+            if (ends[0] == ends[1]) continue;
+
+            float meters = (float) GeoUtils.haversineMeters(lat1, lng1, lat2, lng2);
+            for (int dir = 0; dir < (oneway ? 1 : 2); dir++) {
+                if (edges == from.length) {
+                    from = Arrays.copyOf(from, edges * 2);
+                    to = Arrays.copyOf(to, edges * 2);
+                    length = Arrays.copyOf(length, edges * 2);
+                }
+                from[edges] = ends[dir];
+                to[edges] = ends[1 - dir];
+                length[edges] = meters;
+                edges++;
+            }
+        }
+
+        // Counting sort of edges by source node into CSR form.
+        int[] offsets = new int[nodes + 1];
+        for (int e = 0; e < edges; e++) offsets[from[e] + 1]++;
+        for (int i = 1; i <= nodes; i++) offsets[i] += offsets[i - 1];
+        int[] next = Arrays.copyOf(offsets, nodes);
+        int[] targets = new int[edges];
+        float[] lengths = new float[edges];
+        for (int e = 0; e < edges; e++) {
+            int slot = next[from[e]]++;
+            targets[slot] = to[e];
+            lengths[slot] = length[e];
+        }
+        return new RoadGraph(Arrays.copyOf(lat, nodes), Arrays.copyOf(lng, nodes), offsets, targets, lengths);
+    }
+}
@@ -0,0 +1,218 @@
+package com.safewalk.springboot.backend.scoring;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.safewalk.springboot.backend.geo.GeoHash;
+import com.safewalk.springboot.backend.service.IncidentSearchService;
+import com.safewalk.springboot.backend.service.TomTomService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Scores route alternatives on several factors concurrently under a per-request budget.
+ *
+ * Every (route, factor) pair runs as its own task. Whatever has not finished when the
+ * budget runs out is replaced by the last value computed for that route and factor, if
+ * any, and otherwise left out; the remaining factor weights are renormalized. Each
+ * result lists the factors that actually contributed.
+ *
+ * Factors, each 0-100:
+ * - safety_grid: precomputed safety tiles along the route (local, fast)
+ * - pois: help and activity POIs near sample points of the route
+ * - traffic: congestion along the route; busier streets score higher for walking
+ * - recent_incidents: SOS and deviation incidents near sample points in the last day
+ */
+@Component
+public class RouteScoringEngine {
+
+    private static final int POI_SAMPLES = 5;
+    private static final int POI_RADIUS_METERS = 200;
+    private static final List<String> POI_CATEGORIES = List.of("police", "hospital", "shop");
+    private static final int INCIDENT_RADIUS_METERS = 250;
+    private static final Duration INCIDENT_WINDOW = Duration.ofHours(24);
+
+    private final SafetyTileService safetyTileService;
+    private final TomTomService tomTomService;
+    private final IncidentSearchService incidentSearchService;
+    private final TaskExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final long budgetMillis;
+    private final List<Factor> factors;
+    private final Cache<String, Double> lastValues;
+
+    public RouteScoringEngine(SafetyTileService safetyTileService,
+                              TomTomService tomTomService,
+                              IncidentSearchService incidentSearchService,
+                              @Qualifier("scoringExecutor") TaskExecutor executor,
+                              @Value("${safewalk.scoring.budget-ms:300}") long budgetMillis,
+                              MeterRegistry meterRegistry) {
+        this.safetyTileService = safetyTileService;
+        this.tomTomService = tomTomService;
+        this.incidentSearchService = incidentSearchService;
+        this.executor = executor;
+        this.budgetMillis = budgetMillis;
+        this.meterRegistry = meterRegistry;
+        this.factors = List.of(
+                new Factor("safety_grid", 0.7, this.safetyTileService::scoreRoute),
+                new Factor("pois", 0.2, this::poiScore),
+                new Factor("traffic", 0.1, this::trafficScore),
+                new Factor("recent_incidents", 0.1, this::recentIncidentScore));
+        this.lastValues = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(30))
+                .build();
+    }
+
+    /**
+     * Result for one route.
+     *
+     * @param score   Weighted 0-100 score, or null if no factor was available.
+     * @param factors Names of the factors that contributed.
+     */
+    public record RouteScore(Double score, List<String> factors) {}
+
+    /**
+     * Scores each route (interleaved lat,lng pairs); returns results in the same order.
+     */
+    public List<RouteScore> score(List<double[]> routes) {
+        List<List<CompletableFuture<Double>>> pending = new ArrayList<>(routes.size());
+        List<CompletableFuture<Double>> all = new ArrayList<>();
+        for (double[] points : routes) {
+            List<CompletableFuture<Double>> perRoute = new ArrayList<>(factors.size());
+            for (Factor factor : factors) {
+                CompletableFuture<Double> f;
+                try {
+                    f = CompletableFuture
+                            .supplyAsync(() -> evaluate(factor, points), executor)
+                            .completeOnTimeout(null, budgetMillis, TimeUnit.MILLISECONDS)
+                            .exceptionally(ex -> null);
+                } catch (RejectedExecutionException ex) {
+                    // Pool saturated: treat like a timeout.
+                    f = CompletableFuture.completedFuture(null);
+                }
+                perRoute.add(f);
+                all.add(f);
+            }
+            pending.add(perRoute);
+        }
+        // Every future completes by the deadline (value, null on timeout or error).
+        CompletableFuture.allOf(all.toArray(new CompletableFuture[0])).join();
+
+        List<RouteScore> results = new ArrayList<>(routes.size());
+        for (int r = 0; r < routes.size(); r++) {
+            double weighted = 0, weights = 0;
+            List<String> used = new ArrayList<>(factors.size());
+            for (int i = 0; i < factors.size(); i++) {
+                Factor factor = factors.get(i);
+                Double value = pending.get(r).get(i).getNow(null);
+                if (value == null) {
+                    meterRegistry.counter("safewalk.scoring.factor.missed", "factor", factor.name).increment();
+                    value = lastValues.getIfPresent(cacheKey(factor, routes.get(r)));
+                    if (value == null) continue;
+                    used.add(factor.name + ":cached");
+                } else {
+                    used.add(factor.name);
+                }
+                weighted += factor.weight * value;
+                weights += factor.weight;
+            }
+            results.add(new RouteScore(weights == 0 ? null : weighted / weights, used));
+        }
+        return results;
+    }
+
+    private Double evaluate(Factor factor, double[] points) {
+        long start = System.nanoTime();
+        String outcome = "ok";
+        try {
+            double value = factor.evaluator.applyAsDouble(points);
+            if (Double.isNaN(value)) {
+                outcome = "unavailable";
+                return null;
+            }
+            // Kept even if it arrives after the deadline, for the next request on this route.
+            lastValues.put(cacheKey(factor, points), value);
+            return value;
+        } catch (RuntimeException ex) {
+            outcome = "error";
+            throw ex;
+        } finally {
+            Timer.builder("safewalk.scoring.factor.latency")
+                    .tag("factor", factor.name)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private double poiScore(double[] points) {
+        int n = points.length / 2;
+        if (n == 0) return Double.NaN;
+        int samples = Math.min(POI_SAMPLES, n);
+        int hits = 0;
+        for (int s = 0; s < samples; s++) {
+            int i = samples == 1 ? 0 : (int) ((long) s * (n - 1) / (samples - 1));
+            String latLng = points[2 * i] + "," + points[2 * i + 1];
+            for (String category : POI_CATEGORIES) {
+                hits += tomTomService.countPoisNear(latLng, category, POI_RADIUS_METERS);
+            }
+        }
+        // Two relevant POIs per sample point counts as fully covered.
+        return Math.min(100.0, 100.0 * hits / (2.0 * samples));
+    }
+
+    private double recentIncidentScore(double[] points) {
+        int n = points.length / 2;
+        if (n == 0) return Double.NaN;
+        int samples = Math.min(POI_SAMPLES, n);
+        // Sample circles overlap on short routes; an incident counts once however many it falls in.
+        Set<String> incidents = new HashSet<>();
+        for (int s = 0; s < samples && incidents.size() < 4; s++) {
+            int i = samples == 1 ? 0 : (int) ((long) s * (n - 1) / (samples - 1));
+            for (IncidentSearchService.Incident incident : incidentSearchService.findNear(points[2 * i],
+                    points[2 * i + 1], INCIDENT_RADIUS_METERS, INCIDENT_WINDOW)) {
+                incidents.add(incident.id());
+            }
+        }
+        // Each recent incident near the route costs a quarter of the score.
+        return Math.max(0.0, 100.0 - 25.0 * incidents.size());
+    }
+
+    private double trafficScore(double[] points) {
+        if (points.length < 2) return Double.NaN;
+        double sum = 0;
+        int known = 0;
+        for (Map<String, Object> tile : tomTomService.getTrafficAlong(points)) {
+            switch (String.valueOf(tile.get("congestion"))) {
+                case "HIGH", "MEDIUM" -> { sum += 80.0; known++; }
+                case "LOW" -> { sum += 60.0; known++; }
+                default -> { }
+            }
+        }
+        return known == 0 ? Double.NaN : sum / known;
+    }
+
+    private static String cacheKey(Factor factor, double[] points) {
+        int n = points.length / 2;
+        if (n == 0) return factor.name;
+        return factor.name + ':' + GeoHash.encode(points[0], points[1], 7)
+                + ':' + GeoHash.encode(points[2 * (n - 1)], points[2 * (n - 1) + 1], 7) + ':' + n;
+    }
+
+    private record Factor(String name, double weight, ToDoubleFunction<double[]> evaluator) {}
+}
@@ -20,4 +20,9 @@ public interface SafetyScoringService {
      * Implementations may expose precise logic used by deviation detection.
      */
     double calculateDistanceFromRoute(java.util.List<java.util.List<Double>> polyline, double lat, double lng);
+
+    /**
+     * Same as above for a decoded polyline of interleaved lat,lng pairs.
+     */
+    double calculateDistanceFromRoute(double[] points, double lat, double lng);
 }
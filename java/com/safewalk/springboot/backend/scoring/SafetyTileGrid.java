@@ -0,0 +1,188 @@
+package com.safewalk.springboot.backend.scoring;
+
+import com.safewalk.springboot.backend.geo.GeoHash;
+import com.safewalk.springboot.backend.geo.GeoUtils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable grid of precomputed safety values per geohash tile.
+ *
+ * Each tile keeps its per-factor inputs (time-decayed SOS incidents, nearby help such as
+ * police and hospitals, street lighting, open shops) and a combined 0-100 safety value.
+ * Tiles are stored in an open-addressing table over primitive arrays keyed by the packed
+ * geohash, so scoring a route is a handful of array probes per sample point.
+ * Tiles without any data get {@link #DEFAULT_SCORE}.
+ */
+public final class SafetyTileGrid {
+
+    public static final int PRECISION = 7;
+
+    private static final long EMPTY = -1L;
+    private static final double SAMPLE_METERS = 50;
+
+    // Factor weights of the combined tile value; they add up to 1.
+    private static final double INCIDENT_WEIGHT = 0.5;
+    private static final double HELP_WEIGHT = 0.2;
+    private static final double LIGHTING_WEIGHT = 0.2;
+    private static final double ACTIVITY_WEIGHT = 0.1;
+
+    public static final double DEFAULT_SCORE = combine(0, 0, 0, 0);
+
+    private final long[] keys;
+    private final float[] incidents;
+    private final short[] help;
+    private final short[] lighting;
+    private final short[] activity;
+    private final float[] scores;
+    private final int mask;
+    private final int size;
+
+    private SafetyTileGrid(Map<Long, float[]> tiles) {
+        int capacity = Integer.highestOneBit(Math.max(16, tiles.size() * 2 - 1)) << 1;
+        this.keys = new long[capacity];
+        this.incidents = new float[capacity];
+        this.help = new short[capacity];
+        this.lighting = new short[capacity];
+        this.activity = new short[capacity];
+        this.scores = new float[capacity];
+        this.mask = capacity - 1;
+        this.size = tiles.size();
+        Arrays.fill(keys, EMPTY);
+
+        for (Map.Entry<Long, float[]> e : tiles.entrySet()) {
+            long key = e.getKey();
+            float[] f = e.getValue();
+            int slot = slot(key);
+            while (keys[slot] != EMPTY) slot = (slot + 1) & mask;
+            keys[slot] = key;
+            incidents[slot] = f[0];
+            help[slot] = (short) Math.min(Short.MAX_VALUE, f[1]);
+            lighting[slot] = (short) Math.min(Short.MAX_VALUE, f[2]);
+            activity[slot] = (short) Math.min(Short.MAX_VALUE, f[3]);
+            scores[slot] = (float) combine(f[0], f[1], f[2], f[3]);
+        }
+    }
+
+    public static SafetyTileGrid empty() {
+        return new SafetyTileGrid(Map.of());
+    }
+
+    public int tileCount() {
+        return size;
+    }
+
+    /** Approximate retained size of the table in bytes. */
+    public long footprintBytes() {
+        return (long) keys.length * (8 + 4 + 2 + 2 + 2 + 4);
+    }
+
+    /**
+     * Combined 0-100 safety value of the tile containing the point.
+     */
+    public double scoreAt(double lat, double lng) {
+        int slot = find(GeoHash.encodeLong(lat, lng, PRECISION));
+        return slot < 0 ? DEFAULT_SCORE : scores[slot];
+    }
+
+    /**
+     * Decayed incident weight of the tile containing the point (0 if none).
+     */
+    public double incidentsAt(double lat, double lng) {
+        int slot = find(GeoHash.encodeLong(lat, lng, PRECISION));
+        return slot < 0 ? 0 : incidents[slot];
+    }
+
+    /**
+     * Scores a route as the distance-weighted mean tile value along it.
+     *
+     * @param points Interleaved lat,lng pairs.
+     * @return 0-100, or {@link #DEFAULT_SCORE} for routes with fewer than one point.
+     */
+    public double scoreRoute(double[] points) {
+        if (points == null || points.length < 2) return DEFAULT_SCORE;
+        if (points.length < 4) return scoreAt(points[0], points[1]);
+
+        double sum = 0;
+        int samples = 0;
+        long lastCell = EMPTY;
+        double lastScore = DEFAULT_SCORE;
+        for (int i = 0; i + 3 < points.length; i += 2) {
+            double aLat = points[i], aLng = points[i + 1], bLat = points[i + 2], bLng = points[i + 3];
+            int steps = Math.max(1, (int) Math.ceil(GeoUtils.haversineMeters(aLat, aLng, bLat, bLng) / SAMPLE_METERS));
+            for (int s = 0; s < steps; s++) {
+                double t = (double) s / steps;
+                long cell = GeoHash.encodeLong(aLat + t * (bLat - aLat), aLng + t * (bLng - aLng), PRECISION);
+                if (cell != lastCell) {
+                    int slot = find(cell);
+                    lastScore = slot < 0 ? DEFAULT_SCORE : scores[slot];
+                    lastCell = cell;
+                }
+                sum += lastScore;
+                samples++;
+            }
+        }
+        return sum / samples;
+    }
+
+    private int find(long key) {
+        int slot = slot(key);
+        while (true) {
+            long k = keys[slot];
+            if (k == key) return slot;
+            if (k == EMPTY) return -1;
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private static double combine(double incidents, double help, double lighting, double activity) {
+        double incidentSafety = Math.exp(-incidents / 2.0);
+        return 100.0 * (INCIDENT_WEIGHT * incidentSafety
+                + HELP_WEIGHT * Math.min(1.0, help / 2.0)
+                + LIGHTING_WEIGHT * Math.min(1.0, lighting / 3.0)
+                + ACTIVITY_WEIGHT * Math.min(1.0, activity / 3.0));
+    }
+
+    /**
+     * Accumulates factor inputs per tile.
+     */
+    public static final class Builder {
+
+        private final Map<Long, float[]> tiles = new HashMap<>();
+
+        public Builder addIncident(double lat, double lng, double weight) {
+            tile(lat, lng)[0] += (float) weight;
+            return this;
+        }
+
+        public Builder addHelp(double lat, double lng) {
+            tile(lat, lng)[1]++;
+            return this;
+        }
+
+        public Builder addLighting(double lat, double lng) {
+            tile(lat, lng)[2]++;
+            return this;
+        }
+
+        public Builder addActivity(double lat, double lng) {
+            tile(lat, lng)[3]++;
+            return this;
+        }
+
+        private float[] tile(double lat, double lng) {
+            return tiles.computeIfAbsent(GeoHash.encodeLong(lat, lng, PRECISION), k -> new float[4]);
+        }
+
+        public SafetyTileGrid build() {
+            return new SafetyTileGrid(tiles);
+        }
+    }
+}
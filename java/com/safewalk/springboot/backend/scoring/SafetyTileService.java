@@ -0,0 +1,130 @@
+package com.safewalk.springboot.backend.scoring;
+
+import com.safewalk.springboot.backend.geo.PoiIndex;
+import com.safewalk.springboot.backend.geo.PoiIndexService;
+import com.safewalk.springboot.backend.repository.SosEventRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Builds and holds the current {@link SafetyTileGrid}.
+ *
+ * The grid is rebuilt periodically from recent SOS history (each event's weight halves
+ * every half-life) and from the local POI index, then swapped in atomically. Route
+ * scoring only reads the current grid and never touches the database.
+ */
+@Component
+public class SafetyTileService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SafetyTileService.class);
+
+    private static final Set<String> HELP_CATEGORIES = Set.of("police", "police_station", "hospital", "clinic", "fire_station");
+    private static final Set<String> LIGHTING_CATEGORIES = Set.of("lit_street", "street_light", "streetlight");
+    private static final Set<String> ACTIVITY_CATEGORIES = Set.of("shop", "open_shop", "pharmacy", "restaurant", "cafe");
+
+    private final SosEventRepository sosEventRepository;
+    private final PoiIndexService poiIndexService;
+    private final Duration history;
+    private final Duration halfLife;
+    private final AtomicReference<SafetyTileGrid> current = new AtomicReference<>(SafetyTileGrid.empty());
+    private final Timer buildTimer;
+    private final Timer scoreTimer;
+
+    public SafetyTileService(SosEventRepository sosEventRepository,
+                             PoiIndexService poiIndexService,
+                             @Value("${safewalk.safety-grid.history:P365D}") Duration history,
+                             @Value("${safewalk.safety-grid.incident-half-life:P90D}") Duration halfLife,
+                             MeterRegistry meterRegistry) {
+        this.sosEventRepository = sosEventRepository;
+        this.poiIndexService = poiIndexService;
+        this.history = history;
+        this.halfLife = halfLife;
+        this.buildTimer = Timer.builder("safewalk.safety.grid.build")
+                .description("Time to rebuild the safety tile grid")
+                .register(meterRegistry);
+        this.scoreTimer = Timer.builder("safewalk.safety.route.score")
+                .description("Time to score one route against the safety tile grid")
+                .register(meterRegistry);
+        Gauge.builder("safewalk.safety.grid.tiles", current, ref -> ref.get().tileCount()).register(meterRegistry);
+        Gauge.builder("safewalk.safety.grid.bytes", current, ref -> ref.get().footprintBytes())
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public SafetyTileGrid current() {
+        return current.get();
+    }
+
+    /**
+     * Scores a route (interleaved lat,lng pairs) against the current grid.
+     */
+    public double scoreRoute(double[] points) {
+        long start = System.nanoTime();
+        try {
+            return current.get().scoreRoute(points);
+        } finally {
+            scoreTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${safewalk.safety-grid.rebuild-ms:900000}",
+            initialDelayString = "${safewalk.safety-grid.rebuild-ms:900000}")
+    public void rebuild() {
+        long start = System.nanoTime();
+        try {
+            SafetyTileGrid grid = build();
+            current.set(grid);
+            long elapsed = System.nanoTime() - start;
+            buildTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            logger.info("Safety tile grid rebuilt: {} tiles, ~{} KB, {} ms",
+                    grid.tileCount(), grid.footprintBytes() / 1024, elapsed / 1_000_000);
+        } catch (Exception ex) {
+            // Keep scoring with the previous grid.
+            logger.warn("Safety tile grid rebuild failed: {}", ex.getMessage());
+        }
+    }
+
+    private SafetyTileGrid build() {
+        SafetyTileGrid.Builder builder = new SafetyTileGrid.Builder();
+
+        LocalDateTime now = LocalDateTime.now();
+        double halfLifeHours = Math.max(1, halfLife.toHours());
+        List<Object[]> events = sosEventRepository.findLocationsSince(now.minus(history));
+        for (Object[] row : events) {
+            if (row[0] == null || row[1] == null || row[2] == null) continue;
+            double ageHours = Duration.between((LocalDateTime) row[2], now).toHours();
+            double weight = Math.pow(0.5, Math.max(0, ageHours) / halfLifeHours);
+            builder.addIncident((Double) row[0], (Double) row[1], weight);
+        }
+
+        PoiIndex pois = poiIndexService.current();
+        if (pois != null) {
+            pois.forEach((category, lat, lng) -> {
+                if (HELP_CATEGORIES.contains(category)) builder.addHelp(lat, lng);
+                else if (LIGHTING_CATEGORIES.contains(category)) builder.addLighting(lat, lng);
+                else if (ACTIVITY_CATEGORIES.contains(category)) builder.addActivity(lat, lng);
+            });
+        }
+        return builder.build();
+    }
+}
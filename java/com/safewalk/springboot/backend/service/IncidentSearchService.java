@@ -0,0 +1,55 @@
+package com.safewalk.springboot.backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Geo and time search over safety incidents (SOS events and route deviations).
+ *
+ * Answers "incidents within R metres in the last T" for route scoring and dashboards.
+ * The implementation is chosen with {@code safewalk.incidents.store}:
+ * {@code elasticsearch} indexes into Elasticsearch, {@code memory} (the default) keeps a
+ * bounded window in process and is the local stand-in when no cluster is available.
+ */
+public interface IncidentSearchService {
+
+    enum IncidentType {
+        SOS,
+        DEVIATION
+    }
+
+    /**
+     * One indexed incident. The ID is stable, so indexing the same incident twice
+     * overwrites rather than duplicates.
+     */
+    record Incident(String id, IncidentType type, Long tripId, double lat, double lng, LocalDateTime occurredAt) {
+
+        public static Incident sos(Long sosEventId, Long tripId, double lat, double lng, LocalDateTime occurredAt) {
+            return new Incident("sos-" + sosEventId, IncidentType.SOS, tripId, lat, lng, occurredAt);
+        }
+
+        public static Incident deviation(Long tripId, double lat, double lng, LocalDateTime occurredAt) {
+            String id = "deviation-" + tripId + "-" + occurredAt.toString();
+            return new Incident(id, IncidentType.DEVIATION, tripId, lat, lng, occurredAt);
+        }
+    }
+
+    /**
+     * Queues an incident for indexing once the surrounding transaction (if any) commits,
+     * so a rolled-back SOS or deviation is never searchable. Does not block on the store;
+     * called from the SOS and deviation write paths.
+     */
+    void index(Incident incident);
+
+    /**
+     * Incidents within {@code radiusMeters} of a point that occurred in the last
+     * {@code window}, newest first, capped at {@code safewalk.incidents.max-results}.
+     */
+    List<Incident> findNear(double lat, double lng, double radiusMeters, Duration window);
+
+    /**
+     * Number of incidents matching {@link #findNear}, without the result cap.
+     */
+    long countNear(double lat, double lng, double radiusMeters, Duration window);
+}
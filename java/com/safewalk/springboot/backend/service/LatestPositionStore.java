@@ -0,0 +1,154 @@
+package com.safewalk.springboot.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.safewalk.springboot.backend.entity.CoreLocationUpdate;
+import com.safewalk.springboot.backend.entity.Trip;
+import com.safewalk.springboot.backend.entity.TripStatus;
+import com.safewalk.springboot.backend.geo.GeoUtils;
+import com.safewalk.springboot.backend.repository.TripLocationRepository;
+import com.safewalk.springboot.backend.repository.TripRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Latest accepted position of every monitored trip, kept in memory.
+ *
+ * Updated on every accepted location update and dropped when the trip ends, so SOS,
+ * dashboards and {@code Trip.latestLocation} (filled on load by TripLatestLocationListener)
+ * read it with one map lookup instead of a top-1 query over the location history.
+ * Out-of-order updates never move the position backwards. The store is warmed from the
+ * database at startup for trips that are still being monitored.
+ *
+ * Changes made inside a transaction are applied only after it commits, so a rolled-back
+ * update never shows up here. A removed trip is remembered for
+ * {@code safewalk.positions.ttl}; a late update for it is ignored instead of re-adding a
+ * finished trip. Positions that are not refreshed within the TTL expire as well.
+ */
+@Service
+public class LatestPositionStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatestPositionStore.class);
+
+    public static final Set<TripStatus> MONITORED = EnumSet.of(
+            TripStatus.ACTIVE, TripStatus.DEVIATION_ALERT, TripStatus.SOS_PENDING, TripStatus.SOS_TRIGGERED);
+
+    private final TripRepository tripRepository;
+    private final TripLocationRepository tripLocationRepository;
+    private final Map<Long, LatestPosition> positions;
+    private final Cache<Long, Boolean> finished;
+
+    public LatestPositionStore(TripRepository tripRepository,
+                               TripLocationRepository tripLocationRepository,
+                               @Value("${safewalk.positions.ttl:PT12H}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        this.tripRepository = tripRepository;
+        this.tripLocationRepository = tripLocationRepository;
+        Cache<Long, LatestPosition> cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .build();
+        this.positions = cache.asMap();
+        this.finished = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .build();
+        Gauge.builder("safewalk.trips.tracked", positions, Map::size)
+                .description("Trips with a known latest position")
+                .register(meterRegistry);
+    }
+
+    /**
+     * A trip's last known position.
+     *
+     * @param timestamp  Device time of the update (may be null).
+     * @param recordedAt When the core backend accepted it.
+     */
+    public record LatestPosition(long tripId, double lat, double lng,
+                                 LocalDateTime timestamp, LocalDateTime recordedAt) {
+
+        /** Detached view in the shape of Trip.latestLocation; it has no ID and no trip. */
+        public CoreLocationUpdate toUpdate() {
+            CoreLocationUpdate update = new CoreLocationUpdate(lat, lng, timestamp);
+            update.setRecordedAt(recordedAt);
+            return update;
+        }
+    }
+
+    /** Records a position once the surrounding transaction (if any) commits. */
+    public void update(Long tripId, CoreLocationUpdate update) {
+        if (tripId == null || update.getLatitude() == null || update.getLongitude() == null) return;
+        LatestPosition next = new LatestPosition(tripId, update.getLatitude(), update.getLongitude(),
+                update.getTimestamp(), update.getRecordedAt());
+        AfterCommit.run(() -> apply(next));
+    }
+
+    public LatestPosition get(Long tripId) {
+        return tripId == null ? null : positions.get(tripId);
+    }
+
+    /** Drops a finished trip once the surrounding transaction (if any) commits. */
+    public void remove(Long tripId) {
+        if (tripId == null) return;
+        AfterCommit.run(() -> {
+            finished.put(tripId, Boolean.TRUE);
+            positions.remove(tripId);
+        });
+    }
+
+    /**
+     * Monitored trips whose latest position is within {@code radiusMeters} of a point.
+     * Linear in the number of tracked trips, which is the set of trips currently on the move.
+     */
+    public List<LatestPosition> findNear(double lat, double lng, double radiusMeters) {
+        List<LatestPosition> near = new ArrayList<>();
+        for (LatestPosition p : positions.values()) {
+            if (GeoUtils.haversineMeters(lat, lng, p.lat(), p.lng()) <= radiusMeters) near.add(p);
+        }
+        return near;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        int loaded = 0;
+        for (TripStatus status : MONITORED) {
+            for (Trip trip : tripRepository.findAllByStatus(status)) {
+                Optional<CoreLocationUpdate> latest = trip.getStartedAt() != null
+                        ? tripLocationRepository.findTopByTripAndRecordedAtGreaterThanEqualOrderByRecordedAtDesc(trip, trip.getStartedAt())
+                        : tripLocationRepository.findTopByTripOrderByRecordedAtDesc(trip);
+                if (latest.isPresent()) {
+                    update(trip.getId(), latest.get());
+                    loaded++;
+                }
+            }
+        }
+        if (loaded > 0) logger.info("Loaded latest positions for {} monitored trips", loaded);
+    }
+
+    private void apply(LatestPosition next) {
+        if (finished.getIfPresent(next.tripId()) != null) return;
+        positions.merge(next.tripId(), next, (current, candidate) -> isNewer(candidate, current) ? candidate : current);
+        // A remove that committed between the check and the merge wins.
+        if (finished.getIfPresent(next.tripId()) != null) positions.remove(next.tripId());
+    }
+
+    private static boolean isNewer(LatestPosition candidate, LatestPosition current) {
+        if (candidate.recordedAt() == null || current.recordedAt() == null) return true;
+        return !candidate.recordedAt().isBefore(current.recordedAt());
+    }
+}
@@ -0,0 +1,80 @@
+package com.safewalk.springboot.backend.service;
+
+import com.safewalk.springboot.backend.dto.LocationDto;
+import com.safewalk.springboot.backend.entity.Trip;
+import com.safewalk.springboot.backend.geo.PolylineCodec;
+import com.safewalk.springboot.backend.geo.RouteSimplifier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Prepares the selected route of a trip for monitoring when the trip starts.
+ *
+ * The polyline is simplified with a tolerance that is a fraction of the trip's deviation
+ * threshold, and both the simplified and the full geometry are stored. Deviation checks
+ * run against the simplified route and only fall back to the full one when the result is
+ * within the tolerance of the threshold, so decisions are the same as on the full route.
+ */
+@Service
+public class RoutePreparationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutePreparationService.class);
+
+    private final TripRouteService tripRouteService;
+    private final double toleranceFraction;
+    private final Counter verticesIn;
+    private final Counter verticesOut;
+    private final DistributionSummary reduction;
+
+    public RoutePreparationService(TripRouteService tripRouteService,
+                                   @Value("${safewalk.route.simplify-tolerance-fraction:0.2}") double toleranceFraction,
+                                   MeterRegistry meterRegistry) {
+        this.tripRouteService = tripRouteService;
+        this.toleranceFraction = Math.max(0, Math.min(1, toleranceFraction));
+        this.verticesIn = Counter.builder("safewalk.route.simplify.vertices").tag("stage", "input").register(meterRegistry);
+        this.verticesOut = Counter.builder("safewalk.route.simplify.vertices").tag("stage", "output").register(meterRegistry);
+        this.reduction = DistributionSummary.builder("safewalk.route.simplify.reduction")
+                .description("Fraction of route vertices removed by simplification")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Simplifies the given polyline and stores it as the trip's route; the tolerance is
+     * kept on the trip itself.
+     */
+    public void prepare(Trip trip, List<LocationDto> polyline) {
+        double[] points = toPoints(polyline);
+        double tolerance = trip.getDeviationThresholdMeters() * toleranceFraction;
+        double[] simplified = RouteSimplifier.simplify(points, tolerance);
+
+        tripRouteService.save(trip.getId(), PolylineCodec.encode(simplified),
+                simplified.length == points.length ? null : PolylineCodec.encode(points));
+        trip.setRouteToleranceMeters(simplified.length == points.length ? 0.0 : tolerance);
+
+        int in = points.length / 2, out = simplified.length / 2;
+        verticesIn.increment(in);
+        verticesOut.increment(out);
+        if (in > 0) reduction.record(1.0 - (double) out / in);
+        logger.debug("Trip ID {} route simplified from {} to {} vertices (tolerance {} m)", trip.getId(), in, out, tolerance);
+    }
+
+    private double[] toPoints(List<LocationDto> polyline) {
+        if (polyline == null) return new double[0];
+        double[] points = new double[polyline.size() * 2];
+        int n = 0;
+        for (LocationDto p : polyline) {
+            if (p == null || p.getLat() == null || p.getLng() == null) continue;
+            points[n++] = p.getLat();
+            points[n++] = p.getLng();
+        }
+        return n == points.length ? points : Arrays.copyOf(points, n);
+    }
+}
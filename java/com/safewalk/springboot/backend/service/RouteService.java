@@ -1,9 +1,9 @@
 package com.safewalk.springboot.backend.service;
 
+import com.safewalk.springboot.backend.dto.LocationDto;
 import com.safewalk.springboot.backend.dto.RouteOptionDto;
 import com.safewalk.springboot.backend.dto.TripCreationDto;
 import com.safewalk.springboot.backend.dto.TripRouteOptionsDto;
-import com.safewalk.springboot.backend.tomtomintegration.TomTomRoutingService;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -11,36 +11,38 @@ import java.util.List;
 import java.util.Map;
 
 /**
- * Minimal RouteService that uses TomTomRoutingService stub and SafetyScoringService.
+ * RouteService: fetches route options through the TomTom gateway and ranks them with SafetyScoringService.
  */
 @Service
 public class RouteService {
 
-    private final TomTomRoutingService tomTomRoutingService;
+    private final TomTomService tomTomService;
     private final SafetyScoringService safetyScoringService;
 
-    public RouteService() {
-        this.tomTomRoutingService = new TomTomRoutingService("", true);
-        this.safetyScoringService = routes -> {
-            for (RouteOptionDto r : routes) {
-                double d = r.getDistanceMeters() == null ? 1000.0 : r.getDistanceMeters();
-                r.setSafetyScore(Math.max(0.0, 1000.0 / d));
-            }
-            return routes;
-        };
+    public RouteService(TomTomService tomTomService,
+                        SafetyScoringService safetyScoringService) {
+        this.tomTomService = tomTomService;
+        this.safetyScoringService = safetyScoringService;
     }
 
     public TripRouteOptionsDto computeRoutes(TripCreationDto requestDto) {
-        String source = requestDto.getSource();
-        String destination = requestDto.getDestination();
+        String source = toQuery(requestDto.getSource());
+        String destination = toQuery(requestDto.getDestination());
 
-        List<Map<String,Object>> raw = tomTomRoutingService.getRoutes(source, destination, 3);
+        List<Map<String,Object>> raw = tomTomService.getRoutes(source, destination, 3);
         List<RouteOptionDto> options = new ArrayList<>();
         for (Map<String,Object> r : raw) {
             RouteOptionDto ro = new RouteOptionDto();
             ro.setId(((Number) r.getOrDefault("id", 1)).intValue());
-            ro.setDistanceMeters(((Number) r.getOrDefault("distanceMeters", 1000)).doubleValue());
-            ro.setPolyline((String) r.getOrDefault("polyline", ""));
+            ro.setDistance(((Number) r.getOrDefault("distanceMeters", 1000)).doubleValue());
+            ro.setDuration(((Number) r.getOrDefault("durationSec", 0)).longValue());
+            if (r.get("points") instanceof double[] points) {
+                List<LocationDto> polyline = new ArrayList<>(points.length / 2);
+                for (int i = 0; i + 1 < points.length; i += 2) {
+                    polyline.add(new LocationDto(points[i], points[i + 1]));
+                }
+                ro.setPolyline(polyline);
+            }
             options.add(ro);
         }
 
@@ -49,4 +51,14 @@ public class RouteService {
 
         return new TripRouteOptionsDto(null, options);
     }
+
+    /**
+     * TomTom routing takes "lat,lng"; fall back to the raw address when coordinates are missing.
+     */
+    private String toQuery(LocationDto location) {
+        if (location.getLat() != null && location.getLng() != null) {
+            return location.getLat() + "," + location.getLng();
+        }
+        return location.getRawAddress();
+    }
 }
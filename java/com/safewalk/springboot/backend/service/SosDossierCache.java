@@ -0,0 +1,139 @@
+package com.safewalk.springboot.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.safewalk.springboot.backend.entity.EmergencyContact;
+import com.safewalk.springboot.backend.entity.Trip;
+import com.safewalk.springboot.backend.entity.TripStatus;
+import com.safewalk.springboot.backend.entity.User;
+import com.safewalk.springboot.backend.repository.TripRepository;
+import com.safewalk.springboot.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Everything needed to raise an SOS for a trip, prepared when the trip becomes ACTIVE.
+ *
+ * A dossier holds the user's name and phone, the emergency contacts and the alert text
+ * with everything but the location and the user's message already filled in. With it,
+ * SosServiceImpl can notify contacts before touching the database. Dossiers are built
+ * with one query (user joined with contacts), dropped when the trip ends, and expire
+ * after {@code safewalk.sos.dossier-ttl} so contact changes are picked up eventually;
+ * call {@link #evictUser(Long)} to pick them up at once.
+ */
+@Service
+public class SosDossierCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(SosDossierCache.class);
+
+    private static final String NO_LOCATION = "No recent location available.";
+
+    private final UserRepository userRepository;
+    private final TripRepository tripRepository;
+    private final Cache<Long, SosDossier> dossiers;
+
+    public SosDossierCache(UserRepository userRepository,
+                           TripRepository tripRepository,
+                           @Value("${safewalk.sos.dossier-ttl:PT12H}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.tripRepository = tripRepository;
+        this.dossiers = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public record Contact(Long id, String name, String phone) {}
+
+    /**
+     * Prepared SOS data for one trip. {@code userFound} is false when the trip has no
+     * registered user; the dossier is still usable, with placeholders and no contacts.
+     */
+    public record SosDossier(long tripId, Long telegramChatId, boolean userFound, String userName,
+                             String userPhone, List<Contact> contacts, String alertHead, String alertTail) {
+
+        /** The contact alert for a location link and an optional user message. */
+        public String renderAlert(String locationLink, String userMessage) {
+            String location = locationLink != null ? locationLink : NO_LOCATION;
+            String message = (userMessage != null && !userMessage.isBlank()) ? "\nUser's message: " + userMessage : "";
+            return alertHead + location + "\n\nContact their phone immediately: " + userPhone + message + alertTail;
+        }
+    }
+
+    public SosDossier get(Long tripId) {
+        return tripId == null ? null : dossiers.getIfPresent(tripId);
+    }
+
+    /**
+     * Builds (or rebuilds) and caches the dossier for a trip. Runs one query.
+     */
+    public SosDossier prepare(Trip trip) {
+        return prepare(trip.getId(), trip.getTelegramChatId());
+    }
+
+    /**
+     * Same as {@link #prepare(Trip)} for callers holding only the trip's IDs.
+     */
+    public SosDossier prepare(Long tripId, Long telegramChatId) {
+        User user = telegramChatId == null ? null
+                : userRepository.findWithContactsByTelegramChatId(telegramChatId).orElse(null);
+        SosDossier dossier = build(tripId, telegramChatId, user);
+        dossiers.put(tripId, dossier);
+        return dossier;
+    }
+
+    public void evict(Long tripId) {
+        if (tripId != null) dossiers.invalidate(tripId);
+    }
+
+    /**
+     * Drops every dossier of a user, e.g. after their contacts changed.
+     */
+    public void evictUser(Long telegramChatId) {
+        dossiers.asMap().values().removeIf(d -> Objects.equals(d.telegramChatId(), telegramChatId));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        int prepared = 0;
+        for (TripStatus status : LatestPositionStore.MONITORED) {
+            for (Trip trip : tripRepository.findAllByStatus(status)) {
+                try {
+                    prepare(trip);
+                    prepared++;
+                } catch (Exception ex) {
+                    logger.warn("Could not prepare SOS dossier for Trip ID {}: {}", trip.getId(), ex.getMessage());
+                }
+            }
+        }
+        if (prepared > 0) logger.info("Prepared SOS dossiers for {} monitored trips", prepared);
+    }
+
+    private static SosDossier build(Long tripId, Long telegramChatId, User user) {
+        String userName = (user != null && user.getName() != null) ? user.getName() : "Unknown user";
+        String userPhone = (user != null && user.getPhone() != null) ? user.getPhone() : "unknown";
+        List<Contact> contacts = new ArrayList<>();
+        if (user != null && user.getEmergencyContacts() != null) {
+            for (EmergencyContact c : user.getEmergencyContacts()) {
+                contacts.add(new Contact(c.getId(), c.getName(), c.getPhone()));
+            }
+        }
+        String head = "🚨 EMERGENCY SOS ALERT 🚨\n\n"
+                + "Your contact, " + userName + ", has triggered an SOS alert!\n\n"
+                + "Last Known Location: ";
+        String tail = "\n\nPlease call local emergency services if you cannot reach them.";
+        return new SosDossier(tripId, telegramChatId, user != null, userName, userPhone,
+                List.copyOf(contacts), head, tail);
+    }
+}
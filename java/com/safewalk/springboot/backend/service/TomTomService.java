@@ -3,6 +3,30 @@ package com.safewalk.springboot.backend.service;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Single entry point for everything the core backend asks TomTom.
+ * Implemented by TomTomGateway.
+ */
 public interface TomTomService {
     List<Map<String, Object>> getRoutes(String source, String destination, int alternatives);
+
+    /**
+     * Geocode address -> "lat,lng", or null if not found or unavailable.
+     */
+    String geocode(String address);
+
+    /**
+     * Number of POIs of a category within the radius of a "lat,lng" point.
+     */
+    int countPoisNear(String latLng, String category, int radiusMeters);
+
+    /**
+     * Traffic at a "lat,lng" point: latLng, congestion (LOW/MEDIUM/HIGH/UNKNOWN), speedKmph.
+     */
+    Map<String, Object> getTraffic(String latLng);
+
+    /**
+     * Traffic for each map tile along a route (interleaved lat,lng pairs), in route order.
+     */
+    List<Map<String, Object>> getTrafficAlong(double[] points);
 }
@@ -0,0 +1,193 @@
+package com.safewalk.springboot.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.safewalk.springboot.backend.dto.TrackPointDto;
+import com.safewalk.springboot.backend.entity.SosEvent;
+import com.safewalk.springboot.backend.entity.Trip;
+import com.safewalk.springboot.backend.exception.BadRequestException;
+import com.safewalk.springboot.backend.geo.TrackDownsampler;
+import com.safewalk.springboot.backend.repository.SosEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shape-preserving downsampled trip history for map display.
+ *
+ * Callers ask for a target point count or a web-map zoom level (which is turned into a
+ * count from the track length). Points are chosen with LTTB (see {@link TrackDownsampler});
+ * the points closest in time to each SOS event and the points where the user left the
+ * route, came back, or was farthest off it are always kept and marked.
+ *
+ * Results are cached per (trip, target). The key also carries the trip status and, for
+ * trips still moving, the time of the latest position, so a new update or a status change
+ * naturally misses the old entry. A new SOS event does not always change either (a second
+ * SOS, or one without a fix), so recording one evicts the trip's entries via {@link #evict}.
+ */
+@Service
+public class TrackDownsamplingService {
+
+    public static final String MARKER_SOS = "sos";
+    public static final String MARKER_DEVIATION = "deviation";
+
+    private static final double PIXELS_PER_POINT = 3.0;
+
+    private final TripTrackService tripTrackService;
+    private final SosEventRepository sosEventRepository;
+    private final SafetyScoringService safetyScoringService;
+    private final LatestPositionStore latestPositionStore;
+    private final TripRouteService tripRouteService;
+    private final int maxPoints;
+    private final Cache<String, List<TrackPointDto>> results;
+    private final Counter hits;
+    private final Counter misses;
+
+    public TrackDownsamplingService(TripTrackService tripTrackService,
+                                    SosEventRepository sosEventRepository,
+                                    SafetyScoringService safetyScoringService,
+                                    LatestPositionStore latestPositionStore,
+                                    TripRouteService tripRouteService,
+                                    @Value("${safewalk.track.downsample.max-points:5000}") int maxPoints,
+                                    @Value("${safewalk.track.downsample.cache-ttl:PT10M}") Duration cacheTtl,
+                                    MeterRegistry meterRegistry) {
+        this.tripTrackService = tripTrackService;
+        this.sosEventRepository = sosEventRepository;
+        this.safetyScoringService = safetyScoringService;
+        this.latestPositionStore = latestPositionStore;
+        this.tripRouteService = tripRouteService;
+        this.maxPoints = maxPoints;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(2_000)
+                .expireAfterAccess(cacheTtl)
+                .build();
+        this.hits = Counter.builder("safewalk.track.downsample.cache").tag("result", "hit").register(meterRegistry);
+        this.misses = Counter.builder("safewalk.track.downsample.cache").tag("result", "miss").register(meterRegistry);
+    }
+
+    /**
+     * @param targetPoints Desired number of points; used when {@code zoom} is null.
+     * @param zoom         Web-map zoom level (0-22); takes precedence when given.
+     */
+    public List<TrackPointDto> downsample(Trip trip, Integer targetPoints, Integer zoom) {
+        if (targetPoints == null && zoom == null) {
+            throw new BadRequestException("Either points or zoom is required");
+        }
+        if (zoom != null && (zoom < 0 || zoom > 22)) {
+            throw new BadRequestException("zoom must be between 0 and 22");
+        }
+        LatestPositionStore.LatestPosition latest = latestPositionStore.get(trip.getId());
+        if (latest == null && LatestPositionStore.MONITORED.contains(trip.getStatus())) {
+            // Moving trip with no known position yet: nothing stable to key on.
+            return compute(trip, targetPoints, zoom);
+        }
+        String key = trip.getId() + ":" + (zoom != null ? "z" + zoom : "n" + targetPoints)
+                + ":" + trip.getStatus() + ":" + (latest != null ? latest.recordedAt() : "final");
+
+        List<TrackPointDto> cached = results.getIfPresent(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        List<TrackPointDto> computed = compute(trip, targetPoints, zoom);
+        results.put(key, computed);
+        return computed;
+    }
+
+    /**
+     * Drops every cached result for a trip, after the surrounding transaction commits (so a
+     * concurrent request cannot re-cache a result computed without the new data).
+     */
+    public void evict(Long tripId) {
+        String prefix = tripId + ":";
+        AfterCommit.run(() -> results.asMap().keySet().removeIf(k -> k.startsWith(prefix)));
+    }
+
+    private List<TrackPointDto> compute(Trip trip, Integer targetPoints, Integer zoom) {
+        List<TripTrackService.TrackPoint> track = new ArrayList<>();
+        tripTrackService.stream(trip, 0, track::add);
+        int n = track.size();
+        double[] points = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            points[2 * i] = track.get(i).lat();
+            points[2 * i + 1] = track.get(i).lng();
+        }
+
+        String[] markers = new String[n];
+        markDeviations(trip, points, markers);
+        markSos(trip, track, markers);
+        boolean[] required = new boolean[n];
+        for (int i = 0; i < n; i++) required[i] = markers[i] != null;
+
+        int target = zoom != null
+                ? TrackDownsampler.targetForZoom(points, zoom, PIXELS_PER_POINT)
+                : targetPoints;
+        target = Math.max(2, Math.min(target, maxPoints));
+
+        int[] keep = TrackDownsampler.select(points, target, required);
+        List<TrackPointDto> out = new ArrayList<>(keep.length);
+        for (int i : keep) {
+            TripTrackService.TrackPoint p = track.get(i);
+            out.add(new TrackPointDto(p.lat(), p.lng(), p.timestamp(), p.recordedAt(), markers[i]));
+        }
+        return List.copyOf(out);
+    }
+
+    /**
+     * Marks where the track leaves and rejoins the route, and the farthest point of each
+     * excursion, using the same threshold as live deviation detection.
+     */
+    private void markDeviations(Trip trip, double[] points, String[] markers) {
+        double[] route = tripRouteService.get(trip.getId()).fullOrSimplified();
+        if (route.length < 4) return;
+
+        double threshold = trip.getDeviationThresholdMeters();
+        int n = markers.length;
+        int farthest = -1;
+        double farthestDistance = 0;
+        for (int i = 0; i < n; i++) {
+            double d = safetyScoringService.calculateDistanceFromRoute(route, points[2 * i], points[2 * i + 1]);
+            if (d > threshold) {
+                if (farthest < 0) markers[i] = MARKER_DEVIATION; // left the route
+                if (d > farthestDistance) {
+                    farthest = i;
+                    farthestDistance = d;
+                }
+            } else if (farthest >= 0) {
+                markers[farthest] = MARKER_DEVIATION;
+                markers[i] = MARKER_DEVIATION; // back on the route
+                farthest = -1;
+                farthestDistance = 0;
+            }
+        }
+        if (farthest >= 0) markers[farthest] = MARKER_DEVIATION;
+    }
+
+    private void markSos(Trip trip, List<TripTrackService.TrackPoint> track, String[] markers) {
+        if (track.isEmpty()) return;
+        for (SosEvent event : sosEventRepository.findAllByTrip(trip)) {
+            LocalDateTime at = event.getCreatedAt();
+            if (at == null) continue;
+            int best = 0;
+            long bestGap = Long.MAX_VALUE;
+            for (int i = 0; i < track.size(); i++) {
+                LocalDateTime t = track.get(i).recordedAt();
+                if (t == null) continue;
+                long gap = Math.abs(ChronoUnit.MILLIS.between(t, at));
+                if (gap < bestGap) {
+                    bestGap = gap;
+                    best = i;
+                }
+            }
+            markers[best] = MARKER_SOS;
+        }
+    }
+}
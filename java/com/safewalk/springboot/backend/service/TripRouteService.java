@@ -0,0 +1,80 @@
+package com.safewalk.springboot.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.safewalk.springboot.backend.config.RoutePolylineMigration;
+import com.safewalk.springboot.backend.entity.TripRoute;
+import com.safewalk.springboot.backend.geo.PolylineCodec;
+import com.safewalk.springboot.backend.repository.TripRouteRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Reads and writes trip route geometry (the trip_routes table).
+ *
+ * A route does not change once the trip has started, so decoded points are cached per
+ * trip: deviation checks on every location update cost one map lookup instead of a
+ * query and a decode. A trip without a route is not cached, so a route stored (or
+ * migrated) later is seen on the next read. While RoutePolylineMigration is still
+ * running, a route not yet in trip_routes is read from the legacy trips columns.
+ */
+@Service
+public class TripRouteService {
+
+    private final TripRouteRepository tripRouteRepository;
+    private final RoutePolylineMigration routePolylineMigration;
+    private final Cache<Long, Geometry> geometries;
+
+    public TripRouteService(TripRouteRepository tripRouteRepository,
+                            RoutePolylineMigration routePolylineMigration) {
+        this.tripRouteRepository = tripRouteRepository;
+        this.routePolylineMigration = routePolylineMigration;
+        this.geometries = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterAccess(Duration.ofHours(2))
+                .build();
+    }
+
+    /**
+     * Decoded route of a trip.
+     *
+     * @param simplified Interleaved lat,lng pairs used for monitoring (empty if no route).
+     * @param full       Unsimplified points, or null when identical to {@code simplified}.
+     */
+    public record Geometry(double[] simplified, double[] full) {
+        static final Geometry NONE = new Geometry(new double[0], null);
+
+        public double[] fullOrSimplified() {
+            return full != null ? full : simplified;
+        }
+    }
+
+    /**
+     * Stores a trip's route, both already encoded with {@link PolylineCodec}.
+     */
+    public void save(Long tripId, byte[] polyline, byte[] polylineFull) {
+        tripRouteRepository.save(new TripRoute(tripId, polyline, polylineFull));
+        geometries.invalidate(tripId);
+    }
+
+    /**
+     * @return The trip's route; {@link Geometry#simplified()} is empty when it has none.
+     */
+    public Geometry get(Long tripId) {
+        Geometry cached = geometries.getIfPresent(tripId);
+        if (cached != null) return cached;
+        Optional<TripRoute> route = tripRouteRepository.findById(tripId);
+        if (route.isEmpty()) route = routePolylineMigration.readLegacy(tripId);
+        if (route.isEmpty()) return Geometry.NONE;
+        Geometry geometry = new Geometry(PolylineCodec.decode(route.get().getPolyline()),
+                route.get().getPolylineFull() == null ? null : PolylineCodec.decode(route.get().getPolylineFull()));
+        geometries.put(tripId, geometry);
+        return geometry;
+    }
+
+    public void evict(Long tripId) {
+        geometries.invalidate(tripId);
+    }
+}
@@ -0,0 +1,70 @@
+package com.safewalk.springboot.backend.service;
+
+import com.safewalk.springboot.backend.dto.LocationUpdateDto;
+import com.safewalk.springboot.backend.dto.RouteOptionDto;
+import com.safewalk.springboot.backend.dto.TrackPageDto;
+import com.safewalk.springboot.backend.dto.TrackPointDto;
+import com.safewalk.springboot.backend.dto.TripCreationDto;
+import com.safewalk.springboot.backend.dto.TripRouteOptionsDto;
+import com.safewalk.springboot.backend.entity.CoreLocationUpdate;
+import com.safewalk.springboot.backend.entity.Trip;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Service contract for the trip lifecycle used by TripController.
+ */
+public interface TripService {
+
+    /**
+     * Create a trip in PENDING status and return its scored route options.
+     */
+    TripRouteOptionsDto createTrip(TripCreationDto requestDto);
+
+    /**
+     * Start a pending trip on the selected route; the route is prepared for monitoring.
+     */
+    Trip startTrip(Long tripId, RouteOptionDto selectedRoute);
+
+    /**
+     * Store a location update for an active trip and run deviation detection on it.
+     */
+    CoreLocationUpdate recordLocationUpdate(Long tripId, LocationUpdateDto updateDto);
+
+    /**
+     * Mark a trip as COMPLETED.
+     */
+    Trip completeTrip(Long tripId);
+
+    /**
+     * One keyset page of a trip's recorded locations, live or archived.
+     *
+     * @param after Cursor from the previous page, or null for the first page.
+     */
+    TrackPageDto getLocationPage(Long tripId, String after, int limit);
+
+    /**
+     * Opens a trip's full location history for streaming. The trip is looked up now;
+     * points are read page by page only when the returned writer runs.
+     *
+     * @param minDistanceMeters Optional thinning for map display; 0 returns every point.
+     */
+    TrackWriter openLocationHistory(Long tripId, double minDistanceMeters);
+
+    /**
+     * A trip's history downsampled for map display, keeping SOS and deviation points.
+     *
+     * @param points Target number of points; ignored when {@code zoom} is given.
+     * @param zoom   Web-map zoom level the track will be drawn at.
+     */
+    List<TrackPointDto> getDownsampledHistory(Long tripId, Integer points, Integer zoom);
+
+    /**
+     * Writes a trip's history to a sink, one point at a time.
+     */
+    @FunctionalInterface
+    interface TrackWriter {
+        long writeTo(Consumer<TrackPointDto> sink);
+    }
+}
@@ -0,0 +1,117 @@
+package com.safewalk.springboot.backend.service;
+
+import com.safewalk.springboot.backend.entity.TripStatus;
+import com.safewalk.springboot.backend.repository.TripRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The only way a trip's status changes after it is created.
+ *
+ * Each transition is one compare-and-set statement,
+ * {@code UPDATE trips SET status = :to WHERE id = :id AND status IN (:legal sources)},
+ * so concurrent writers (location updates, SOS, cancellation) cannot overwrite each other
+ * and nothing is loaded first. The status column is not updatable through entity saves,
+ * so a stale Trip being saved elsewhere cannot revert it either.
+ *
+ * A transition that matches no row is a conflict: the trip does not exist or is no longer
+ * in a state the transition is legal from. Outcomes are counted in
+ * {@code safewalk.trip.transitions} (to, outcome=applied|conflict).
+ */
+@Service
+public class TripStateTransitionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripStateTransitionService.class);
+
+    private static final Map<TripStatus, Set<TripStatus>> LEGAL_SOURCES = new EnumMap<>(TripStatus.class);
+
+    static {
+        LEGAL_SOURCES.put(TripStatus.PENDING, EnumSet.of(TripStatus.CREATED));
+        LEGAL_SOURCES.put(TripStatus.ACTIVE,
+                EnumSet.of(TripStatus.CREATED, TripStatus.PENDING, TripStatus.DEVIATION_ALERT));
+        LEGAL_SOURCES.put(TripStatus.DEVIATION_ALERT, EnumSet.of(TripStatus.ACTIVE));
+        LEGAL_SOURCES.put(TripStatus.SOS_PENDING, EnumSet.of(TripStatus.DEVIATION_ALERT));
+        LEGAL_SOURCES.put(TripStatus.SOS_TRIGGERED,
+                EnumSet.of(TripStatus.ACTIVE, TripStatus.DEVIATION_ALERT, TripStatus.SOS_PENDING));
+        LEGAL_SOURCES.put(TripStatus.COMPLETED, EnumSet.of(TripStatus.ACTIVE, TripStatus.DEVIATION_ALERT,
+                TripStatus.SOS_PENDING, TripStatus.SOS_TRIGGERED));
+        LEGAL_SOURCES.put(TripStatus.CANCELLED, EnumSet.of(TripStatus.CREATED, TripStatus.PENDING, TripStatus.ACTIVE,
+                TripStatus.DEVIATION_ALERT, TripStatus.SOS_PENDING, TripStatus.SOS_TRIGGERED));
+    }
+
+    /** Sources for starting a trip; DEVIATION_ALERT -> ACTIVE is only a deviation clear. */
+    private static final Set<TripStatus> STARTABLE = EnumSet.of(TripStatus.CREATED, TripStatus.PENDING);
+
+    private final TripRepository tripRepository;
+    private final MeterRegistry meterRegistry;
+
+    public TripStateTransitionService(TripRepository tripRepository, MeterRegistry meterRegistry) {
+        this.tripRepository = tripRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * States a trip may move to {@code to} from; empty if {@code to} is never a target.
+     */
+    public static Set<TripStatus> legalSources(TripStatus to) {
+        return Collections.unmodifiableSet(LEGAL_SOURCES.getOrDefault(to, EnumSet.noneOf(TripStatus.class)));
+    }
+
+    /**
+     * Moves the trip to {@code to} if its current status allows it.
+     *
+     * Nothing past DEVIATION_ALERT returns to ACTIVE, so a deviation clear that races
+     * an SOS cannot reset the SOS.
+     *
+     * @return true if applied, false on conflict.
+     */
+    @Transactional
+    public boolean transition(Long tripId, TripStatus to) {
+        return record(tripId, to, tripRepository.compareAndSetStatus(tripId, legalSources(to), to));
+    }
+
+    /**
+     * Starts a CREATED or PENDING trip.
+     */
+    @Transactional
+    public boolean start(Long tripId) {
+        return record(tripId, TripStatus.ACTIVE,
+                tripRepository.compareAndSetStatus(tripId, STARTABLE, TripStatus.ACTIVE));
+    }
+
+    /**
+     * Completes the trip and stamps {@code completed_at} in the same statement.
+     */
+    @Transactional
+    public boolean complete(Long tripId) {
+        return record(tripId, TripStatus.COMPLETED,
+                tripRepository.compareAndSetCompleted(tripId, legalSources(TripStatus.COMPLETED), LocalDateTime.now()));
+    }
+
+    /**
+     * Cancels the trip and stores the reason in the same statement.
+     */
+    @Transactional
+    public boolean cancel(Long tripId, String reason) {
+        return record(tripId, TripStatus.CANCELLED,
+                tripRepository.compareAndSetCancelled(tripId, legalSources(TripStatus.CANCELLED), reason));
+    }
+
+    private boolean record(Long tripId, TripStatus to, int updated) {
+        boolean applied = updated > 0;
+        meterRegistry.counter("safewalk.trip.transitions", "to", to.name(), "outcome", applied ? "applied" : "conflict")
+                .increment();
+        if (!applied) logger.debug("Trip ID {} transition to {} rejected (status changed or not legal)", tripId, to);
+        return applied;
+    }
+}
@@ -0,0 +1,360 @@
+package com.safewalk.springboot.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.safewalk.springboot.backend.entity.CoreLocationUpdate;
+import com.safewalk.springboot.backend.entity.Trip;
+import com.safewalk.springboot.backend.entity.TripStatus;
+import com.safewalk.springboot.backend.entity.TripTrackArchive;
+import com.safewalk.springboot.backend.exception.BadRequestException;
+import com.safewalk.springboot.backend.geo.GeoUtils;
+import com.safewalk.springboot.backend.geo.TrackCodec;
+import com.safewalk.springboot.backend.repository.TripLocationRepository;
+import com.safewalk.springboot.backend.repository.TripRepository;
+import com.safewalk.springboot.backend.repository.TripTrackArchiveRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Recorded trip tracks, whether still in core_location_updates or archived.
+ *
+ * Some time after a trip is COMPLETED its location rows are moved into one
+ * {@link TripTrackArchive} blob (see {@link TrackCodec}) and deleted, which frees the
+ * table and both indexes. {@link #getTrack(Trip)}, {@link #page} and {@link #stream} read
+ * either form, so history callers do not need to know whether a trip was archived.
+ * Archived times keep millisecond precision. Live history is read with keyset
+ * pagination on (trip_id, recorded_at, id), never before the trip's start. Archives are
+ * immutable, so decoded ones are kept in a small cache (bounded by point count) and a
+ * page of an archived trip is a binary search plus a copy of the page, not a decode.
+ *
+ * Metrics: {@code safewalk.track.archive.bytes} (form=rows|archive) for storage before
+ * and after, {@code safewalk.track.read} (source=live|archive) for read latency.
+ */
+@Service
+public class TripTrackService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripTrackService.class);
+
+    // Rough PostgreSQL cost of one location row: 24 B tuple header + 64 B of columns,
+    // plus an entry in the primary key and the (trip_id, recorded_at) index.
+    static final long ESTIMATED_ROW_BYTES = 88 + 2 * 24;
+
+    private static final int STREAM_PAGE_SIZE = 1_000;
+
+    private final TripRepository tripRepository;
+    private final TripLocationRepository tripLocationRepository;
+    private final TripTrackArchiveRepository archiveRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration archiveAfter;
+    private final DistributionSummary rowBytes;
+    private final DistributionSummary archiveBytes;
+    private final Timer liveReads;
+    private final Timer archiveReads;
+    private final Cache<Long, TrackCodec.Track> decodedArchives;
+
+    public TripTrackService(TripRepository tripRepository,
+                            TripLocationRepository tripLocationRepository,
+                            TripTrackArchiveRepository archiveRepository,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${safewalk.track.archive-after:PT1H}") Duration archiveAfter,
+                            @Value("${safewalk.track.archive-cache-points:2000000}") long archiveCachePoints,
+                            MeterRegistry meterRegistry) {
+        this.tripRepository = tripRepository;
+        this.tripLocationRepository = tripLocationRepository;
+        this.archiveRepository = archiveRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.archiveAfter = archiveAfter;
+        this.rowBytes = DistributionSummary.builder("safewalk.track.archive.bytes").baseUnit("bytes")
+                .tag("form", "rows").register(meterRegistry);
+        this.archiveBytes = DistributionSummary.builder("safewalk.track.archive.bytes").baseUnit("bytes")
+                .tag("form", "archive").register(meterRegistry);
+        this.liveReads = Timer.builder("safewalk.track.read").tag("source", "live").register(meterRegistry);
+        this.archiveReads = Timer.builder("safewalk.track.read").tag("source", "archive").register(meterRegistry);
+        this.decodedArchives = Caffeine.newBuilder()
+                .maximumWeight(archiveCachePoints)
+                .weigher((Long tripId, TrackCodec.Track track) -> Math.max(1, track.size()))
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+    }
+
+    /**
+     * One point of a trip's history. For archived trips {@code id} is the point's index.
+     */
+    public record TrackPoint(long id, double lat, double lng, LocalDateTime timestamp, LocalDateTime recordedAt) {}
+
+    /**
+     * Keyset position in a trip's history: every point up to and including
+     * (recordedAt, id) has been returned.
+     */
+    public record Cursor(LocalDateTime recordedAt, long id) {
+
+        static final Cursor START = new Cursor(LocalDateTime.of(1970, 1, 1, 0, 0), -1);
+
+        public String encode() {
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((recordedAt + "|" + id).getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * @return The decoded cursor, or {@link #START} for null or blank input.
+         * @throws BadRequestException if the cursor is malformed.
+         */
+        public static Cursor decode(String value) {
+            if (value == null || value.isBlank()) return START;
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+                int sep = raw.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+            } catch (RuntimeException ex) {
+                throw new BadRequestException("Invalid history cursor");
+            }
+        }
+    }
+
+    /**
+     * All location updates of a trip in recording order. Updates read from the archive
+     * are detached and have no ID.
+     */
+    public List<CoreLocationUpdate> getTrack(Trip trip) {
+        TrackCodec.Track archived = loadArchive(trip);
+        if (archived != null) return toUpdates(trip, archived);
+        return liveReads.record(() -> trip.getStartedAt() != null
+                ? tripLocationRepository.findAllByTripAndRecordedAtGreaterThanEqualOrderByRecordedAtAsc(trip, trip.getStartedAt())
+                : tripLocationRepository.findAllByTripOrderByRecordedAtAsc(trip));
+    }
+
+    /**
+     * Up to {@code limit} points after the cursor, in (recordedAt, id) order.
+     */
+    public List<TrackPoint> page(Trip trip, Cursor after, int limit) {
+        TrackCodec.Track archived = loadArchive(trip);
+        if (archived == null) {
+            if (trip.getStartedAt() != null && after.recordedAt().isBefore(trip.getStartedAt())) {
+                after = new Cursor(trip.getStartedAt(), -1);
+            }
+            return livePage(trip, after, limit);
+        }
+        int i = firstAfter(archived, after);
+        List<TrackPoint> points = new ArrayList<>(Math.max(0, Math.min(limit, archived.size() - i)));
+        for (; i < archived.size() && points.size() < limit; i++) points.add(archivedPoint(archived, i));
+        return points;
+    }
+
+    /** Index of the first archived point after the cursor; points are in (recordedAt, index) order. */
+    private static int firstAfter(TrackCodec.Track track, Cursor after) {
+        long[] times = track.recordedAt();
+        long t = toMillis(after.recordedAt());
+        int lo = 0, hi = times.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] < t) lo = mid + 1; else hi = mid;
+        }
+        while (lo < times.length && times[lo] == t && lo <= after.id()) lo++;
+        return lo;
+    }
+
+    /**
+     * Feeds every point of a trip to {@code sink} in order, reading live rows one keyset
+     * page at a time so memory use does not grow with the length of the trip.
+     *
+     * @param minDistanceMeters If positive, a point is skipped when it is closer than this
+     *                          to the last point emitted; the final point is always emitted.
+     * @return The number of points emitted.
+     */
+    public long stream(Trip trip, double minDistanceMeters, Consumer<TrackPoint> sink) {
+        DistanceFilter out = new DistanceFilter(sink, minDistanceMeters);
+        TrackCodec.Track archived = loadArchive(trip);
+        if (archived != null) {
+            for (int i = 0; i < archived.size(); i++) out.accept(archivedPoint(archived, i));
+            return out.finish();
+        }
+        Cursor cursor = trip.getStartedAt() != null ? new Cursor(trip.getStartedAt(), -1) : Cursor.START;
+        while (true) {
+            List<TrackPoint> page = livePage(trip, cursor, STREAM_PAGE_SIZE);
+            page.forEach(out);
+            if (page.size() < STREAM_PAGE_SIZE) return out.finish();
+            TrackPoint last = page.get(page.size() - 1);
+            cursor = new Cursor(last.recordedAt(), last.id());
+        }
+    }
+
+    private List<TrackPoint> livePage(Trip trip, Cursor after, int limit) {
+        return liveReads.record(() -> {
+            List<Object[]> rows = tripLocationRepository.findPageAfter(trip, after.recordedAt(), after.id(),
+                    PageRequest.of(0, limit));
+            List<TrackPoint> points = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                points.add(new TrackPoint((Long) row[0], (Double) row[1], (Double) row[2],
+                        (LocalDateTime) row[3], (LocalDateTime) row[4]));
+            }
+            return points;
+        });
+    }
+
+    /**
+     * @return The decoded archive, or null if the trip's rows are live (also when the
+     *         archiving of the trip failed, or it had no points).
+     */
+    private TrackCodec.Track loadArchive(Trip trip) {
+        if (trip.getTrackArchivedAt() == null) return null;
+        TrackCodec.Track cached = decodedArchives.getIfPresent(trip.getId());
+        if (cached != null) return cached;
+        TrackCodec.Track decoded = archiveReads.record(() -> archiveRepository.findById(trip.getId())
+                .map(archive -> TrackCodec.decode(archive.getData()))
+                .orElse(null));
+        if (decoded != null) decodedArchives.put(trip.getId(), decoded);
+        return decoded;
+    }
+
+    private static TrackPoint archivedPoint(TrackCodec.Track track, int i) {
+        long device = track.deviceTime()[i];
+        return new TrackPoint(i, track.points()[2 * i], track.points()[2 * i + 1],
+                device == Long.MIN_VALUE ? null : fromMillis(device), fromMillis(track.recordedAt()[i]));
+    }
+
+    @Scheduled(fixedDelayString = "${safewalk.track.archive-check-ms:300000}")
+    public void archiveCompletedTrips() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveAfter);
+        long afterId = 0;
+        while (true) {
+            List<Trip> batch = tripRepository.findTop100ByStatusAndTrackArchivedAtIsNullAndCompletedAtBeforeAndIdGreaterThanOrderByIdAsc(
+                    TripStatus.COMPLETED, cutoff, afterId);
+            if (batch.isEmpty()) return;
+            for (Trip trip : batch) {
+                afterId = trip.getId();
+                try {
+                    transactionTemplate.executeWithoutResult(status -> archive(trip));
+                } catch (Exception ex) {
+                    // Left unmarked, so its rows stay live and the next run tries again.
+                    logger.warn("Could not archive track of Trip ID {}: {}", trip.getId(), ex.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Moves the trip's location rows into an archive blob. Must run in a transaction.
+     */
+    void archive(Trip trip) {
+        List<CoreLocationUpdate> updates = tripLocationRepository.findAllByTripOrderByRecordedAtAsc(trip);
+        if (!updates.isEmpty()) {
+            TrackCodec.Track track = toTrack(updates);
+            byte[] data = TrackCodec.encode(track);
+            if (TrackCodec.decode(data).size() != updates.size()) {
+                throw new IllegalStateException("Archive round trip lost points");
+            }
+
+            TripTrackArchive archive = new TripTrackArchive();
+            archive.setTripId(trip.getId());
+            archive.setPointCount(updates.size());
+            archive.setFirstRecordedAt(updates.get(0).getRecordedAt());
+            archive.setLastRecordedAt(updates.get(updates.size() - 1).getRecordedAt());
+            archive.setRowBytes(updates.size() * ESTIMATED_ROW_BYTES);
+            archive.setData(data);
+            archiveRepository.save(archive);
+            tripLocationRepository.deleteAllByTrip(trip);
+
+            rowBytes.record(archive.getRowBytes());
+            archiveBytes.record(data.length);
+            logger.debug("Archived {} points of Trip ID {}: ~{} -> {} bytes",
+                    updates.size(), trip.getId(), archive.getRowBytes(), data.length);
+        }
+        // Targeted update: the trip was loaded outside this transaction and may be stale.
+        tripRepository.markTrackArchived(trip.getId(), LocalDateTime.now());
+    }
+
+    private static TrackCodec.Track toTrack(List<CoreLocationUpdate> updates) {
+        int n = updates.size();
+        long[] recordedAt = new long[n];
+        long[] deviceTime = new long[n];
+        double[] points = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            CoreLocationUpdate u = updates.get(i);
+            // Rows from before recorded_at existed fall back to the device time.
+            recordedAt[i] = toMillis(u.getRecordedAt() != null ? u.getRecordedAt() : u.getTimestamp());
+            deviceTime[i] = u.getTimestamp() == null ? Long.MIN_VALUE : toMillis(u.getTimestamp());
+            points[2 * i] = u.getLatitude();
+            points[2 * i + 1] = u.getLongitude();
+        }
+        return new TrackCodec.Track(recordedAt, deviceTime, points);
+    }
+
+    /**
+     * Drops points closer than a minimum distance to the last emitted one, holding back
+     * the latest dropped point so the track always ends where it really ends.
+     */
+    private static final class DistanceFilter implements Consumer<TrackPoint> {
+        private final Consumer<TrackPoint> sink;
+        private final double minDistanceMeters;
+        private TrackPoint lastEmitted;
+        private TrackPoint pending;
+        private long emitted;
+
+        DistanceFilter(Consumer<TrackPoint> sink, double minDistanceMeters) {
+            this.sink = sink;
+            this.minDistanceMeters = minDistanceMeters;
+        }
+
+        @Override
+        public void accept(TrackPoint p) {
+            if (lastEmitted != null && minDistanceMeters > 0
+                    && GeoUtils.haversineMeters(lastEmitted.lat(), lastEmitted.lng(), p.lat(), p.lng()) < minDistanceMeters) {
+                pending = p;
+                return;
+            }
+            emit(p);
+        }
+
+        long finish() {
+            if (pending != null) emit(pending);
+            return emitted;
+        }
+
+        private void emit(TrackPoint p) {
+            sink.accept(p);
+            lastEmitted = p;
+            pending = null;
+            emitted++;
+        }
+    }
+
+    private static List<CoreLocationUpdate> toUpdates(Trip trip, TrackCodec.Track track) {
+        List<CoreLocationUpdate> updates = new ArrayList<>(track.size());
+        for (int i = 0; i < track.size(); i++) {
+            long device = track.deviceTime()[i];
+            CoreLocationUpdate u = new CoreLocationUpdate(track.points()[2 * i], track.points()[2 * i + 1],
+                    device == Long.MIN_VALUE ? null : fromMillis(device));
+            u.setTrip(trip);
+            u.setRecordedAt(fromMillis(track.recordedAt()[i]));
+            updates.add(u);
+        }
+        return updates;
+    }
+
+    // LocalDateTime carries no zone; UTC is only used as a lossless reference here.
+    private static long toMillis(LocalDateTime t) {
+        return t.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromMillis(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
+}
@@ -1,23 +1,20 @@
 package com.safewalk.springboot.backend.service.impl;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.safewalk.springboot.backend.entity.CoreLocationUpdate;
 import com.safewalk.springboot.backend.entity.Trip;
 import com.safewalk.springboot.backend.entity.TripStatus;
-import com.safewalk.springboot.backend.repository.TripRepository;
 import com.safewalk.springboot.backend.service.DeviationDetectionService;
+import com.safewalk.springboot.backend.service.IncidentSearchService;
 import com.safewalk.springboot.backend.service.NotificationService;
 import com.safewalk.springboot.backend.service.SafetyScoringService;
+import com.safewalk.springboot.backend.service.TripRouteService;
+import com.safewalk.springboot.backend.service.TripStateTransitionService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.io.IOException;
-import java.util.List;
-
 /**
  * Implementation of the Deviation Detection Service.
  * * Calculates the distance from the selected route and triggers alerts if the
@@ -31,11 +28,9 @@ public class DeviationDetectionServiceImpl implements DeviationDetectionService
 
     private final SafetyScoringService safetyScoringService;
     private final NotificationService notificationService;
-    private final TripRepository tripRepository;
-    private final ObjectMapper objectMapper;
-
-    // Type reference for deserializing the polyline JSON: List of Lists of Doubles
-    private static final TypeReference<List<List<Double>>> POLYLINE_TYPE = new TypeReference<>() {};
+    private final TripRouteService tripRouteService;
+    private final TripStateTransitionService tripStateTransitionService;
+    private final IncidentSearchService incidentSearchService;
 
     /**
      * Checks for deviation upon every location update.
@@ -46,28 +41,41 @@ public class DeviationDetectionServiceImpl implements DeviationDetectionService
     @Override
     @Transactional
     public void checkDeviation(Trip trip, CoreLocationUpdate latestLocation) {
-        // 1. Deserialize the selected route polyline
-        List<List<Double>> polyline;
+        // 1. Selected route (decoded once per trip and cached)
+        TripRouteService.Geometry route;
         try {
-            polyline = objectMapper.readValue(trip.getSelectedRoutePolylineJson(), POLYLINE_TYPE);
-        } catch (IOException e) {
-            logger.error("Failed to deserialize polyline for Trip ID: {}. Cannot perform deviation check.", trip.getId(), e);
+            route = tripRouteService.get(trip.getId());
+        } catch (IllegalArgumentException e) {
+            logger.error("Failed to decode polyline for Trip ID: {}. Cannot perform deviation check.", trip.getId(), e);
+            return;
+        }
+        double[] points = route.simplified();
+        if (points.length < 2) {
+            logger.warn("Trip ID {} has no stored route. Cannot perform deviation check.", trip.getId());
             return;
         }
 
         // 2. Calculate the shortest distance from the current location to the polyline
         double distance = safetyScoringService.calculateDistanceFromRoute(
-            polyline,
+            points,
             latestLocation.getLatitude(),
             latestLocation.getLongitude()
         );
 
-        // 3. Compare distance to the threshold
+        // 3. Compare distance to the threshold. The simplified route is within the tolerance of
+        //    the full one, so only results that close to the threshold need the full geometry.
         double threshold = trip.getDeviationThresholdMeters();
+        if (Math.abs(distance - threshold) <= trip.getRouteToleranceMeters() && route.full() != null) {
+            distance = safetyScoringService.calculateDistanceFromRoute(
+                route.full(),
+                latestLocation.getLatitude(),
+                latestLocation.getLongitude()
+            );
+        }
         logger.debug("Trip ID {} distance from route: {} meters (Threshold: {}m)", trip.getId(), Math.round(distance), threshold);
 
         if (distance > threshold) {
-            handleDeviationDetected(trip, distance);
+            handleDeviationDetected(trip, latestLocation, distance);
         } else if (trip.getStatus() == TripStatus.DEVIATION_ALERT) {
             // If the user was deviating but is now back on track, clear the alert
             handleDeviationCleared(trip);
@@ -78,14 +86,18 @@ public class DeviationDetectionServiceImpl implements DeviationDetectionService
      * Handles the state change when a deviation is detected.
      *
      * @param trip The deviating trip.
+     * @param location The location update that left the route.
      * @param distance The deviation distance in meters.
      */
-    private void handleDeviationDetected(Trip trip, double distance) {
-        if (trip.getStatus() == TripStatus.ACTIVE) {
-            // First time deviation detected: change status and notify user
+    private void handleDeviationDetected(Trip trip, CoreLocationUpdate location, double distance) {
+        // First time deviation detected: change status and notify user. The update only
+        // applies while the trip is still ACTIVE, so exactly one alert goes out.
+        if (trip.getStatus() == TripStatus.ACTIVE
+                && tripStateTransitionService.transition(trip.getId(), TripStatus.DEVIATION_ALERT)) {
             trip.setStatus(TripStatus.DEVIATION_ALERT);
-            tripRepository.save(trip);
             logger.warn("DEVIATION DETECTED for Trip ID {}. Distance: {}m.", trip.getId(), Math.round(distance));
+            incidentSearchService.index(IncidentSearchService.Incident.deviation(
+                    trip.getId(), location.getLatitude(), location.getLongitude(), location.getRecordedAt()));
 
             String message = String.format(
                 "⚠️ **ROUTE DEVIATION ALERT** ⚠️\n" +
@@ -106,8 +118,12 @@ public class DeviationDetectionServiceImpl implements DeviationDetectionService
      * @param trip The trip that is now back on route.
      */
     private void handleDeviationCleared(Trip trip) {
+        // SOS and ended states are not legal sources for ACTIVE, so an SOS raised meanwhile stays.
+        if (!tripStateTransitionService.transition(trip.getId(), TripStatus.ACTIVE)) {
+            logger.info("Deviation for Trip ID {} not cleared: status changed concurrently.", trip.getId());
+            return;
+        }
         trip.setStatus(TripStatus.ACTIVE);
-        tripRepository.save(trip);
         logger.info("Deviation cleared for Trip ID {}. User is back on route.", trip.getId());
 
         notificationService.sendNotificationToUser(trip.getId(), "✅ **Deviation Cleared**\nYou are back on your safe route. Monitoring continues.");
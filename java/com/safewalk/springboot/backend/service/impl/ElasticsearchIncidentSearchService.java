@@ -0,0 +1,162 @@
+package com.safewalk.springboot.backend.service.impl;
+
+import com.safewalk.springboot.backend.entity.IncidentDocument;
+import com.safewalk.springboot.backend.service.AfterCommit;
+import com.safewalk.springboot.backend.service.IncidentSearchService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.elasticsearch.core.ElasticsearchOperations;
+import org.springframework.data.elasticsearch.core.IndexOperations;
+import org.springframework.data.elasticsearch.core.SearchHit;
+import org.springframework.data.elasticsearch.core.geo.GeoPoint;
+import org.springframework.data.elasticsearch.core.query.Criteria;
+import org.springframework.data.elasticsearch.core.query.CriteriaQuery;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Incident store backed by the {@code safewalk-incidents} Elasticsearch index.
+ *
+ * {@link #index} only enqueues (after commit); a scheduled flush sends queued incidents as one bulk
+ * request every {@code safewalk.incidents.flush-ms}, so the SOS and deviation paths never
+ * wait on the cluster. When the queue is full, new incidents are dropped and counted
+ * (sos_events remains the record of SOS alerts). Failed batches are re-queued.
+ */
+@Service
+@ConditionalOnProperty(name = "safewalk.incidents.store", havingValue = "elasticsearch")
+public class ElasticsearchIncidentSearchService implements IncidentSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ElasticsearchIncidentSearchService.class);
+
+    private final ElasticsearchOperations operations;
+    private final int maxResults;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final Queue<Incident> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingSize = new AtomicInteger();
+    private final Counter dropped;
+    private volatile boolean indexReady;
+
+    public ElasticsearchIncidentSearchService(ElasticsearchOperations operations,
+                                              @Value("${safewalk.incidents.max-results:500}") int maxResults,
+                                              @Value("${safewalk.incidents.batch-size:500}") int batchSize,
+                                              @Value("${safewalk.incidents.queue-capacity:10000}") int queueCapacity,
+                                              MeterRegistry meterRegistry) {
+        this.operations = operations;
+        this.maxResults = maxResults;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        Gauge.builder("safewalk.incidents.pending", pendingSize, AtomicInteger::get)
+                .description("Incidents waiting for the next bulk index request")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("safewalk.incidents.dropped").register(meterRegistry);
+    }
+
+    @Override
+    public void index(Incident incident) {
+        if (incident == null || incident.occurredAt() == null) return;
+        AfterCommit.run(() -> enqueue(incident));
+    }
+
+    private void enqueue(Incident incident) {
+        if (pendingSize.incrementAndGet() > queueCapacity) {
+            pendingSize.decrementAndGet();
+            dropped.increment();
+            logger.warn("Incident queue full; dropping {}", incident.id());
+            return;
+        }
+        pending.add(incident);
+    }
+
+    @Scheduled(fixedDelayString = "${safewalk.incidents.flush-ms:1000}")
+    public void flush() {
+        if (pending.isEmpty() || !ensureIndex()) return;
+        List<Incident> batch = new ArrayList<>(batchSize);
+        Incident next;
+        while ((next = pending.poll()) != null) {
+            pendingSize.decrementAndGet();
+            batch.add(next);
+            if (batch.size() == batchSize) {
+                if (!send(batch)) return;
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) send(batch);
+    }
+
+    @Override
+    public List<Incident> findNear(double lat, double lng, double radiusMeters, Duration window) {
+        CriteriaQuery query = query(lat, lng, radiusMeters, window);
+        query.setPageable(PageRequest.of(0, maxResults, Sort.by(Sort.Direction.DESC, "occurredAt")));
+        List<Incident> found = new ArrayList<>();
+        for (SearchHit<IncidentDocument> hit : operations.search(query, IncidentDocument.class)) {
+            found.add(toIncident(hit.getContent()));
+        }
+        return found;
+    }
+
+    @Override
+    public long countNear(double lat, double lng, double radiusMeters, Duration window) {
+        return operations.count(query(lat, lng, radiusMeters, window), IncidentDocument.class);
+    }
+
+    private static CriteriaQuery query(double lat, double lng, double radiusMeters, Duration window) {
+        Criteria criteria = new Criteria("location").within(new GeoPoint(lat, lng), Math.round(radiusMeters) + "m")
+                .and(new Criteria("occurredAt").greaterThanEqual(LocalDateTime.now().minus(window)));
+        return new CriteriaQuery(criteria);
+    }
+
+    /** Bulk-indexes a batch; on failure puts it back for the next flush. */
+    private boolean send(List<Incident> batch) {
+        List<IncidentDocument> docs = new ArrayList<>(batch.size());
+        for (Incident i : batch) {
+            docs.add(new IncidentDocument(i.id(), i.type().name(), i.tripId(), new GeoPoint(i.lat(), i.lng()),
+                    i.occurredAt()));
+        }
+        try {
+            operations.save(docs);
+            logger.debug("Indexed {} incidents", docs.size());
+            return true;
+        } catch (Exception ex) {
+            logger.warn("Bulk indexing of {} incidents failed, will retry: {}", batch.size(), ex.getMessage());
+            for (Incident i : batch) enqueue(i);
+            return false;
+        }
+    }
+
+    /** Creates the index with its geo_point mapping on first use; retried while the cluster is down. */
+    private boolean ensureIndex() {
+        if (indexReady) return true;
+        try {
+            IndexOperations indexOps = operations.indexOps(IncidentDocument.class);
+            if (!indexOps.exists()) {
+                indexOps.createWithMapping();
+                logger.info("Created incident index {}", indexOps.getIndexCoordinates().getIndexName());
+            }
+            indexReady = true;
+        } catch (Exception ex) {
+            logger.warn("Incident index not available yet: {}", ex.getMessage());
+        }
+        return indexReady;
+    }
+
+    private static Incident toIncident(IncidentDocument doc) {
+        return new Incident(doc.getId(), IncidentType.valueOf(doc.getType()), doc.getTripId(),
+                doc.getLocation().getLat(), doc.getLocation().getLon(), doc.getOccurredAt());
+    }
+}
@@ -0,0 +1,141 @@
+package com.safewalk.springboot.backend.service.impl;
+
+import com.safewalk.springboot.backend.geo.GeoUtils;
+import com.safewalk.springboot.backend.repository.SosEventRepository;
+import com.safewalk.springboot.backend.service.AfterCommit;
+import com.safewalk.springboot.backend.service.IncidentSearchService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process incident store: incidents of the last {@code safewalk.incidents.retention}
+ * bucketed into a grid of roughly 1 km cells, so a radius query only scans the cells
+ * overlapping the search box. Warmed from sos_events at startup; deviations are not
+ * persisted elsewhere and start empty.
+ */
+@Service
+@ConditionalOnProperty(name = "safewalk.incidents.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIncidentSearchService implements IncidentSearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryIncidentSearchService.class);
+
+    private static final double CELL_DEGREES = 0.01;
+    private static final long COLS = (long) Math.ceil(360 / CELL_DEGREES) + 1;
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+
+    private final SosEventRepository sosEventRepository;
+    private final Duration retention;
+    private final int maxResults;
+    private final Map<Long, Map<String, Incident>> cells = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    public InMemoryIncidentSearchService(SosEventRepository sosEventRepository,
+                                         @Value("${safewalk.incidents.retention:P7D}") Duration retention,
+                                         @Value("${safewalk.incidents.max-results:500}") int maxResults,
+                                         MeterRegistry meterRegistry) {
+        this.sosEventRepository = sosEventRepository;
+        this.retention = retention;
+        this.maxResults = maxResults;
+        Gauge.builder("safewalk.incidents.indexed", size, AtomicInteger::get)
+                .tag("store", "memory")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void index(Incident incident) {
+        if (incident == null || incident.occurredAt() == null) return;
+        AfterCommit.run(() -> add(incident));
+    }
+
+    private void add(Incident incident) {
+        Map<String, Incident> cell = cells.computeIfAbsent(cellKey(incident.lat(), incident.lng()),
+                k -> new ConcurrentHashMap<>());
+        if (cell.put(incident.id(), incident) == null) size.incrementAndGet();
+    }
+
+    @Override
+    public List<Incident> findNear(double lat, double lng, double radiusMeters, Duration window) {
+        List<Incident> found = collect(lat, lng, radiusMeters, window);
+        found.sort(Comparator.comparing(Incident::occurredAt).reversed());
+        return found.size() > maxResults ? List.copyOf(found.subList(0, maxResults)) : List.copyOf(found);
+    }
+
+    @Override
+    public long countNear(double lat, double lng, double radiusMeters, Duration window) {
+        return collect(lat, lng, radiusMeters, window).size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmUp() {
+        List<Object[]> rows = sosEventRepository.findIncidentsSince(LocalDateTime.now().minus(retention));
+        for (Object[] row : rows) {
+            add(Incident.sos((Long) row[0], (Long) row[1], (Double) row[2], (Double) row[3], (LocalDateTime) row[4]));
+        }
+        if (!rows.isEmpty()) logger.info("Loaded {} recent SOS incidents into the in-memory incident store", rows.size());
+    }
+
+    @Scheduled(fixedDelayString = "${safewalk.incidents.prune-ms:600000}")
+    public void prune() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        cells.values().forEach(cell -> cell.values().removeIf(i -> {
+            boolean expired = i.occurredAt().isBefore(cutoff);
+            if (expired) size.decrementAndGet();
+            return expired;
+        }));
+        cells.values().removeIf(Map::isEmpty);
+    }
+
+    private List<Incident> collect(double lat, double lng, double radiusMeters, Duration window) {
+        LocalDateTime since = LocalDateTime.now().minus(window);
+        double latDelta = radiusMeters / METERS_PER_DEGREE;
+        double lngDelta = radiusMeters / (METERS_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(lat))));
+        long minRow = row(lat - latDelta), maxRow = row(lat + latDelta);
+        long minCol = col(lng - lngDelta), maxCol = col(lng + lngDelta);
+
+        List<Incident> found = new ArrayList<>();
+        for (long r = minRow; r <= maxRow; r++) {
+            for (long c = minCol; c <= maxCol; c++) {
+                Map<String, Incident> cell = cells.get(r * COLS + c);
+                if (cell == null) continue;
+                for (Incident i : cell.values()) {
+                    if (!i.occurredAt().isBefore(since)
+                            && GeoUtils.haversineMeters(lat, lng, i.lat(), i.lng()) <= radiusMeters) {
+                        found.add(i);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    private static long cellKey(double lat, double lng) {
+        return row(lat) * COLS + col(lng);
+    }
+
+    private static long row(double lat) {
+        return (long) Math.floor((Math.max(-90, Math.min(90, lat)) + 90) / CELL_DEGREES);
+    }
+
+    private static long col(double lng) {
+        return (long) Math.floor((Math.max(-180, Math.min(180, lng)) + 180) / CELL_DEGREES);
+    }
+}
@@ -1,25 +1,57 @@
 package com.safewalk.springboot.backend.service.impl;
 
+import com.safewalk.springboot.backend.dto.LocationDto;
 import com.safewalk.springboot.backend.dto.RouteOptionDto;
+import com.safewalk.springboot.backend.scoring.RouteScoringEngine;
 import com.safewalk.springboot.backend.service.SafetyScoringService;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Minimal scoring implementation so project compiles. Replace with real rules later.
+ * Scores routes with {@link RouteScoringEngine}, which evaluates all alternatives and factors
+ * concurrently under a time budget. Routes without geometry, or with no factor available,
+ * fall back to a distance-only score.
  */
 @Service
 public class SafetyScoringServiceImpl implements SafetyScoringService {
 
+    private final RouteScoringEngine routeScoringEngine;
+
+    public SafetyScoringServiceImpl(RouteScoringEngine routeScoringEngine) {
+        this.routeScoringEngine = routeScoringEngine;
+    }
+
     @Override
     public List<RouteOptionDto> calculateScores(List<RouteOptionDto> routeOptions) {
         if (routeOptions == null) return new ArrayList<>();
+        List<RouteOptionDto> withGeometry = new ArrayList<>();
+        List<double[]> geometries = new ArrayList<>();
         for (RouteOptionDto r : routeOptions) {
+            double[] points = toPoints(r.getPolyline());
+            if (points.length >= 2) {
+                withGeometry.add(r);
+                geometries.add(points);
+            }
+        }
+
+        List<RouteScoringEngine.RouteScore> scores = routeScoringEngine.score(geometries);
+        for (int i = 0; i < withGeometry.size(); i++) {
+            RouteScoringEngine.RouteScore s = scores.get(i);
+            if (s.score() != null) {
+                withGeometry.get(i).setSafetyScore(s.score());
+                withGeometry.get(i).setScoringFactors(s.factors());
+            }
+        }
+
+        for (RouteOptionDto r : routeOptions) {
+            if (r.getSafetyScore() != null) continue;
             double km = (r.getDistance() == null) ? 0.0 : r.getDistance() / 1000.0;
-            double score = Math.max(0.0, 100.0 - km); // simple placeholder
+            double score = Math.max(0.0, 100.0 - km); // no geometry: distance only
             r.setSafetyScore(score);
+            r.setScoringFactors(List.of("distance"));
         }
         routeOptions.sort((a, b) -> Double.compare(b.getSafetyScore(), a.getSafetyScore()));
         return routeOptions;
@@ -38,6 +70,30 @@ public class SafetyScoringServiceImpl implements SafetyScoringService {
         return min;
     }
 
+    @Override
+    public double calculateDistanceFromRoute(double[] points, double lat, double lng) {
+        if (points == null || points.length < 2) return Double.POSITIVE_INFINITY;
+        if (points.length < 4) return haversineMeters(lat, lng, points[0], points[1]);
+        double min = Double.POSITIVE_INFINITY;
+        for (int i = 0; i + 3 < points.length; i += 2) {
+            double d = distancePointToSegmentMeters(lat, lng, points[i], points[i + 1], points[i + 2], points[i + 3]);
+            if (d < min) min = d;
+        }
+        return min;
+    }
+
+    private double[] toPoints(List<LocationDto> polyline) {
+        if (polyline == null) return new double[0];
+        double[] points = new double[polyline.size() * 2];
+        int n = 0;
+        for (LocationDto p : polyline) {
+            if (p == null || p.getLat() == null || p.getLng() == null) continue;
+            points[n++] = p.getLat();
+            points[n++] = p.getLng();
+        }
+        return n == points.length ? points : Arrays.copyOf(points, n);
+    }
+
     private double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
         final double R = 6371000;
         double phi1 = Math.toRadians(lat1), phi2 = Math.toRadians(lat2);
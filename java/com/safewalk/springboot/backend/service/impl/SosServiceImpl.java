@@ -1,24 +1,35 @@
 package com.safewalk.springboot.backend.service.impl;
 
 import com.safewalk.springboot.backend.dto.SosDto;
-import com.safewalk.springboot.backend.entity.EmergencyContact;
+import com.safewalk.springboot.backend.entity.SosEvent;
 import com.safewalk.springboot.backend.entity.Trip;
 import com.safewalk.springboot.backend.entity.TripStatus;
-import com.safewalk.springboot.backend.entity.User;
 import com.safewalk.springboot.backend.exception.ResourceNotFoundException;
+import com.safewalk.springboot.backend.repository.SosEventRepository;
 import com.safewalk.springboot.backend.repository.TripRepository;
+import com.safewalk.springboot.backend.repository.TripStatusView;
+import com.safewalk.springboot.backend.service.IncidentSearchService;
+import com.safewalk.springboot.backend.service.LatestPositionStore;
+import com.safewalk.springboot.backend.service.LatestPositionStore.LatestPosition;
 import com.safewalk.springboot.backend.service.NotificationService;
+import com.safewalk.springboot.backend.service.SosDossierCache;
+import com.safewalk.springboot.backend.service.SosDossierCache.SosDossier;
 import com.safewalk.springboot.backend.service.SosService;
-import com.safewalk.springboot.backend.service.UserService;
+import com.safewalk.springboot.backend.service.TrackDownsamplingService;
+import com.safewalk.springboot.backend.service.TripStateTransitionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Collections;
-import java.util.List;
+import java.time.LocalDateTime;
 import java.util.Map;
-import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 public class SosServiceImpl implements SosService {
@@ -27,14 +38,35 @@ public class SosServiceImpl implements SosService {
 
     private final TripRepository tripRepository;
     private final NotificationService notificationService;
-    private final UserService userService;
+    private final LatestPositionStore latestPositionStore;
+    private final SosDossierCache sosDossierCache;
+    private final SosEventRepository sosEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor sosExecutor;
+    private final TripStateTransitionService tripStateTransitionService;
+    private final IncidentSearchService incidentSearchService;
+    private final TrackDownsamplingService trackDownsamplingService;
 
     public SosServiceImpl(TripRepository tripRepository,
                           NotificationService notificationService,
-                          UserService userService) {
+                          LatestPositionStore latestPositionStore,
+                          SosDossierCache sosDossierCache,
+                          SosEventRepository sosEventRepository,
+                          TransactionTemplate transactionTemplate,
+                          @Qualifier("sosExecutor") TaskExecutor sosExecutor,
+                          TripStateTransitionService tripStateTransitionService,
+                          IncidentSearchService incidentSearchService,
+                          TrackDownsamplingService trackDownsamplingService) {
         this.tripRepository = tripRepository;
         this.notificationService = notificationService;
-        this.userService = userService;
+        this.latestPositionStore = latestPositionStore;
+        this.sosDossierCache = sosDossierCache;
+        this.sosEventRepository = sosEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.sosExecutor = sosExecutor;
+        this.tripStateTransitionService = tripStateTransitionService;
+        this.incidentSearchService = incidentSearchService;
+        this.trackDownsamplingService = trackDownsamplingService;
     }
     @Override
 public void handleSos(SosDto sosDto) {
@@ -53,9 +85,15 @@ public void handleSos(SosDto sosDto) {
 
     /**
      * Triggers an SOS alert.
+     *
+     * Contacts are notified from the trip's prepared SOS dossier and latest position
+     * before any database access; the SOS_TRIGGERED status and the SosEvent are
+     * persisted concurrently on the SOS executor. If that executor is saturated, they are
+     * persisted on the calling thread once everyone has been notified, so a burst of SOS
+     * alerts never drops one. Trips without a dossier (e.g. started before a restart and
+     * not yet warmed) build one from the database first.
      */
     @Override
-    @Transactional
     public Trip triggerSos(SosDto sosDto) {
         if (sosDto == null) {
             logger.error("triggerSos called with null SosDto");
@@ -65,119 +103,90 @@ public void handleSos(SosDto sosDto) {
         logger.debug("triggerSos called with sosDto: {}", sosDto);
 
         try {
-            // 1. Find and validate the trip
-            Trip trip = tripRepository.findById(sosDto.getTripId())
-                    .orElseThrow(() -> new ResourceNotFoundException("Trip not found with ID: " + sosDto.getTripId()));
-
-            logger.debug("Trip found: id={}, status={}, telegramChatId={}",
-                    trip.getId(),
-                    trip.getStatus(),
-                    trip.getTelegramChatId());
-
-            // 2. Validate status: ensure TripStatus enum (defensive)
-            if (trip.getStatus() == TripStatus.COMPLETED || trip.getStatus() == TripStatus.CANCELLED) {
-                logger.warn("SOS triggered on a non-active trip ID: {} with status: {}. Ignoring.",
-                        trip.getId(), trip.getStatus());
-                return trip;
-            }
-
-            // 3. Update trip status
-            trip.setStatus(TripStatus.SOS_TRIGGERED);
-            Trip savedTrip = tripRepository.save(trip);
-            logger.info("Trip {} status updated to SOS_TRIGGERED", savedTrip.getId());
-
-            // 4. Fetch user (by telegramChatId) and emergency contacts
-            Optional<User> userOpt = Optional.empty();
-            if (trip.getTelegramChatId() != null) {
-                try {
-                    userOpt = userService.findByTelegramChatId(trip.getTelegramChatId());
-                } catch (Exception e) {
-                    logger.warn("Error while fetching user by telegramChatId {}: {}", trip.getTelegramChatId(), e.toString());
+            Long tripId = sosDto.getTripId();
+
+            // 1. Prepared dossier; fall back to loading the trip when there is none.
+            SosDossier dossier = sosDossierCache.get(tripId);
+            if (dossier == null) {
+                TripStatusView view = tripRepository.findStatusViewById(tripId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Trip not found with ID: " + tripId));
+                if (view.getStatus() == TripStatus.COMPLETED || view.getStatus() == TripStatus.CANCELLED) {
+                    logger.warn("SOS triggered on a non-active trip ID: {} with status: {}. Ignoring.",
+                            tripId, view.getStatus());
+                    return tripRepository.findById(tripId).orElseThrow();
                 }
+                logger.debug("No SOS dossier for trip {}; preparing one now", tripId);
+                dossier = sosDossierCache.prepare(tripId, view.getTelegramChatId());
             }
 
-            User user = userOpt.orElse(null);
-
-            if (user == null) {
-                logger.warn("No user found for trip {}. Will still record SOS but cannot notify contacts or user.", trip.getId());
+            if (!dossier.userFound()) {
+                logger.warn("No user found for trip {}. Will still record SOS but cannot notify contacts or user.", tripId);
             }
 
-            List<EmergencyContact> contacts = (user != null && user.getEmergencyContacts() != null)
-                    ? user.getEmergencyContacts()
-                    : Collections.emptyList();
-
-            logger.debug("Contacts to notify for trip {}: count={}", trip.getId(), contacts.size());
-
-            // 5. Construct location string
-            String locationLink = "No recent location available.";
+            // 2. Persist status and event in the background while notifications go out.
+            LatestPosition position = latestPositionStore.get(tripId);
+            CompletableFuture<Trip> persisted;
             try {
-                if (trip.getLatestLocation() != null) {
-                    locationLink = formatLocationLink(
-                            trip.getLatestLocation().getLatitude(),
-                            trip.getLatestLocation().getLongitude()
-                    );
-                } else {
-                    logger.debug("No latestLocation on Trip {}, getLatestLocation() returned null", trip.getId());
-                }
-            } catch (NoSuchMethodError nsme) {
-                logger.warn("Trip.getLatestLocation() is unavailable: {}", nsme.toString());
-            } catch (Exception ex) {
-                logger.warn("Error while constructing location link for trip {}: {}", trip.getId(), ex.toString());
+                persisted = CompletableFuture.supplyAsync(
+                        () -> transactionTemplate.execute(status -> persistSos(tripId, position, sosDto.getMessage())),
+                        sosExecutor);
+            } catch (RejectedExecutionException rejected) {
+                logger.warn("SOS executor saturated; persisting SOS for trip {} after notifying", tripId);
+                persisted = null;
+            }
+
+            // 3. Notify contacts and the user from memory.
+            String locationLink = position != null ? formatLocationLink(position.lat(), position.lng()) : null;
+            if (position == null) {
+                logger.debug("No latest position for trip {}", tripId);
             }
+            String alertMessage = dossier.renderAlert(locationLink, sosDto.getMessage());
 
-            // 6. Build user message
-            String userMessage = (sosDto.getMessage() != null && !sosDto.getMessage().isBlank())
-                    ? "\nUser's message: " + sosDto.getMessage()
-                    : "";
-
-            String userName = (user != null && user.getName() != null) ? user.getName() : "Unknown user";
-            String userPhone = (user != null && user.getPhone() != null) ? user.getPhone() : "unknown";
-
-            String alertMessage = String.format(
-                    "🚨 EMERGENCY SOS ALERT 🚨\n\n" +
-                            "Your contact, %s, has triggered an SOS alert!\n\n" +
-                            "Last Known Location: %s\n\n" +
-                            "Contact their phone immediately: %s%s\n\n" +
-                            "Please call local emergency services if you cannot reach them.",
-                    userName,
-                    locationLink,
-                    userPhone,
-                    userMessage
-            );
-
-            // 7. Dispatch notifications to emergency contacts
-            for (EmergencyContact contact : contacts) {
+            logger.debug("Contacts to notify for trip {}: count={}", tripId, dossier.contacts().size());
+            for (SosDossierCache.Contact contact : dossier.contacts()) {
                 try {
-                    logger.info("Queuing SOS alert to contact: {} ({}) for user {}", contact.getName(), contact.getPhone(), userName);
+                    logger.info("Queuing SOS alert to contact: {} ({}) for user {}", contact.name(), contact.phone(), dossier.userName());
                     Map<String, Object> payload = Map.of(
                             "type", "sos_contact",
-                            "tripId", savedTrip.getId(),
-                            "contactName", contact.getName(),
-                            "contactPhone", contact.getPhone(),
+                            "tripId", tripId,
+                            "contactName", contact.name(),
+                            "contactPhone", contact.phone(),
                             "message", alertMessage
                     );
                     notificationService.sendNotification(payload);
                 } catch (Exception e) {
-                    logger.error("Failed to notify contact {} for trip {}: {}", contact.getId(), trip.getId(), e.toString());
+                    logger.error("Failed to notify contact {} for trip {}: {}", contact.id(), tripId, e.toString());
                 }
             }
 
-            // 8. Send confirmation to user (via notification service)
-            try {
-                Map<String, Object> userPayload = Map.of(
-                        "type", "sos_user",
-                        "tripId", savedTrip.getId(),
-                        "telegramChatId", trip.getTelegramChatId(),
-                        "message", "Your emergency contacts have been notified. Stay safe."
-                );
-                notificationService.sendNotification(userPayload);
-            } catch (Exception e) {
-                logger.warn("Failed to send confirmation to user for trip {}: {}", trip.getId(), e.toString());
+            if (dossier.telegramChatId() != null) {
+                try {
+                    Map<String, Object> userPayload = Map.of(
+                            "type", "sos_user",
+                            "tripId", tripId,
+                            "telegramChatId", dossier.telegramChatId(),
+                            "message", "Your emergency contacts have been notified. Stay safe."
+                    );
+                    notificationService.sendNotification(userPayload);
+                } catch (Exception e) {
+                    logger.warn("Failed to send confirmation to user for trip {}: {}", tripId, e.toString());
+                }
             }
 
-            logger.info("SOS flow completed for trip {}", trip.getId());
+            // 4. Wait for persistence only after everyone has been notified.
+            Trip savedTrip = persisted != null
+                    ? persisted.join()
+                    : transactionTemplate.execute(status -> persistSos(tripId, position, sosDto.getMessage()));
+            logger.info("SOS flow completed for trip {}", tripId);
             return savedTrip;
 
+        } catch (CompletionException ce) {
+            if (ce.getCause() instanceof ResourceNotFoundException rnfe) {
+                logger.error("triggerSos failed: {}", rnfe.getMessage());
+                throw rnfe;
+            }
+            logger.error("Unexpected error in triggerSos: ", ce.getCause());
+            throw new RuntimeException("Failed to trigger SOS", ce.getCause());
         } catch (ResourceNotFoundException rnfe) {
             logger.error("triggerSos failed: {}", rnfe.getMessage());
             throw rnfe; // rethrow so caller knows
@@ -187,27 +196,54 @@ public void handleSos(SosDto sosDto) {
         }
     }
 
+    /**
+     * Moves the trip to SOS_TRIGGERED with a single conditional update, so an SOS racing
+     * a completion, cancellation or deviation update cannot be lost or overwritten. The
+     * trip is read afterwards only for the return value. The SosEvent is always
+     * recorded; without a known position its latitude and longitude are left empty.
+     */
+    private Trip persistSos(Long tripId, LatestPosition position, String message) {
+        boolean applied = tripStateTransitionService.transition(tripId, TripStatus.SOS_TRIGGERED);
+        Trip savedTrip = tripRepository.findById(tripId)
+                .orElseThrow(() -> new ResourceNotFoundException("Trip not found with ID: " + tripId));
+        if (applied) {
+            logger.info("Trip {} status updated to {}", tripId, TripStatus.SOS_TRIGGERED);
+        } else {
+            // Ended (or already in SOS) while the alert was going out; keep its status but record the event.
+            logger.warn("SOS dispatched for trip {} which is already {}", tripId, savedTrip.getStatus());
+        }
+
+        SosEvent event = sosEventRepository.save(SosEvent.builder()
+                .trip(savedTrip)
+                .latitude(position != null ? position.lat() : null)
+                .longitude(position != null ? position.lng() : null)
+                .message(message != null && message.length() > 500 ? message.substring(0, 500) : message)
+                .createdAt(LocalDateTime.now())
+                .build());
+        // Downsampled tracks carry SOS markers.
+        trackDownsamplingService.evict(tripId);
+        // Incidents are searched by location; one without a fix cannot be placed.
+        if (position != null) {
+            incidentSearchService.index(IncidentSearchService.Incident.sos(
+                    event.getId(), tripId, event.getLatitude(), event.getLongitude(), event.getCreatedAt()));
+        }
+        return savedTrip;
+    }
+
     /**
      * Cancels a trip.
      */
     @Override
     @Transactional
     public Trip cancelTrip(Long tripId, String reason) {
+        // Status and reason are set in one conditional update; the trip is loaded afterwards.
+        boolean cancelled = tripStateTransitionService.cancel(tripId, reason);
         Trip trip = tripRepository.findById(tripId)
                 .orElseThrow(() -> new ResourceNotFoundException("Trip not found with ID: " + tripId));
 
-        if (trip.getStatus() != TripStatus.COMPLETED && trip.getStatus() != TripStatus.CANCELLED) {
-            trip.setStatus(TripStatus.CANCELLED);
-            try {
-                // optional setter; if not present, ignore
-                trip.setCancellationReason(reason);
-            } catch (NoSuchMethodError nsme) {
-                logger.warn("Trip.setCancellationReason() not present; skipping setting reason");
-            } catch (Exception e) {
-                logger.warn("Failed to set cancellation reason for trip {}: {}", tripId, e.toString());
-            }
-
-            Trip savedTrip = tripRepository.save(trip);
+        if (cancelled) {
+            latestPositionStore.remove(tripId);
+            sosDossierCache.evict(tripId);
             logger.info("Trip ID {} cancelled. Reason: {}", tripId, reason);
 
             try {
@@ -221,7 +257,7 @@ public void handleSos(SosDto sosDto) {
                 logger.warn("Failed to notify user about cancellation for trip {}: {}", tripId, e.toString());
             }
 
-            return savedTrip;
+            return trip;
         }
 
         logger.warn("Attempted to cancel trip ID {} which was already in status: {}", tripId, trip.getStatus());
@@ -0,0 +1,187 @@
+package com.safewalk.springboot.backend.service.impl;
+
+import com.safewalk.springboot.backend.dto.LocationUpdateDto;
+import com.safewalk.springboot.backend.dto.RouteOptionDto;
+import com.safewalk.springboot.backend.dto.TrackPageDto;
+import com.safewalk.springboot.backend.dto.TrackPointDto;
+import com.safewalk.springboot.backend.dto.TripCreationDto;
+import com.safewalk.springboot.backend.dto.TripRouteOptionsDto;
+import com.safewalk.springboot.backend.entity.CoreLocationUpdate;
+import com.safewalk.springboot.backend.entity.Trip;
+import com.safewalk.springboot.backend.entity.TripStatus;
+import com.safewalk.springboot.backend.exception.ResourceNotFoundException;
+import com.safewalk.springboot.backend.repository.TripLocationRepository;
+import com.safewalk.springboot.backend.repository.TripRepository;
+import com.safewalk.springboot.backend.service.DeviationDetectionService;
+import com.safewalk.springboot.backend.service.LatestPositionStore;
+import com.safewalk.springboot.backend.service.RoutePreparationService;
+import com.safewalk.springboot.backend.service.RouteService;
+import com.safewalk.springboot.backend.service.SosDossierCache;
+import com.safewalk.springboot.backend.service.TrackDownsamplingService;
+import com.safewalk.springboot.backend.service.TripRouteService;
+import com.safewalk.springboot.backend.service.TripService;
+import com.safewalk.springboot.backend.service.TripStateTransitionService;
+import com.safewalk.springboot.backend.service.TripTrackService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class TripServiceImpl implements TripService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripServiceImpl.class);
+
+    private static final int MAX_PAGE_SIZE = 5_000;
+
+    private final TripRepository tripRepository;
+    private final TripLocationRepository tripLocationRepository;
+    private final RouteService routeService;
+    private final RoutePreparationService routePreparationService;
+    private final DeviationDetectionService deviationDetectionService;
+    private final TripTrackService tripTrackService;
+    private final LatestPositionStore latestPositionStore;
+    private final SosDossierCache sosDossierCache;
+    private final TrackDownsamplingService trackDownsamplingService;
+    private final TripRouteService tripRouteService;
+    private final TripStateTransitionService tripStateTransitionService;
+
+    public TripServiceImpl(TripRepository tripRepository,
+                           TripLocationRepository tripLocationRepository,
+                           RouteService routeService,
+                           RoutePreparationService routePreparationService,
+                           DeviationDetectionService deviationDetectionService,
+                           TripTrackService tripTrackService,
+                           LatestPositionStore latestPositionStore,
+                           SosDossierCache sosDossierCache,
+                           TrackDownsamplingService trackDownsamplingService,
+                           TripRouteService tripRouteService,
+                           TripStateTransitionService tripStateTransitionService) {
+        this.tripRepository = tripRepository;
+        this.tripLocationRepository = tripLocationRepository;
+        this.routeService = routeService;
+        this.routePreparationService = routePreparationService;
+        this.deviationDetectionService = deviationDetectionService;
+        this.tripTrackService = tripTrackService;
+        this.latestPositionStore = latestPositionStore;
+        this.sosDossierCache = sosDossierCache;
+        this.trackDownsamplingService = trackDownsamplingService;
+        this.tripRouteService = tripRouteService;
+        this.tripStateTransitionService = tripStateTransitionService;
+    }
+
+    @Override
+    @Transactional
+    public TripRouteOptionsDto createTrip(TripCreationDto requestDto) {
+        Trip trip = new Trip();
+        trip.setTelegramChatId(requestDto.getTelegramChatId());
+        trip.setStatus(TripStatus.PENDING);
+        trip = tripRepository.save(trip);
+
+        TripRouteOptionsDto options = routeService.computeRoutes(requestDto);
+        options.setTripId(trip.getId());
+        logger.info("Trip ID {} created with {} route options", trip.getId(), options.getRouteOptions().size());
+        return options;
+    }
+
+    @Override
+    @Transactional
+    public Trip startTrip(Long tripId, RouteOptionDto selectedRoute) {
+        Trip trip = findTrip(tripId);
+        if (!tripStateTransitionService.start(tripId)) {
+            throw new IllegalStateException("Trip " + tripId + " cannot be started from status " + trip.getStatus());
+        }
+
+        routePreparationService.prepare(trip, selectedRoute.getPolyline());
+        trip.setDistance(selectedRoute.getDistance());
+        trip.setDuration(selectedRoute.getDuration());
+        trip.setSafetyScore(selectedRoute.getSafetyScore());
+        trip.setStatus(TripStatus.ACTIVE);
+        trip.setStartedAt(LocalDateTime.now());
+        trip = tripRepository.save(trip);
+        sosDossierCache.prepare(trip);
+        logger.info("Trip ID {} started", tripId);
+        return trip;
+    }
+
+    @Override
+    @Transactional
+    public CoreLocationUpdate recordLocationUpdate(Long tripId, LocationUpdateDto updateDto) {
+        Trip trip = findTrip(tripId);
+        // Tracking continues through an SOS; responders need the live position most then.
+        if (!LatestPositionStore.MONITORED.contains(trip.getStatus())) {
+            throw new IllegalStateException("Trip " + tripId + " is not being monitored (status " + trip.getStatus() + ")");
+        }
+
+        CoreLocationUpdate update = new CoreLocationUpdate(updateDto.getLat(), updateDto.getLng(), updateDto.getTimestamp());
+        update.setTrip(trip);
+        update.setRecordedAt(LocalDateTime.now());
+        update = tripLocationRepository.save(update);
+
+        latestPositionStore.update(tripId, update);
+        trip.setLatestLocation(update);
+        deviationDetectionService.checkDeviation(trip, update);
+        return update;
+    }
+
+    @Override
+    @Transactional
+    public Trip completeTrip(Long tripId) {
+        boolean completed = tripStateTransitionService.complete(tripId);
+        Trip trip = findTrip(tripId);
+        if (!completed) {
+            // Repeated completion is harmless; anything else lost a race or is not running.
+            if (trip.getStatus() == TripStatus.COMPLETED) return trip;
+            throw new IllegalStateException("Trip " + tripId + " cannot be completed from status " + trip.getStatus());
+        }
+        latestPositionStore.remove(tripId);
+        sosDossierCache.evict(tripId);
+        tripRouteService.evict(tripId);
+        logger.info("Trip ID {} completed", tripId);
+        return trip;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public TrackPageDto getLocationPage(Long tripId, String after, int limit) {
+        Trip trip = findTrip(tripId);
+        int size = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<TripTrackService.TrackPoint> points = tripTrackService.page(trip, TripTrackService.Cursor.decode(after), size);
+
+        List<TrackPointDto> dtos = new ArrayList<>(points.size());
+        for (TripTrackService.TrackPoint p : points) dtos.add(toDto(p));
+        String next = null;
+        if (points.size() == size) {
+            TripTrackService.TrackPoint last = points.get(points.size() - 1);
+            next = new TripTrackService.Cursor(last.recordedAt(), last.id()).encode();
+        }
+        return new TrackPageDto(tripId, dtos, next);
+    }
+
+    @Override
+    public TrackWriter openLocationHistory(Long tripId, double minDistanceMeters) {
+        // No surrounding transaction: each page is its own short read, so a slow client
+        // does not hold a connection for the whole stream.
+        Trip trip = findTrip(tripId);
+        return sink -> tripTrackService.stream(trip, minDistanceMeters, p -> sink.accept(toDto(p)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<TrackPointDto> getDownsampledHistory(Long tripId, Integer points, Integer zoom) {
+        return trackDownsamplingService.downsample(findTrip(tripId), points, zoom);
+    }
+
+    private static TrackPointDto toDto(TripTrackService.TrackPoint p) {
+        return new TrackPointDto(p.lat(), p.lng(), p.timestamp(), p.recordedAt(), null);
+    }
+
+    private Trip findTrip(Long tripId) {
+        return tripRepository.findById(tripId)
+                .orElseThrow(() -> new ResourceNotFoundException("Trip not found with ID: " + tripId));
+    }
+}
@@ -0,0 +1,164 @@
+package com.safewalk.springboot.backend.service.impl;
+
+import com.safewalk.springboot.backend.config.SecondLevelCacheConfig;
+import com.safewalk.springboot.backend.entity.EmergencyContact;
+import com.safewalk.springboot.backend.entity.User;
+import com.safewalk.springboot.backend.repository.UserRepository;
+import com.safewalk.springboot.backend.service.SosDossierCache;
+import com.safewalk.springboot.backend.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * User lookups (served from the second-level cache, see SecondLevelCacheConfig) and
+ * profile updates.
+ *
+ * createOrUpdate saves in its own transaction and only then evicts the user's cached
+ * entity, contact list, contacts and the user query region, plus any prepared SOS
+ * dossiers (under the old and the new chat ID), so no reader can re-cache the old state
+ * between eviction and commit.
+ */
+@Service
+public class UserServiceImpl implements UserService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
+
+    private static final String CONTACTS_ROLE = User.class.getName() + ".emergencyContacts";
+
+    private final UserRepository userRepository;
+    private final SosDossierCache sosDossierCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache cache;
+
+    public UserServiceImpl(UserRepository userRepository,
+                           SosDossierCache sosDossierCache,
+                           TransactionTemplate transactionTemplate,
+                           EntityManagerFactory entityManagerFactory) {
+        this.userRepository = userRepository;
+        this.sosDossierCache = sosDossierCache;
+        this.transactionTemplate = transactionTemplate;
+        this.cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findByTelegramChatId(Long telegramChatId) {
+        return userRepository.findByTelegramChatId(telegramChatId);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<User> findById(Long id) {
+        return userRepository.findById(id);
+    }
+
+    /**
+     * Saves the user and their contacts. An existing user (by ID, or by Telegram chat ID
+     * when no ID is given) is loaded and updated in place rather than merged, so a
+     * request without a contact list leaves the stored contacts untouched. A supplied
+     * list replaces them: contacts with a known ID are updated, new ones added, the rest
+     * removed.
+     */
+    @Override
+    public User createOrUpdate(User user) {
+        if (user == null) {
+            throw new IllegalArgumentException("user is required");
+        }
+        List<Long> contactIds = new ArrayList<>();
+        Long[] previousChatId = new Long[1];
+        User saved = transactionTemplate.execute(status -> {
+            Optional<User> found = user.getId() != null
+                    ? userRepository.findById(user.getId())
+                    : user.getTelegramChatId() != null
+                            ? userRepository.findByTelegramChatId(user.getTelegramChatId())
+                            : Optional.empty();
+            if (found.isEmpty()) {
+                if (user.getEmergencyContacts() != null) {
+                    for (EmergencyContact contact : user.getEmergencyContacts()) contact.setUser(user);
+                }
+                User created = userRepository.save(user);
+                collectIds(created.getEmergencyContacts(), contactIds);
+                return created;
+            }
+
+            User existing = found.get();
+            previousChatId[0] = existing.getTelegramChatId();
+            if (user.getTelegramChatId() != null) existing.setTelegramChatId(user.getTelegramChatId());
+            existing.setName(user.getName());
+            existing.setPhone(user.getPhone());
+            existing.setEmail(user.getEmail());
+            existing.setGender(user.getGender());
+            if (user.getEmergencyContacts() != null) {
+                collectIds(existing.getEmergencyContacts(), contactIds);
+                replaceContacts(existing, user.getEmergencyContacts());
+            }
+            userRepository.flush();
+            collectIds(existing.getEmergencyContacts(), contactIds);
+            return existing;
+        });
+        evict(saved, contactIds, previousChatId[0]);
+        logger.info("User ID {} saved", saved.getId());
+        return saved;
+    }
+
+    private static void replaceContacts(User existing, List<EmergencyContact> supplied) {
+        if (existing.getEmergencyContacts() == null) {
+            existing.setEmergencyContacts(new ArrayList<>());
+        }
+        List<EmergencyContact> contacts = existing.getEmergencyContacts();
+        Map<Long, EmergencyContact> current = new HashMap<>();
+        for (EmergencyContact contact : contacts) current.put(contact.getId(), contact);
+
+        List<EmergencyContact> kept = new ArrayList<>(supplied.size());
+        for (EmergencyContact contact : supplied) {
+            EmergencyContact managed = contact.getId() == null ? null : current.get(contact.getId());
+            if (managed != null) {
+                managed.setName(contact.getName());
+                managed.setPhone(contact.getPhone());
+                managed.setTelegramChatId(contact.getTelegramChatId());
+                kept.add(managed);
+            } else {
+                kept.add(EmergencyContact.builder()
+                        .user(existing)
+                        .name(contact.getName())
+                        .phone(contact.getPhone())
+                        .telegramChatId(contact.getTelegramChatId())
+                        .build());
+            }
+        }
+        // Same collection instance, so orphan removal deletes the dropped contacts.
+        contacts.clear();
+        contacts.addAll(kept);
+    }
+
+    private static void collectIds(List<EmergencyContact> contacts, List<Long> ids) {
+        if (contacts == null) return;
+        for (EmergencyContact contact : contacts) {
+            if (contact.getId() != null) ids.add(contact.getId());
+        }
+    }
+
+    private void evict(User user, List<Long> contactIds, Long previousChatId) {
+        cache.evictEntityData(User.class, user.getId());
+        cache.evictCollectionData(CONTACTS_ROLE, user.getId());
+        for (Long contactId : contactIds) cache.evictEntityData(EmergencyContact.class, contactId);
+        cache.evictQueryRegion(SecondLevelCacheConfig.USER_QUERIES);
+        sosDossierCache.evictUser(user.getTelegramChatId());
+        if (previousChatId != null && !Objects.equals(previousChatId, user.getTelegramChatId())) {
+            sosDossierCache.evictUser(previousChatId);
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package com.telegrambot.backend;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -10,6 +13,7 @@ import org.springframework.web.client.RestTemplate;
  * throughout the application, specifically for the TelegramBotService.
  */
 @Configuration
+@EnableScheduling
 public class Appconfig {
 
     /**
@@ -17,11 +21,17 @@ public class Appconfig {
      * RestTemplate is used to make synchronous REST calls (HTTP requests).
      * By annotating this method with @Bean, Spring registers the returned object
      * in its Application Context, making it available for injection.
+     * Connect and read timeouts are bounded so a down SafeWalk Core cannot block
+     * a user's message indefinitely.
      *
      * @return A new instance of RestTemplate.
      */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(@Value("${safewalk.core.connect-timeout-ms:2000}") int connectTimeoutMs,
+                                     @Value("${safewalk.core.read-timeout-ms:5000}") int readTimeoutMs) {
+        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
+        factory.setConnectTimeout(connectTimeoutMs);
+        factory.setReadTimeout(readTimeoutMs);
+        return new RestTemplate(factory);
     }
 }
\ No newline at end of file
@@ -2,6 +2,7 @@ package com.telegrambot.backend.config;
 
 import com.telegrambot.backend.service.ConversationService;
 import com.telegrambot.backend.service.TelegramBotListener;
+import com.telegrambot.backend.service.UpdateCheckpointService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
@@ -32,8 +33,9 @@ public class TelegramBotConfig {
      */
     @Bean
     @ConditionalOnProperty(name = "telegram.bot.enabled", havingValue = "true", matchIfMissing = true)
-    public TelegramBotListener telegramBotListener(ConversationService conversationService) {
-        return new TelegramBotListener(null, botUsername, botToken, conversationService);
+    public TelegramBotListener telegramBotListener(ConversationService conversationService,
+                                                   UpdateCheckpointService updateCheckpointService) {
+        return new TelegramBotListener(null, botUsername, botToken, conversationService, updateCheckpointService);
     }
 
     /**
@@ -0,0 +1,89 @@
+package com.telegrambot.backend.resilience;
+
+/**
+ * Minimal count-based circuit breaker for a single SafeWalk Core endpoint.
+ *
+ * CLOSED: calls pass through; consecutive failures are counted.
+ * OPEN: calls are rejected immediately until the open duration has elapsed.
+ * HALF_OPEN: a single trial call is let through; success closes the breaker,
+ * failure opens it again.
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMillis) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDurationMillis = openDurationMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return true if a call may be attempted right now.
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openDurationMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                return true;
+            case HALF_OPEN:
+            default:
+                // Only one trial call at a time while probing the endpoint.
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void onFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Non-mutating check used by schedulers: true while calls would be rejected.
+     */
+    public synchronized boolean isRejecting() {
+        if (state == State.OPEN) {
+            return System.currentTimeMillis() - openedAt < openDurationMillis;
+        }
+        return state == State.HALF_OPEN && trialInFlight;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
@@ -0,0 +1,12 @@
+package com.telegrambot.backend.resilience;
+
+/**
+ * Thrown when a call to the SafeWalk Core is rejected because the circuit
+ * breaker for that endpoint is open.
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    public CircuitOpenException(String endpoint) {
+        super("Circuit open for SafeWalk Core endpoint: " + endpoint);
+    }
+}
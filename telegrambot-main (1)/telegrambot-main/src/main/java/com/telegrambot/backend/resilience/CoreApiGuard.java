@@ -0,0 +1,169 @@
+package com.telegrambot.backend.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Wraps every blocking call from the bot to the SafeWalk Core with a per-endpoint
+ * circuit breaker and latency/outcome metrics.
+ *
+ * While an endpoint's breaker is open, calls fail fast with {@link CircuitOpenException}
+ * instead of each user message waiting for a connect timeout.
+ *
+ * A 4xx response means the Core is up and answered; it counts as a success for the
+ * breaker (outcome "client_error") and is rethrown for the caller to handle. Only 408
+ * and 429 are worth sending again ({@link #isRetryable}), no earlier than the Core's
+ * Retry-After ({@link #retryAfterMillis}); any other 4xx will be rejected again.
+ */
+@Component
+public class CoreApiGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoreApiGuard.class);
+
+    private static final long MAX_RETRY_AFTER_MILLIS = 5 * 60 * 1000L;
+
+    private final MeterRegistry meterRegistry;
+    private final int failureThreshold;
+    private final long openDurationMillis;
+    private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public CoreApiGuard(MeterRegistry meterRegistry,
+                        @Value("${safewalk.core.circuit.failure-threshold:5}") int failureThreshold,
+                        @Value("${safewalk.core.circuit.open-duration-ms:30000}") long openDurationMillis) {
+        this.meterRegistry = meterRegistry;
+        this.failureThreshold = failureThreshold;
+        this.openDurationMillis = openDurationMillis;
+    }
+
+    /**
+     * Executes a call to the given Core endpoint through its circuit breaker.
+     *
+     * @param endpoint Logical endpoint name (e.g. "sos", "trips.create").
+     * @param call The blocking call to perform.
+     * @return The call result.
+     * @throws CircuitOpenException if the endpoint's breaker is open.
+     */
+    public <T> T call(String endpoint, Supplier<T> call) {
+        CircuitBreaker breaker = breakerFor(endpoint);
+        if (!breaker.tryAcquire()) {
+            Counter.builder("safewalk.core.circuit.rejected")
+                    .tag("endpoint", endpoint)
+                    .register(meterRegistry)
+                    .increment();
+            throw new CircuitOpenException(endpoint);
+        }
+
+        long start = System.nanoTime();
+        String outcome = "failure";
+        boolean settled = false;
+        try {
+            T result = call.get();
+            breaker.onSuccess();
+            settled = true;
+            outcome = "success";
+            return result;
+        } catch (HttpClientErrorException e) {
+            breaker.onSuccess();
+            settled = true;
+            outcome = "client_error";
+            throw e;
+        } catch (RuntimeException e) {
+            CircuitBreaker.State before = breaker.getState();
+            breaker.onFailure();
+            settled = true;
+            if (before != CircuitBreaker.State.OPEN && breaker.getState() == CircuitBreaker.State.OPEN) {
+                logger.warn("Circuit for SafeWalk Core endpoint '{}' opened after failure: {}", endpoint, e.getMessage());
+            }
+            throw e;
+        } finally {
+            // Errors (e.g. OutOfMemoryError) must not leave a half-open trial slot taken forever.
+            if (!settled) {
+                breaker.onFailure();
+            }
+            Timer.builder("safewalk.core.call")
+                    .tag("endpoint", endpoint)
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Convenience overload for calls without a result.
+     */
+    public void run(String endpoint, Runnable call) {
+        call(endpoint, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    /**
+     * @return true for 408 Request Timeout and 429 Too Many Requests, which the same
+     *         request may get past later.
+     */
+    public static boolean isRetryable(HttpClientErrorException e) {
+        int status = e.getStatusCode().value();
+        return status == 408 || status == 429;
+    }
+
+    /**
+     * Delay the Core asked for in its Retry-After header (seconds or an HTTP date),
+     * capped at five minutes.
+     *
+     * @return The delay in milliseconds, or 0 if the header is absent or unreadable.
+     */
+    public static long retryAfterMillis(HttpClientErrorException e) {
+        HttpHeaders headers = e.getResponseHeaders();
+        String value = headers == null ? null : headers.getFirst(HttpHeaders.RETRY_AFTER);
+        if (value == null || value.isBlank()) {
+            return 0;
+        }
+        long millis;
+        try {
+            millis = Long.parseLong(value.trim()) * 1000;
+        } catch (NumberFormatException notSeconds) {
+            try {
+                millis = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli()
+                        - System.currentTimeMillis();
+            } catch (DateTimeParseException unreadable) {
+                return 0;
+            }
+        }
+        return Math.max(0, Math.min(millis, MAX_RETRY_AFTER_MILLIS));
+    }
+
+    /**
+     * @return true if the endpoint's breaker currently rejects calls.
+     */
+    public boolean isOpen(String endpoint) {
+        return breakerFor(endpoint).isRejecting();
+    }
+
+    private CircuitBreaker breakerFor(String endpoint) {
+        return breakers.computeIfAbsent(endpoint, name -> {
+            CircuitBreaker breaker = new CircuitBreaker(name, failureThreshold, openDurationMillis);
+            // 0 = closed, 1 = half-open, 2 = open
+            Gauge.builder("safewalk.core.circuit.state", breaker, b -> b.getState().ordinal())
+                    .tag("endpoint", name)
+                    .register(meterRegistry);
+            return breaker;
+        });
+    }
+}
@@ -0,0 +1,217 @@
+package com.telegrambot.backend.resilience;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bounded retry queue for fire-and-forget calls to the SafeWalk Core that failed
+ * (SOS, end trip, location forwarding).
+ *
+ * Tasks are ordered by priority, so pending SOS alerts are always retried before
+ * anything else. When the queue is full, the lowest-priority task is dropped to make
+ * room for a more important one. Tasks with a coalescing key (e.g. the latest location
+ * of a trip) replace an older pending task with the same key.
+ */
+@Component
+public class CoreRetryQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(CoreRetryQueue.class);
+
+    /**
+     * Retry priority; lower ordinal is retried first.
+     */
+    public enum Priority {
+        SOS, TRIP, LOCATION
+    }
+
+    private static final Comparator<RetryTask> ORDER = Comparator
+            .comparing((RetryTask t) -> t.priority)
+            .thenComparingLong(t -> t.sequence);
+
+    private final CoreApiGuard coreApiGuard;
+    private final int capacity;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final Counter droppedCounter;
+    private final MeterRegistry meterRegistry;
+
+    private final PriorityQueue<RetryTask> queue = new PriorityQueue<>(ORDER);
+    private long sequence;
+
+    public CoreRetryQueue(CoreApiGuard coreApiGuard,
+                          MeterRegistry meterRegistry,
+                          @Value("${safewalk.core.retry.capacity:500}") int capacity,
+                          @Value("${safewalk.core.retry.max-attempts:5}") int maxAttempts,
+                          @Value("${safewalk.core.retry.base-backoff-ms:1000}") long baseBackoffMillis) {
+        this.coreApiGuard = coreApiGuard;
+        this.meterRegistry = meterRegistry;
+        this.capacity = Math.max(1, capacity);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.droppedCounter = Counter.builder("safewalk.core.retry.dropped").register(meterRegistry);
+        Gauge.builder("safewalk.core.retry.queue.size", this, CoreRetryQueue::size).register(meterRegistry);
+    }
+
+    /**
+     * Queues a failed call for retry.
+     *
+     * @param priority Retry priority (SOS first).
+     * @param endpoint Core endpoint name, used for the circuit breaker.
+     * @param coalesceKey Optional key; a pending task with the same key is replaced.
+     * @param action The call to retry; must throw on failure.
+     * @return true if the task was queued.
+     */
+    public boolean enqueue(Priority priority, String endpoint, String coalesceKey, Runnable action) {
+        return enqueue(priority, endpoint, coalesceKey, action, 0);
+    }
+
+    /**
+     * Queues a failed call for retry no earlier than {@code minDelayMillis} from now, e.g.
+     * the Retry-After of a 429.
+     *
+     * @return true if the task was queued.
+     */
+    public synchronized boolean enqueue(Priority priority, String endpoint, String coalesceKey, Runnable action,
+                                        long minDelayMillis) {
+        if (coalesceKey != null) {
+            queue.removeIf(t -> coalesceKey.equals(t.coalesceKey));
+        }
+        RetryTask task = new RetryTask(priority, endpoint, coalesceKey, action, sequence++);
+        task.nextAttemptAt = System.currentTimeMillis() + Math.max(backoff(1), minDelayMillis);
+
+        if (queue.size() >= capacity) {
+            RetryTask lowest = lowestPriority();
+            if (lowest == null || ORDER.compare(task, lowest) > 0) {
+                droppedCounter.increment();
+                logger.warn("Retry queue full; dropping new {} task for endpoint {}", priority, endpoint);
+                return false;
+            }
+            queue.remove(lowest);
+            droppedCounter.increment();
+            logger.warn("Retry queue full; evicted {} task for endpoint {} to make room for {}",
+                    lowest.priority, lowest.endpoint, priority);
+        }
+        queue.add(task);
+        logger.info("Queued {} call to '{}' for retry (queue size {}).", priority, endpoint, queue.size());
+        return true;
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    /**
+     * Retries due tasks in priority order. Tasks whose endpoint breaker is open are
+     * left in the queue without consuming an attempt. A 408 or 429 answer is retried
+     * after its Retry-After; any other 4xx drops the task.
+     */
+    @Scheduled(fixedDelayString = "${safewalk.core.retry.poll-interval-ms:1000}")
+    public void drain() {
+        for (RetryTask task : dueTasks()) {
+            try {
+                coreApiGuard.run(task.endpoint, task.action);
+                Counter.builder("safewalk.core.retry.succeeded")
+                        .tag("priority", task.priority.name())
+                        .register(meterRegistry)
+                        .increment();
+                logger.info("Retried {} call to '{}' succeeded after {} attempt(s).",
+                        task.priority, task.endpoint, task.attempts + 1);
+            } catch (CircuitOpenException e) {
+                requeue(task, false, 0);
+            } catch (HttpClientErrorException e) {
+                if (CoreApiGuard.isRetryable(e)) {
+                    logger.warn("Retry of {} call to '{}' throttled: Core answered {}",
+                            task.priority, task.endpoint, e.getStatusCode());
+                    requeue(task, true, CoreApiGuard.retryAfterMillis(e));
+                } else {
+                    // The Core rejected the request itself; sending it again will not help.
+                    droppedCounter.increment();
+                    logger.warn("Dropping {} call to '{}': Core answered {}", task.priority, task.endpoint, e.getStatusCode());
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Retry of {} call to '{}' failed: {}", task.priority, task.endpoint, e.getMessage());
+                requeue(task, true, 0);
+            }
+        }
+    }
+
+    private synchronized List<RetryTask> dueTasks() {
+        long now = System.currentTimeMillis();
+        List<RetryTask> due = new ArrayList<>();
+        List<RetryTask> deferred = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            RetryTask task = queue.poll();
+            if (task.nextAttemptAt <= now && !coreApiGuard.isOpen(task.endpoint)) {
+                due.add(task);
+            } else {
+                deferred.add(task);
+            }
+        }
+        queue.addAll(deferred);
+        return due;
+    }
+
+    private synchronized void requeue(RetryTask task, boolean countAttempt, long minDelayMillis) {
+        if (countAttempt) {
+            task.attempts++;
+        }
+        if (task.attempts >= maxAttempts) {
+            droppedCounter.increment();
+            logger.error("Giving up on {} call to '{}' after {} attempts.", task.priority, task.endpoint, task.attempts);
+            return;
+        }
+        // A newer task for the same key supersedes this one.
+        if (task.coalesceKey != null && queue.stream().anyMatch(t -> task.coalesceKey.equals(t.coalesceKey))) {
+            return;
+        }
+        task.nextAttemptAt = System.currentTimeMillis() + Math.max(backoff(task.attempts + 1), minDelayMillis);
+        queue.add(task);
+    }
+
+    private RetryTask lowestPriority() {
+        RetryTask lowest = null;
+        for (RetryTask t : queue) {
+            if (lowest == null || ORDER.compare(t, lowest) > 0) {
+                lowest = t;
+            }
+        }
+        return lowest;
+    }
+
+    private long backoff(int attempt) {
+        // Exponential backoff with full jitter, capped at 32x the base delay.
+        long cap = baseBackoffMillis * (1L << Math.min(attempt - 1, 5));
+        return ThreadLocalRandom.current().nextLong(baseBackoffMillis / 2, Math.max(cap, baseBackoffMillis / 2 + 1));
+    }
+
+    private static final class RetryTask {
+        private final Priority priority;
+        private final String endpoint;
+        private final String coalesceKey;
+        private final Runnable action;
+        private final long sequence;
+        private int attempts;
+        private long nextAttemptAt;
+
+        private RetryTask(Priority priority, String endpoint, String coalesceKey, Runnable action, long sequence) {
+            this.priority = priority;
+            this.endpoint = endpoint;
+            this.coalesceKey = coalesceKey;
+            this.action = action;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.telegrambot.backend.runner;
 
 import com.telegrambot.backend.service.TelegramBotListener;
+import com.telegrambot.backend.service.UpdateCheckpointService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -24,6 +25,7 @@ public class TelegramPollingRunner implements CommandLineRunner {
     private static final Logger logger = LoggerFactory.getLogger(TelegramPollingRunner.class);
 
     private final TelegramBotListener telegramBotListener;
+    private final UpdateCheckpointService updateCheckpointService;
 
     // Configuration property to determine if polling mode should be used
     @Value("${telegram.polling.enabled:false}")
@@ -37,8 +39,10 @@ public class TelegramPollingRunner implements CommandLineRunner {
     @Value("${telegram.webhook.url:}")
     private String webhookUrl;
 
-    public TelegramPollingRunner(TelegramBotListener telegramBotListener) {
+    public TelegramPollingRunner(TelegramBotListener telegramBotListener,
+                                 UpdateCheckpointService updateCheckpointService) {
         this.telegramBotListener = telegramBotListener;
+        this.updateCheckpointService = updateCheckpointService;
     }
 
     /**
@@ -51,6 +55,12 @@ public class TelegramPollingRunner implements CommandLineRunner {
         if (pollingEnabled) {
             logger.warn("Running Telegram Bot in LONG POLLING MODE. Webhook endpoint /telegram/webhook will be inactive.");
             try {
+                // Resume after the last checkpointed update instead of replaying it
+                long lastProcessed = updateCheckpointService.getLastProcessedUpdateId();
+                if (lastProcessed >= 0) {
+                    telegramBotListener.confirmUpdatesUpTo(lastProcessed);
+                }
+
                 // Register the bot for long polling
                 TelegramBotsApi botsApi = new TelegramBotsApi(DefaultBotSession.class);
                 botsApi.registerBot(telegramBotListener);
@@ -7,6 +7,8 @@ import com.telegrambot.backend.entity.User;
 import com.telegrambot.backend.repository.TripLocationRepository;
 import com.telegrambot.backend.repository.TripRepository;
 import com.telegrambot.backend.repository.UserRepository;
+import com.telegrambot.backend.resilience.CoreApiGuard;
+import com.telegrambot.backend.resilience.CoreRetryQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -37,6 +39,8 @@ public class LocationUpdateService {
     private final TripLocationRepository tripLocationRepository;
     private final RestTemplate restTemplate;
     private final HmacUtil hmacUtil;
+    private final CoreApiGuard coreApiGuard;
+    private final CoreRetryQueue coreRetryQueue;
 
     // Base URL for the external SafeWalk Core backend (configured in application.properties)
     @Value("${safewalk.core.api-url}")
@@ -50,17 +54,23 @@ public class LocationUpdateService {
      * @param tripLocationRepository Repository for persisting location history.
      * @param restTemplate Configured RestTemplate for external communication.
      * @param hmacUtil Utility for cryptographic signature generation.
+     * @param coreApiGuard Circuit breaker around calls to the Core.
+     * @param coreRetryQueue Retry queue for forwards that failed.
      */
     public LocationUpdateService(UserRepository userRepository,
                                  TripRepository tripRepository,
                                  TripLocationRepository tripLocationRepository,
                                  RestTemplate restTemplate,
-                                 HmacUtil hmacUtil) {
+                                 HmacUtil hmacUtil,
+                                 CoreApiGuard coreApiGuard,
+                                 CoreRetryQueue coreRetryQueue) {
         this.userRepository = userRepository;
         this.tripRepository = tripRepository;
         this.tripLocationRepository = tripLocationRepository;
         this.restTemplate = restTemplate;
         this.hmacUtil = hmacUtil;
+        this.coreApiGuard = coreApiGuard;
+        this.coreRetryQueue = coreRetryQueue;
     }
 
     /**
@@ -119,7 +129,8 @@ public class LocationUpdateService {
      */
     private void forwardLocationToCore(LocationUpdateDto updateDto) {
         String url = coreApiUrl + "/api/trips/" + updateDto.getTripId() + "/locations";
-        
+        HttpEntity<String> requestEntity;
+
         try {
             // Convert DTO to JSON string
             String jsonPayload = hmacUtil.convertObjectToJson(updateDto);
@@ -132,16 +143,33 @@ public class LocationUpdateService {
             headers.setContentType(MediaType.APPLICATION_JSON);
             headers.set("X-Signature", signature);
 
-            HttpEntity<String> requestEntity = new HttpEntity<>(jsonPayload, headers);
+            requestEntity = new HttpEntity<>(jsonPayload, headers);
+        } catch (Exception e) {
+            logger.error("Failed to build location update for trip {}: {}", updateDto.getTripId(), e.getMessage(), e);
+            return;
+        }
 
+        Runnable send = () -> restTemplate.postForEntity(url, requestEntity, Void.class);
+        try {
             // Send the request
             logger.debug("Forwarding location update for trip {} to Core.", updateDto.getTripId());
-            restTemplate.postForEntity(url, requestEntity, Void.class);
+            coreApiGuard.run("trips.locations", send);
             logger.info("Successfully forwarded location update for trip {}.", updateDto.getTripId());
 
+        } catch (org.springframework.web.client.HttpClientErrorException e) {
+            if (CoreApiGuard.isRetryable(e)) {
+                logger.warn("SafeWalk Core throttled location update for trip {} ({}). Queued for retry.",
+                        updateDto.getTripId(), e.getStatusCode());
+                coreRetryQueue.enqueue(CoreRetryQueue.Priority.LOCATION, "trips.locations",
+                        "location:" + updateDto.getTripId(), send, CoreApiGuard.retryAfterMillis(e));
+            } else {
+                logger.warn("SafeWalk Core rejected location update for trip {}: {}", updateDto.getTripId(), e.getStatusCode());
+            }
         } catch (Exception e) {
-            logger.error("Failed to forward location update to SafeWalk Core at {}: {}", url, e.getMessage(), e);
-            // Non-critical error: allow the trip to continue, but log the failure.
+            logger.error("Failed to forward location update to SafeWalk Core at {}: {}", url, e.getMessage());
+            // Non-critical error: allow the trip to continue. Only the newest position per trip is retried.
+            coreRetryQueue.enqueue(CoreRetryQueue.Priority.LOCATION, "trips.locations",
+                    "location:" + updateDto.getTripId(), send);
         }
     }
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updates.GetUpdates;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 
@@ -26,6 +27,7 @@ public class TelegramBotListener extends TelegramLongPollingBot {
     private final String botUsername;
     private final String botToken;
     private final ConversationService conversationService;
+    private final UpdateCheckpointService updateCheckpointService;
 
     /**
      * Constructor for initialization via the TelegramBotConfig class.
@@ -34,17 +36,20 @@ public class TelegramBotListener extends TelegramLongPollingBot {
      * @param botUsername The bot's username (e.g., SafeWalkBot).
      * @param botToken The bot's API token.
      * @param conversationService The injected service for handling user input.
+     * @param updateCheckpointService Tracks processed update ids across restarts.
      */
     @SuppressWarnings("deprecation")
     public TelegramBotListener(DefaultBotOptions options,
                                String botUsername,
                                String botToken,
-                               ConversationService conversationService) {
+                               ConversationService conversationService,
+                               UpdateCheckpointService updateCheckpointService) {
        super(new DefaultBotOptions());
 
         this.botUsername = botUsername;
         this.botToken = botToken;
         this.conversationService = conversationService;
+        this.updateCheckpointService = updateCheckpointService;
     }
 
     /**
@@ -76,10 +81,44 @@ public class TelegramBotListener extends TelegramLongPollingBot {
      */
     @Override
     public void onUpdateReceived(Update update) {
+        // Replays after a restart must not trigger duplicate work (e.g. a second /sos).
+        if (updateCheckpointService.isDuplicate(update.getUpdateId())) {
+            logger.info("Skipping already processed update {}.", update.getUpdateId());
+            return;
+        }
+
         // Forward the update object to the core business logic service.
         // The ConversationService will determine the type of update and handle it.
         logger.debug("Update received. Forwarding to ConversationService.");
-        conversationService.handleUpdate(update);
+        try {
+            conversationService.handleUpdate(update);
+        } finally {
+            // Checkpoint even on failure so a poison update is not replayed forever.
+            updateCheckpointService.markProcessed(update.getUpdateId());
+        }
+    }
+
+    /**
+     * Confirms every update up to and including the given id with Telegram.
+     * Long polling only acknowledges updates on the following getUpdates call, so this is
+     * called once on boot (before the polling session starts) to resume exactly after the
+     * last checkpointed update instead of receiving it again.
+     *
+     * @param lastProcessedUpdateId The last update id handled before the restart.
+     */
+    public void confirmUpdatesUpTo(long lastProcessedUpdateId) {
+        try {
+            // Offset N confirms all updates below N; timeout 0 keeps the call short.
+            execute(GetUpdates.builder()
+                    .offset((int) (lastProcessedUpdateId + 1))
+                    .limit(1)
+                    .timeout(0)
+                    .build());
+            logger.info("Confirmed Telegram updates up to {}.", lastProcessedUpdateId);
+        } catch (TelegramApiException e) {
+            logger.warn("Could not confirm updates up to {}: {}. Replays will be filtered locally.",
+                    lastProcessedUpdateId, e.getMessage());
+        }
     }
 
     /**
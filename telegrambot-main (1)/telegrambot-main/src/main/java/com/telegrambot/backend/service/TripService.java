@@ -3,6 +3,9 @@ package com.telegrambot.backend.service;
 import com.telegrambot.backend.dto.SosDto;
 import com.telegrambot.backend.dto.TripCreationDto;
 import com.telegrambot.backend.dto.RouteOptionDto;
+import com.telegrambot.backend.resilience.CircuitOpenException;
+import com.telegrambot.backend.resilience.CoreApiGuard;
+import com.telegrambot.backend.resilience.CoreRetryQueue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -24,7 +27,8 @@ import java.util.List;
  * related to trip creation, retrieval, and actions (SOS, End Trip).
  *
  * It uses RestTemplate for synchronous HTTP calls and HmacUtil for request
- * signing.
+ * signing. Every call goes through CoreApiGuard (per-endpoint circuit breaker);
+ * failed SOS and end-trip calls are handed to CoreRetryQueue.
  */
 @Service
 public class TripService {
@@ -33,14 +37,19 @@ public class TripService {
 
     private final RestTemplate restTemplate;
     private final HmacUtil hmacUtil;
+    private final CoreApiGuard coreApiGuard;
+    private final CoreRetryQueue coreRetryQueue;
 
     // Base URL for the external SafeWalk API, injected from application.properties
     @Value("${safewalk.api.base-url:http://localhost:8081}")
     private String apiBaseUrl;
 
-    public TripService(RestTemplate restTemplate, HmacUtil hmacUtil) {
+    public TripService(RestTemplate restTemplate, HmacUtil hmacUtil,
+                       CoreApiGuard coreApiGuard, CoreRetryQueue coreRetryQueue) {
         this.restTemplate = restTemplate;
         this.hmacUtil = hmacUtil;
+        this.coreApiGuard = coreApiGuard;
+        this.coreRetryQueue = coreRetryQueue;
     }
 
     /**
@@ -64,12 +73,15 @@ public class TripService {
 
             // 3. Send request
             HttpEntity<String> entity = new HttpEntity<>(jsonPayload, headers);
-            ResponseEntity<Long> response = restTemplate.postForEntity(uri, entity, Long.class);
+            ResponseEntity<Long> response = coreApiGuard.call("trips.create",
+                    () -> restTemplate.postForEntity(uri, entity, Long.class));
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 logger.info("Trip created successfully. Trip ID: {}", response.getBody());
                 return response.getBody();
             }
+        } catch (CircuitOpenException e) {
+            logger.warn("SafeWalk Core unavailable, failing trip creation fast: {}", e.getMessage());
         } catch (org.springframework.web.client.HttpClientErrorException e) {
             if (e.getStatusCode().value() == 409) {
                 logger.error(
@@ -91,20 +103,37 @@ public class TripService {
      */
     public void triggerSos(SosDto sosDto) {
         final String uri = apiBaseUrl + "/api/sos";
+        final HttpEntity<String> entity;
         try {
             String jsonPayload = hmacUtil.convertObjectToJson(sosDto);
             String signature = hmacUtil.generateSignature(jsonPayload);
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
             headers.set("X-Signature", signature);
+            entity = new HttpEntity<>(jsonPayload, headers);
+        } catch (Exception e) {
+            logger.error("Failed to build SOS request for Trip {}: {}", sosDto.getTripId(), e.getMessage(), e);
+            return;
+        }
 
-            HttpEntity<String> entity = new HttpEntity<>(jsonPayload, headers);
-            restTemplate.postForEntity(uri, entity, Void.class);
+        Runnable send = () -> restTemplate.postForEntity(uri, entity, Void.class);
+        try {
+            coreApiGuard.run("sos", send);
             logger.info("SOS triggered successfully for Trip ID: {}", sosDto.getTripId());
-
+        } catch (org.springframework.web.client.HttpClientErrorException e) {
+            if (CoreApiGuard.isRetryable(e)) {
+                logger.error("SafeWalk Core throttled SOS for Trip {} ({}). Queued for priority retry.",
+                        sosDto.getTripId(), e.getStatusCode());
+                coreRetryQueue.enqueue(CoreRetryQueue.Priority.SOS, "sos", "sos:" + sosDto.getTripId(), send,
+                        CoreApiGuard.retryAfterMillis(e));
+            } else {
+                logger.error("SafeWalk Core rejected SOS for Trip {}: {}", sosDto.getTripId(), e.getStatusCode());
+            }
         } catch (Exception e) {
-            logger.error("Failed to trigger SOS for Trip {} with SafeWalk Core backend: {}", sosDto.getTripId(),
-                    e.getMessage(), e);
+            logger.error("Failed to trigger SOS for Trip {} with SafeWalk Core backend: {}. Queued for priority retry.",
+                    sosDto.getTripId(), e.getMessage());
+            // SOS retries jump ahead of every other pending call.
+            coreRetryQueue.enqueue(CoreRetryQueue.Priority.SOS, "sos", "sos:" + sosDto.getTripId(), send);
         }
     }
 
@@ -120,10 +149,20 @@ public class TripService {
             // URL/path if needed.
             // For simplicity, we assume no body and no signing of the URL path is required
             // here.
-            restTemplate.delete(uri, tripId);
+            coreApiGuard.run("trips.end", () -> restTemplate.delete(uri, tripId));
             logger.info("Trip ID: {} ended successfully with SafeWalk Core backend.", tripId);
+        } catch (org.springframework.web.client.HttpClientErrorException e) {
+            if (CoreApiGuard.isRetryable(e)) {
+                logger.warn("SafeWalk Core throttled ending Trip {} ({}). Queued for retry.", tripId, e.getStatusCode());
+                coreRetryQueue.enqueue(CoreRetryQueue.Priority.TRIP, "trips.end", "end:" + tripId,
+                        () -> restTemplate.delete(uri, tripId), CoreApiGuard.retryAfterMillis(e));
+            } else {
+                logger.warn("SafeWalk Core rejected ending Trip {}: {}", tripId, e.getStatusCode());
+            }
         } catch (Exception e) {
-            logger.error("Failed to end Trip {} with SafeWalk Core backend: {}", tripId, e.getMessage(), e);
+            logger.error("Failed to end Trip {} with SafeWalk Core backend: {}. Queued for retry.", tripId, e.getMessage());
+            coreRetryQueue.enqueue(CoreRetryQueue.Priority.TRIP, "trips.end", "end:" + tripId,
+                    () -> restTemplate.delete(uri, tripId));
         }
     }
 
@@ -150,16 +189,19 @@ public class TripService {
             HttpEntity<String> entity = new HttpEntity<>(jsonPayload, headers);
 
             // Use exchange for a POST that returns a list of objects
-            ResponseEntity<List<RouteOptionDto>> response = restTemplate.exchange(
-                    uri,
-                    HttpMethod.POST,
-                    entity,
-                    new ParameterizedTypeReference<List<RouteOptionDto>>() {
-                    });
+            ResponseEntity<List<RouteOptionDto>> response = coreApiGuard.call("trips.route-options",
+                    () -> restTemplate.exchange(
+                            uri,
+                            HttpMethod.POST,
+                            entity,
+                            new ParameterizedTypeReference<List<RouteOptionDto>>() {
+                            }));
 
             if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
                 return response.getBody(); // ✔ No cast needed
             }
+        } catch (CircuitOpenException e) {
+            logger.warn("SafeWalk Core unavailable, failing route options fast: {}", e.getMessage());
         } catch (Exception e) {
             logger.error("Failed to fetch route options from SafeWalk Core backend: {}", e.getMessage(), e);
         }
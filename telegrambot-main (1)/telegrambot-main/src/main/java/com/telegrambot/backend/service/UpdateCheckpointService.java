@@ -0,0 +1,201 @@
+package com.telegrambot.backend.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Durable checkpoint of the Telegram updates the bot has already handled.
+ *
+ * In long polling mode Telegram only considers an update confirmed once the next
+ * getUpdates call is made with a higher offset, so anything handled right before a
+ * restart is delivered again on boot. This service keeps the last processed update_id
+ * and a small ring of recently processed ids in a memory-mapped file, which lets the
+ * polling runner confirm the old offset before the session starts and lets the listener
+ * drop replays (e.g. a duplicate /sos) that still get through.
+ *
+ * File layout (fixed size, HEADER_BYTES + 8 * window):
+ * - long  format marker
+ * - long  last processed update_id
+ * - int   ring write position
+ * - int   ring capacity
+ * - long[capacity] recently processed update_ids
+ */
+@Service
+public class UpdateCheckpointService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpdateCheckpointService.class);
+
+    private static final long FORMAT_MARKER = 0x5357434b50543031L; // "SWCKPT01"
+    private static final int HEADER_BYTES = 8 + 8 + 4 + 4;
+    private static final int LAST_ID_OFFSET = 8;
+    private static final int RING_POS_OFFSET = 16;
+    private static final int RING_CAPACITY_OFFSET = 20;
+    private static final long EMPTY_SLOT = -1L;
+
+    private final Path checkpointFile;
+    private final int window;
+    private final Timer firstUpdateTimer;
+
+    private MappedByteBuffer buffer;
+    private long[] recentIds;
+    private int ringPosition;
+    private long lastProcessedUpdateId = EMPTY_SLOT;
+    private boolean firstUpdateSeen;
+
+    public UpdateCheckpointService(@Value("${telegram.polling.checkpoint-file:data/telegram-update-checkpoint.bin}") String checkpointFile,
+                                   @Value("${telegram.polling.dedupe-window:256}") int window,
+                                   MeterRegistry meterRegistry) {
+        this.checkpointFile = Paths.get(checkpointFile);
+        this.window = Math.max(16, window);
+        this.firstUpdateTimer = Timer.builder("telegram.bot.startup.first_update")
+                .description("Time from JVM start until the first update was processed")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Maps the checkpoint file and restores the last offset and dedupe window from it.
+     * A missing or incompatible file simply starts a fresh checkpoint.
+     */
+    @PostConstruct
+    public synchronized void open() {
+        recentIds = new long[window];
+        Arrays.fill(recentIds, EMPTY_SLOT);
+        try {
+            if (checkpointFile.getParent() != null) {
+                Files.createDirectories(checkpointFile.getParent());
+            }
+            boolean existed = Files.exists(checkpointFile) && Files.size(checkpointFile) >= HEADER_BYTES;
+            try (FileChannel channel = FileChannel.open(checkpointFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // The mapping stays valid after the channel is closed.
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + 8L * window);
+            }
+            if (existed && buffer.getLong(0) == FORMAT_MARKER) {
+                restore();
+            } else {
+                initialise();
+            }
+        } catch (IOException e) {
+            // The bot must keep working without a checkpoint; it just loses restart dedupe.
+            logger.error("Could not open update checkpoint {}: {}. Continuing without persistence.",
+                    checkpointFile, e.getMessage(), e);
+            buffer = null;
+        }
+    }
+
+    private void restore() {
+        lastProcessedUpdateId = buffer.getLong(LAST_ID_OFFSET);
+        int storedCapacity = buffer.getInt(RING_CAPACITY_OFFSET);
+        if (storedCapacity == window) {
+            ringPosition = Math.floorMod(buffer.getInt(RING_POS_OFFSET), window);
+            for (int i = 0; i < window; i++) {
+                recentIds[i] = buffer.getLong(HEADER_BYTES + 8 * i);
+            }
+        } else {
+            // Window size changed between runs: keep the offset, start a new ring.
+            writeRing();
+        }
+        logger.info("Restored update checkpoint from {}: last processed update_id={}",
+                checkpointFile, lastProcessedUpdateId);
+    }
+
+    private void initialise() {
+        buffer.putLong(0, FORMAT_MARKER);
+        buffer.putLong(LAST_ID_OFFSET, lastProcessedUpdateId);
+        writeRing();
+        logger.info("Created new update checkpoint at {}", checkpointFile);
+    }
+
+    private void writeRing() {
+        buffer.putInt(RING_POS_OFFSET, ringPosition);
+        buffer.putInt(RING_CAPACITY_OFFSET, window);
+        for (int i = 0; i < window; i++) {
+            buffer.putLong(HEADER_BYTES + 8 * i, recentIds[i]);
+        }
+    }
+
+    /**
+     * @return The last update_id that was fully processed, or -1 if none was recorded yet.
+     */
+    public synchronized long getLastProcessedUpdateId() {
+        return lastProcessedUpdateId;
+    }
+
+    /**
+     * Checks whether an update was already handled.
+     * Ids above the checkpoint are always new. Ids inside the dedupe window are looked up
+     * in the ring (so out-of-order delivery in webhook mode still works); anything older
+     * than the window has already been confirmed and is treated as a replay.
+     *
+     * @param updateId The Telegram update_id.
+     * @return true if the update should be skipped.
+     */
+    public synchronized boolean isDuplicate(Integer updateId) {
+        if (updateId == null || updateId > lastProcessedUpdateId) {
+            return false;
+        }
+        for (long recent : recentIds) {
+            if (recent == updateId) {
+                return true;
+            }
+        }
+        return lastProcessedUpdateId - updateId >= window;
+    }
+
+    /**
+     * Records an update as processed. The write goes to the mapped file, so it survives a
+     * process crash without an explicit flush on every update.
+     *
+     * @param updateId The Telegram update_id.
+     */
+    public synchronized void markProcessed(Integer updateId) {
+        if (updateId == null) {
+            return;
+        }
+        recentIds[ringPosition] = updateId;
+        int slot = ringPosition;
+        ringPosition = (ringPosition + 1) % window;
+        lastProcessedUpdateId = Math.max(lastProcessedUpdateId, updateId);
+
+        if (buffer != null) {
+            buffer.putLong(HEADER_BYTES + 8 * slot, updateId);
+            buffer.putInt(RING_POS_OFFSET, ringPosition);
+            buffer.putLong(LAST_ID_OFFSET, lastProcessedUpdateId);
+        }
+
+        if (!firstUpdateSeen) {
+            firstUpdateSeen = true;
+            long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+            firstUpdateTimer.record(Duration.ofMillis(uptimeMillis));
+            logger.info("First update (id={}) processed {} ms after JVM start.", updateId, uptimeMillis);
+        }
+    }
+
+    /**
+     * Flushes the mapped checkpoint to disk on shutdown.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (buffer != null) {
+            buffer.force();
+            logger.info("Update checkpoint flushed at update_id={}", lastProcessedUpdateId);
+        }
+    }
+}
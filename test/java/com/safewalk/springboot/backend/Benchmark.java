@@ -0,0 +1,21 @@
+package com.safewalk.springboot.backend;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a benchmark test class. Benchmarks are skipped by a plain {@code mvn test} and run
+ * with {@code mvn -Pbenchmark test}, which selects the "benchmark" tag and sets
+ * {@code safewalk.benchmark=true}. Results are logged through {@link LatencyStats}.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Tag("benchmark")
+@EnabledIfSystemProperty(named = "safewalk.benchmark", matches = "true")
+public @interface Benchmark {
+}
@@ -0,0 +1,81 @@
+package com.safewalk.springboot.backend;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Latency samples of one benchmark series, with percentiles for the log line, plus
+ * allocation and retained heap measurement for the benchmarks that compare memory.
+ */
+public final class LatencyStats {
+
+    private final String name;
+    private long[] nanos = new long[256];
+    private int count;
+
+    public LatencyStats(String name) {
+        this.name = name;
+    }
+
+    public <T> T time(Supplier<T> call) {
+        long start = System.nanoTime();
+        T result = call.get();
+        record(System.nanoTime() - start);
+        return result;
+    }
+
+    public void record(long elapsedNanos) {
+        if (count == nanos.length) nanos = Arrays.copyOf(nanos, count * 2);
+        nanos[count++] = elapsedNanos;
+    }
+
+    public int count() {
+        return count;
+    }
+
+    /**
+     * Nearest-rank percentile, {@code p} in [0, 100].
+     */
+    public long percentileNanos(double p) {
+        if (count == 0) throw new IllegalStateException("no samples for " + name);
+        long[] sorted = Arrays.copyOf(nanos, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(p / 100 * count);
+        return sorted[Math.max(0, Math.min(count - 1, rank - 1))];
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: n=%d p50=%.3f ms p95=%.3f ms max=%.3f ms", name, count,
+                percentileNanos(50) / 1e6, percentileNanos(95) / 1e6, percentileNanos(100) / 1e6);
+    }
+
+    /**
+     * Bytes allocated by the current thread while running {@code work}.
+     */
+    public static long allocatedBytes(Runnable work) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        work.run();
+        return threads.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    /**
+     * Heap still in use after a full GC while the result of {@code load} is reachable,
+     * compared with before it ran. Only meaningful for results of several megabytes.
+     */
+    public static long retainedBytes(Supplier<?> load) {
+        long before = usedAfterGc();
+        Object result = load.get();
+        long after = usedAfterGc();
+        Reference.reachabilityFence(result);
+        return after - before;
+    }
+
+    private static long usedAfterGc() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,111 @@
+package com.safewalk.springboot.backend.config;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Latency of the per-trip location queries as history grows, on a core_location_updates
+ * partitioned by LocationPartitionManager in a PostgreSQL container (skipped without Docker).
+ *
+ * Today's trips stay the same while older days are added. The latest-position and
+ * keyset-page queries are bounded by the trip start, so they only touch today's partition
+ * and their median latency must not grow with the history behind them.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class LocationPartitionLatencyTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocationPartitionLatencyTest.class);
+
+    private static final int TRIPS = 1_000;
+    private static final int ROWS_PER_DAY = 20_000;
+    private static final int QUERIES = 300;
+
+    @Container
+    private static final PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:17-alpine");
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE trips (id bigint PRIMARY KEY)");
+        jdbcTemplate.execute("INSERT INTO trips SELECT g FROM generate_series(1, " + TRIPS + ") g");
+
+        LocationPartitionManager manager = new LocationPartitionManager(dataSource,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), 365, 1, true);
+        manager.initialize();
+        assertTrue(manager.isPartitioned(), "table was not partitioned");
+        insertDay(LocalDate.now());
+    }
+
+    @Test
+    void historyQueriesStayFlatAsHistoryGrows() {
+        int[] historyDays = {1, 8, 32};
+        long[] medians = new long[historyDays.length];
+        int days = 0;
+        for (int step = 0; step < historyDays.length; step++) {
+            while (days < historyDays[step]) insertDay(LocalDate.now().minusDays(++days));
+            jdbcTemplate.execute("ANALYZE " + LocationPartitionManager.TABLE);
+            medians[step] = medianNanos();
+            logger.info("{} days of history ({} rows): median {} µs per trip lookup",
+                    days, (long) (days + 1) * ROWS_PER_DAY, medians[step] / 1_000);
+        }
+        // Allow for noise, but not for growth with the 32x larger history.
+        assertTrue(medians[2] <= 3 * medians[0] + 2_000_000,
+                "median grew from " + medians[0] / 1_000 + " µs at 1 day to " + medians[2] / 1_000 + " µs at 32 days");
+    }
+
+    private long medianNanos() {
+        Random random = new Random(1);
+        LocalDateTime startOfToday = LocalDate.now().atStartOfDay();
+        long[] nanos = new long[QUERIES];
+        for (int q = 0; q < QUERIES; q++) {
+            long trip = 1 + random.nextInt(TRIPS);
+            long start = System.nanoTime();
+            // Latest position of a trip that started today.
+            jdbcTemplate.queryForList("SELECT id, latitude, longitude FROM " + LocationPartitionManager.TABLE
+                    + " WHERE trip_id = ? AND recorded_at >= ? ORDER BY recorded_at DESC, id DESC LIMIT 1",
+                    trip, startOfToday);
+            // First keyset page of the same trip's history, bounded by its start.
+            jdbcTemplate.queryForList("SELECT id, latitude, longitude, \"timestamp\", recorded_at FROM "
+                    + LocationPartitionManager.TABLE + " WHERE trip_id = ? AND recorded_at >= ? "
+                    + "AND (recorded_at > ? OR id > ?) ORDER BY recorded_at, id LIMIT 100",
+                    trip, startOfToday, startOfToday, -1L);
+            nanos[q] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[QUERIES / 2];
+    }
+
+    private void insertDay(LocalDate day) {
+        String partition = LocationPartitionManager.TABLE + "_p" + day.format(DateTimeFormatter.BASIC_ISO_DATE);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partition + " PARTITION OF " + LocationPartitionManager.TABLE
+                + " FOR VALUES FROM ('" + day + "') TO ('" + day.plusDays(1) + "')");
+        jdbcTemplate.update("INSERT INTO " + LocationPartitionManager.TABLE
+                + " (latitude, longitude, trip_id, recorded_at) "
+                + "SELECT 52.5 + random() * 0.05, 13.4 + random() * 0.05, 1 + g % " + TRIPS + ", "
+                + "?::timestamp + (g % 86400) * interval '1 second' FROM generate_series(1, " + ROWS_PER_DAY + ") g",
+                day.atStartOfDay());
+    }
+}
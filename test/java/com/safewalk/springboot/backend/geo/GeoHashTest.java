@@ -0,0 +1,83 @@
+package com.safewalk.springboot.backend.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoHashTest {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+
+    @Test
+    void encodesKnownHash() {
+        assertEquals("u4pruydqqvj", GeoHash.encode(57.64911, 10.40744, 11));
+        assertEquals("u4pru", GeoHash.encode(57.64911, 10.40744, 5));
+    }
+
+    @Test
+    void longFormMatchesStringForm() {
+        String alphabet = "0123456789bcdefghjkmnpqrstuvwxyz";
+        Random random = new Random(7);
+        for (int n = 0; n < 1_000; n++) {
+            double lat = random.nextDouble() * 180 - 90;
+            double lng = random.nextDouble() * 360 - 180;
+            long expected = 0;
+            for (char c : GeoHash.encode(lat, lng, 9).toCharArray()) expected = (expected << 5) | alphabet.indexOf(c);
+            assertEquals(expected, GeoHash.encodeLong(lat, lng, 9));
+        }
+    }
+
+    @Test
+    void upperBoundIsExclusiveEndOfPrefixRange() {
+        assertEquals("abd", GeoHash.upperBound("abc"));
+        assertEquals("c", GeoHash.upperBound("bz"));
+        assertNull(GeoHash.upperBound("zz"));
+        String inside = GeoHash.encode(52.52, 13.405, 9);
+        String cell = inside.substring(0, 5);
+        String end = GeoHash.upperBound(cell);
+        assertTrue(inside.compareTo(cell) >= 0 && inside.compareTo(end) < 0);
+    }
+
+    @Test
+    void coveringContainsEveryPointOfTheBox() {
+        Random random = new Random(42);
+        for (int n = 0; n < 500; n++) {
+            double lat = random.nextDouble() * 160 - 80;
+            double lng = random.nextDouble() * 350 - 175;
+            double radius = 50 + random.nextDouble() * 5_000;
+            double dLat = radius / METERS_PER_DEGREE;
+            double dLng = radius / (METERS_PER_DEGREE * Math.cos(Math.toRadians(lat)));
+            List<String> cells = GeoHash.covering(lat - dLat, lng - dLng, lat + dLat, lng + dLng, GeoHash.STORED_PRECISION);
+            assertTrue(cells.size() <= 9, "at most 3 x 3 cells");
+
+            for (int i = 0; i <= 10; i++) {
+                for (int j = 0; j <= 10; j++) {
+                    String hash = GeoHash.encode(lat - dLat + i * dLat / 5, lng - dLng + j * dLng / 5, GeoHash.STORED_PRECISION);
+                    assertTrue(cells.stream().anyMatch(hash::startsWith), "point outside covering: " + hash);
+                }
+            }
+        }
+    }
+
+    @Test
+    void coveringKeepsFinePrecisionForSmallRadius() {
+        double lat = 52.52, lng = 13.405, radius = 500;
+        double dLat = radius / METERS_PER_DEGREE;
+        double dLng = radius / (METERS_PER_DEGREE * Math.cos(Math.toRadians(lat)));
+        List<String> cells = GeoHash.covering(lat - dLat, lng - dLng, lat + dLat, lng + dLng, GeoHash.STORED_PRECISION);
+        assertEquals(9, cells.size());
+        cells.forEach(cell -> assertEquals(6, cell.length()));
+    }
+
+    @Test
+    void neighbourhoodWrapsAtAntimeridian() {
+        List<String> cells = GeoHash.neighbourhood(0.0, 179.999, 5);
+        assertEquals(9, cells.size());
+        assertTrue(cells.contains(GeoHash.encode(0.0, -179.99, 5)));
+    }
+}
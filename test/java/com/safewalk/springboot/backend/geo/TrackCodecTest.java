@@ -0,0 +1,69 @@
+package com.safewalk.springboot.backend.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrackCodecTest {
+
+    @Test
+    void roundTripsTimesAndCoordinates() {
+        TrackCodec.Track track = walk(1_000);
+        TrackCodec.Track decoded = TrackCodec.decode(TrackCodec.encode(track));
+
+        assertEquals(track.size(), decoded.size());
+        assertArrayEquals(track.recordedAt(), decoded.recordedAt());
+        assertArrayEquals(track.deviceTime(), decoded.deviceTime());
+        for (int i = 0; i < track.points().length; i++) {
+            assertEquals(track.points()[i], decoded.points()[i], 1e-6);
+        }
+    }
+
+    @Test
+    void keepsMissingDeviceTimes() {
+        TrackCodec.Track track = walk(10);
+        track.deviceTime()[3] = Long.MIN_VALUE;
+        assertEquals(Long.MIN_VALUE, TrackCodec.decode(TrackCodec.encode(track)).deviceTime()[3]);
+    }
+
+    @Test
+    void roundTripsEmptyTrack() {
+        TrackCodec.Track empty = new TrackCodec.Track(new long[0], new long[0], new double[0]);
+        assertEquals(0, TrackCodec.decode(TrackCodec.encode(empty)).size());
+    }
+
+    @Test
+    void steadyTrackCompressesWell() {
+        TrackCodec.Track track = walk(10_000);
+        // A location row costs ~136 bytes in PostgreSQL; the archive should be a small fraction of that.
+        assertTrue(TrackCodec.encode(track).length < track.size() * 8);
+    }
+
+    @Test
+    void rejectsCorruptData() {
+        byte[] data = TrackCodec.encode(walk(100));
+        assertThrows(IllegalArgumentException.class, () -> TrackCodec.decode(Arrays.copyOf(data, data.length / 2)));
+        assertThrows(IllegalArgumentException.class, () -> TrackCodec.decode(new byte[] {1, 2, 3}));
+    }
+
+    /** A walk with an update every ~5 s, device clocks slightly behind. */
+    private static TrackCodec.Track walk(int n) {
+        long[] recordedAt = new long[n];
+        long[] deviceTime = new long[n];
+        double[] points = new double[2 * n];
+        long t = 1_700_000_000_000L;
+        for (int i = 0; i < n; i++) {
+            t += 5_000 + (i % 7) * 13;
+            recordedAt[i] = t;
+            deviceTime[i] = t - 300 - (i % 3);
+            points[2 * i] = 52.52 + i * 0.00003;
+            points[2 * i + 1] = 13.405 + Math.sin(i / 50.0) * 0.001;
+        }
+        return new TrackCodec.Track(recordedAt, deviceTime, points);
+    }
+}
@@ -0,0 +1,74 @@
+package com.safewalk.springboot.backend.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TrackDownsamplerTest {
+
+    @Test
+    void returnsEveryPointWhenUnderTarget() {
+        double[] points = line(5);
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, TrackDownsampler.select(points, 10, null));
+    }
+
+    @Test
+    void keepsEndsAndStaysNearTarget() {
+        double[] points = line(10_000);
+        int[] keep = TrackDownsampler.select(points, 200, null);
+
+        assertEquals(0, keep[0]);
+        assertEquals(9_999, keep[keep.length - 1]);
+        assertTrue(Math.abs(keep.length - 200) <= 2, "kept " + keep.length);
+        assertSortedAndUnique(keep);
+    }
+
+    @Test
+    void keepsRequiredPoints() {
+        double[] points = line(5_000);
+        boolean[] required = new boolean[5_000];
+        required[17] = required[2_500] = required[4_998] = true;
+        int[] keep = TrackDownsampler.select(points, 50, required);
+
+        for (int i : new int[] {17, 2_500, 4_998}) assertTrue(Arrays.binarySearch(keep, i) >= 0, "dropped " + i);
+        assertSortedAndUnique(keep);
+    }
+
+    @Test
+    void keepsTheCornerOfATurn() {
+        // East for 500 points, then north for 500: LTTB must keep the corner.
+        int n = 1_000;
+        double[] points = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            points[2 * i] = 52.0 + (i < 500 ? 0 : (i - 499) * 0.0001);
+            points[2 * i + 1] = 13.0 + Math.min(i, 499) * 0.0001;
+        }
+        int[] keep = TrackDownsampler.select(points, 10, null);
+        assertTrue(Arrays.stream(keep).anyMatch(i -> Math.abs(i - 499) <= 1), Arrays.toString(keep));
+    }
+
+    @Test
+    void zoomTargetGrowsWithZoom() {
+        double[] points = line(10_000);
+        int low = TrackDownsampler.targetForZoom(points, 10, 3.0);
+        int high = TrackDownsampler.targetForZoom(points, 16, 3.0);
+        assertTrue(low >= 2 && low < high && high <= 10_000);
+    }
+
+    private static double[] line(int n) {
+        double[] points = new double[2 * n];
+        for (int i = 0; i < n; i++) {
+            points[2 * i] = 52.52 + i * 0.00005 + Math.sin(i / 30.0) * 0.0002;
+            points[2 * i + 1] = 13.405 + i * 0.00005;
+        }
+        return points;
+    }
+
+    private static void assertSortedAndUnique(int[] keep) {
+        for (int i = 1; i < keep.length; i++) assertTrue(keep[i - 1] < keep[i], "not strictly increasing at " + i);
+    }
+}
@@ -0,0 +1,78 @@
+package com.safewalk.springboot.backend.integration.tomtom;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeocodeCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void expandsStreetTypesOnlyAfterAStreetName() {
+        assertEquals("12 main street", GeocodeCache.normalize("12, Main St."));
+        assertEquals(GeocodeCache.normalize("St Mary's Road"), GeocodeCache.normalize("St. Mary's Rd"));
+        assertEquals("st marys road", GeocodeCache.normalize("St Mary's Road"));
+        assertEquals("10 st james square", GeocodeCache.normalize("10 St James Sq"));
+        assertEquals("apartment 4 near station", GeocodeCache.normalize("Apt 4, nr Station"));
+    }
+
+    @Test
+    void keepsSingleLetterTokens() {
+        assertNotEquals(GeocodeCache.normalize("Block E"), GeocodeCache.normalize("Block East"));
+        assertEquals("e street", GeocodeCache.normalize("E St"));
+    }
+
+    @Test
+    void distinguishesMissesFromCachedNotFound() {
+        GeocodeCache cache = cache(dir.resolve("geocode.bin"));
+        cache.put("nowhere", null);
+        cache.put("somewhere", "52.52,13.405");
+
+        assertFalse(cache.get("elsewhere").cached());
+        GeocodeCache.Lookup notFound = cache.get("nowhere");
+        assertTrue(notFound.cached());
+        assertNull(notFound.latLng());
+        assertEquals("52.52,13.405", cache.get("somewhere").latLng());
+    }
+
+    @Test
+    void replaysEntriesAfterRestart() {
+        Path file = dir.resolve("geocode.bin");
+        GeocodeCache first = cache(file);
+        first.put("somewhere", "52.52,13.405");
+        first.close();
+
+        assertEquals("52.52,13.405", cache(file).get("somewhere").latLng());
+    }
+
+    @Test
+    void discardsALogShorterThanTheHeader() throws Exception {
+        Path file = dir.resolve("geocode.bin");
+        Files.write(file, new byte[]{0x53, 0x57, 0x47});
+
+        GeocodeCache cache = cache(file);
+        cache.put("somewhere", "52.52,13.405");
+        cache.close();
+
+        assertEquals("52.52,13.405", cache(file).get("somewhere").latLng());
+    }
+
+    private static GeocodeCache cache(Path file) {
+        GeocodeCache cache = new GeocodeCache(file.toString(), 100, Duration.ofDays(30), Duration.ofHours(6),
+                new SimpleMeterRegistry());
+        cache.warmUp();
+        return cache;
+    }
+}
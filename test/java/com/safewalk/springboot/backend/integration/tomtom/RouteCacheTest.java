@@ -0,0 +1,53 @@
+package com.safewalk.springboot.backend.integration.tomtom;
+
+import com.safewalk.springboot.backend.geo.GeoUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class RouteCacheTest {
+
+    private static final double[] POINTS = {52.5200, 13.4050, 52.5250, 13.4100, 52.5300, 13.4150};
+    private static final Map<String, Object> ROUTE = Map.of("id", 1, "distanceMeters", 1_300.0,
+            "durationSec", 1_000.0, "polyline", "", "points", POINTS);
+
+    @Test
+    void splicesTheCallersEndpointsOntoASharedRoute() {
+        String source = "52.52015,13.40520";
+        String destination = "52.52985,13.41480";
+
+        Map<String, Object> fitted = RouteCache.fitEndpoints(List.of(ROUTE), source, destination).get(0);
+
+        double[] points = (double[]) fitted.get("points");
+        assertEquals(POINTS.length + 4, points.length);
+        assertArrayEquals(new double[]{52.52015, 13.40520}, new double[]{points[0], points[1]});
+        assertArrayEquals(new double[]{52.52985, 13.41480},
+                new double[]{points[points.length - 2], points[points.length - 1]});
+        double extra = GeoUtils.haversineMeters(52.52015, 13.40520, 52.5200, 13.4050)
+                + GeoUtils.haversineMeters(52.5300, 13.4150, 52.52985, 13.41480);
+        assertEquals(1_300.0 + extra, (Double) fitted.get("distanceMeters"), 1e-6);
+        assertEquals(1_000.0 * (1_300.0 + extra) / 1_300.0, (Double) fitted.get("durationSec"), 1e-6);
+        assertSame(POINTS, ROUTE.get("points"), "cached route must not change");
+    }
+
+    @Test
+    void leavesRoutesThatAlreadyMatchTheEndpoints() {
+        List<Map<String, Object>> fitted = RouteCache.fitEndpoints(List.of(ROUTE), "52.5200,13.4050", "52.5300,13.4150");
+
+        assertSame(ROUTE, fitted.get(0));
+    }
+
+    @Test
+    void leavesStubsAndFreeTextAlone() {
+        Map<String, Object> stub = Map.of("id", 1, "distanceMeters", 1_000.0, "durationSec", 720.0, "polyline", "");
+        List<Map<String, Object>> routes = List.of(stub);
+
+        assertSame(stub, RouteCache.fitEndpoints(routes, "52.52,13.405", "52.53,13.415").get(0));
+        assertSame(routes, RouteCache.fitEndpoints(routes, "Alexanderplatz", "52.53,13.415"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.safewalk.springboot.backend.integration.tomtom;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    @Test
+    void burstIsAvailableImmediately() {
+        TokenBucket bucket = new TokenBucket(1, 3);
+        assertTrue(bucket.tryAcquire());
+        assertEquals(0, bucket.reserve(0));
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+    }
+
+    @Test
+    void reserveHandsOutFutureSlotsAtTheConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        assertEquals(0, bucket.reserve(0));
+        long first = bucket.reserve(TimeUnit.SECONDS.toNanos(1));
+        long second = bucket.reserve(TimeUnit.SECONDS.toNanos(1));
+        // 10 per second: the next slots are ~100 ms apart.
+        assertTrue(first > TimeUnit.MILLISECONDS.toNanos(50) && first <= TimeUnit.MILLISECONDS.toNanos(100), "first " + first);
+        assertTrue(second - first > TimeUnit.MILLISECONDS.toNanos(90), "second " + second);
+        assertFalse(bucket.tryAcquire(), "reserved slots are not free tokens");
+    }
+
+    @Test
+    void reserveBeyondMaxWaitTakesNothing() {
+        TokenBucket bucket = new TokenBucket(10, 1);
+        bucket.reserve(0);
+        assertEquals(-1, bucket.reserve(TimeUnit.MILLISECONDS.toNanos(10)));
+        // The rejected reservation left the schedule unchanged.
+        long wait = bucket.reserve(TimeUnit.SECONDS.toNanos(1));
+        assertTrue(wait <= TimeUnit.MILLISECONDS.toNanos(100), "wait " + wait);
+    }
+
+    @Test
+    void refillsOverTime() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(100, 1);
+        assertTrue(bucket.tryAcquire());
+        assertFalse(bucket.tryAcquire());
+        Thread.sleep(30);
+        assertTrue(bucket.tryAcquire());
+    }
+
+    @Test
+    void localRateLimitIsNotRetryable() {
+        TomTomApiException local = TomTomApiException.localRateLimited();
+        assertTrue(local.isLocallyRateLimited());
+        assertFalse(local.isRetryable());
+        assertTrue(new TomTomApiException("upstream", 429).isRetryable());
+    }
+}
@@ -0,0 +1,152 @@
+package com.safewalk.springboot.backend.integration.tomtom;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.safewalk.springboot.backend.Benchmark;
+import com.safewalk.springboot.backend.LatencyStats;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * TomTomRouteParser against the JsonNode tree it replaced, on calculateRoute responses
+ * shaped like TomTom's (summaries, leg points, sections and full guidance), reporting
+ * latency and bytes allocated per parse.
+ */
+@Benchmark
+class TomTomRouteParserBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TomTomRouteParserBenchmarkTest.class);
+
+    private static final int WARMUP = 300;
+    private static final int RUNS = 1_000;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void streamingParserAgainstTree() {
+        for (int points : new int[]{200, 2_000}) {
+            byte[] body = response(3, points).getBytes(StandardCharsets.UTF_8);
+            assertSameRoutes(tree(body), stream(body));
+
+            for (int i = 0; i < WARMUP; i++) {
+                tree(body);
+                stream(body);
+            }
+            LatencyStats treeStats = new LatencyStats("tree " + points + " points/route");
+            LatencyStats streamStats = new LatencyStats("stream " + points + " points/route");
+            for (int i = 0; i < RUNS; i++) {
+                treeStats.time(() -> tree(body));
+                streamStats.time(() -> stream(body));
+            }
+            long treeBytes = LatencyStats.allocatedBytes(() -> {
+                for (int i = 0; i < 100; i++) tree(body);
+            }) / 100;
+            long streamBytes = LatencyStats.allocatedBytes(() -> {
+                for (int i = 0; i < 100; i++) stream(body);
+            }) / 100;
+
+            logger.info("{} KB response: {}, {} KB allocated", body.length / 1024, treeStats, treeBytes / 1024);
+            logger.info("{} KB response: {}, {} KB allocated", body.length / 1024, streamStats, streamBytes / 1024);
+            assertTrue(streamBytes < treeBytes,
+                    "streaming allocated " + streamBytes + " bytes, tree " + treeBytes);
+        }
+    }
+
+    private List<TomTomRouteParser.ParsedRoute> stream(byte[] body) {
+        try {
+            return TomTomRouteParser.parse(new ByteArrayInputStream(body));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** The previous path: body as a String, a full tree, then summaries and points out of it. */
+    private List<TomTomRouteParser.ParsedRoute> tree(byte[] body) {
+        try {
+            JsonNode root = mapper.readTree(new String(body, StandardCharsets.UTF_8));
+            List<TomTomRouteParser.ParsedRoute> out = new ArrayList<>();
+            for (JsonNode r : root.path("routes")) {
+                List<Double> coords = new ArrayList<>();
+                for (JsonNode leg : r.path("legs")) {
+                    for (JsonNode p : leg.path("points")) {
+                        coords.add(p.path("latitude").asDouble());
+                        coords.add(p.path("longitude").asDouble());
+                    }
+                }
+                double[] points = new double[coords.size()];
+                for (int i = 0; i < points.length; i++) points[i] = coords.get(i);
+                out.add(new TomTomRouteParser.ParsedRoute(r.path("summary").path("lengthInMeters").asDouble(0.0),
+                        r.path("summary").path("travelTimeInSeconds").asDouble(0.0), points));
+            }
+            return out;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static void assertSameRoutes(List<TomTomRouteParser.ParsedRoute> expected,
+                                         List<TomTomRouteParser.ParsedRoute> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).lengthInMeters(), actual.get(i).lengthInMeters());
+            assertEquals(expected.get(i).travelTimeInSeconds(), actual.get(i).travelTimeInSeconds());
+            assertArrayEquals(expected.get(i).points(), actual.get(i).points());
+        }
+    }
+
+    /** A pedestrian calculateRoute response with guidance, as requested by the routing clients. */
+    private static String response(int routes, int pointsPerRoute) {
+        Random random = new Random(7);
+        StringBuilder json = new StringBuilder("{\"formatVersion\":\"0.0.12\",\"routes\":[");
+        for (int r = 0; r < routes; r++) {
+            if (r > 0) json.append(',');
+            int length = 1_000 + random.nextInt(5_000);
+            String summary = String.format(Locale.ROOT, "{\"lengthInMeters\":%d,\"travelTimeInSeconds\":%d,"
+                    + "\"trafficDelayInSeconds\":0,\"trafficLengthInMeters\":0,"
+                    + "\"departureTime\":\"2026-10-19T10:00:00+02:00\",\"arrivalTime\":\"2026-10-19T10:40:00+02:00\"}",
+                    length, length * 3 / 4);
+            json.append("{\"summary\":").append(summary).append(",\"legs\":[{\"summary\":").append(summary)
+                    .append(",\"points\":[");
+            double lat = 52.52, lng = 13.405;
+            List<double[]> points = new ArrayList<>(pointsPerRoute);
+            for (int i = 0; i < pointsPerRoute; i++) {
+                lat += (random.nextDouble() - 0.3) * 1e-4;
+                lng += (random.nextDouble() - 0.3) * 1e-4;
+                points.add(new double[]{lat, lng});
+                if (i > 0) json.append(',');
+                json.append(String.format(Locale.ROOT, "{\"latitude\":%.5f,\"longitude\":%.5f}", lat, lng));
+            }
+            json.append("]}],\"sections\":[{\"startPointIndex\":0,\"endPointIndex\":").append(pointsPerRoute - 1)
+                    .append(",\"sectionType\":\"TRAVEL_MODE\",\"travelMode\":\"pedestrian\"}],")
+                    .append("\"guidance\":{\"instructions\":[");
+            for (int i = 0; i < pointsPerRoute; i += 20) {
+                if (i > 0) json.append(',');
+                double[] p = points.get(i);
+                json.append(String.format(Locale.ROOT, "{\"routeOffsetInMeters\":%d,\"travelTimeInSeconds\":%d,"
+                        + "\"point\":{\"latitude\":%.5f,\"longitude\":%.5f},\"pointIndex\":%d,"
+                        + "\"instructionType\":\"TURN\",\"street\":\"Unter den Linden\",\"countryCode\":\"DEU\","
+                        + "\"junctionType\":\"REGULAR\",\"turnAngleInDecimalDegrees\":90,\"possibleCombineWithNext\":false,"
+                        + "\"drivingSide\":\"RIGHT\",\"maneuver\":\"TURN_RIGHT\","
+                        + "\"message\":\"Turn right onto Unter den Linden\"}", i * 3, i * 2, p[0], p[1], i));
+            }
+            json.append("],\"instructionGroups\":[{\"firstInstructionIndex\":0,\"lastInstructionIndex\":")
+                    .append(pointsPerRoute / 20).append(",\"groupLengthInMeters\":").append(length)
+                    .append(",\"groupMessage\":\"Leave from Pariser Platz\"}]}}");
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,172 @@
+package com.safewalk.springboot.backend.repository;
+
+import com.safewalk.springboot.backend.Benchmark;
+import com.safewalk.springboot.backend.LatencyStats;
+import com.safewalk.springboot.backend.geo.GeoHash;
+import com.safewalk.springboot.backend.geo.GeoUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Radius query latency with the geohash cell ranges of GeoCellQuery against the plain
+ * latitude/longitude box scan it replaced, on generated tables of
+ * {@code safewalk.geohash.benchmark.rows} rows (default 1M) in a PostgreSQL container.
+ *
+ * Points are spread over a 33 x 34 km city, 70% of them around 50 hotspots, over the
+ * last 90 days. Each query asks for everything within 500 m in the last 30 days, and
+ * both variants must find the same rows after the exact distance filter.
+ */
+@Benchmark
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class GeoQueryBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeoQueryBenchmarkTest.class);
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+    private static final int ROWS = Integer.getInteger("safewalk.geohash.benchmark.rows", 1_000_000);
+    private static final int QUERIES = 200;
+    private static final double RADIUS_METERS = 500;
+    private static final int BATCH = 10_000;
+    private static final double[][] HOTSPOTS = new double[50][];
+
+    static {
+        Random random = new Random(42);
+        for (int h = 0; h < HOTSPOTS.length; h++) HOTSPOTS[h] = uniform(random);
+    }
+
+    @Container
+    private static final PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:17-alpine")
+            .withUrlParam("reWriteBatchedInserts", "true");
+
+    private JdbcTemplate jdbcTemplate;
+    private final List<double[]> centres = new ArrayList<>();
+
+    @BeforeAll
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        jdbcTemplate.execute("CREATE TABLE sos_events (id bigserial PRIMARY KEY, trip_id bigint NOT NULL, "
+                + "latitude double precision, longitude double precision, geohash varchar(12), created_at timestamp)");
+        jdbcTemplate.execute("CREATE INDEX idx_sos_trip_time ON sos_events (trip_id, created_at)");
+        jdbcTemplate.execute("CREATE INDEX idx_sos_geohash_time ON sos_events (geohash, created_at)");
+        jdbcTemplate.execute("CREATE TABLE core_location_updates (id bigserial PRIMARY KEY, trip_id bigint, "
+                + "latitude double precision NOT NULL, longitude double precision NOT NULL, \"timestamp\" timestamp, "
+                + "recorded_at timestamp NOT NULL, geohash varchar(12))");
+        jdbcTemplate.execute("CREATE INDEX idx_location_trip_recorded ON core_location_updates (trip_id, recorded_at, id)");
+        jdbcTemplate.execute("CREATE INDEX idx_location_geohash ON core_location_updates (geohash, recorded_at)");
+
+        long start = System.nanoTime();
+        load("INSERT INTO sos_events (trip_id, latitude, longitude, geohash, created_at) VALUES (?, ?, ?, ?, ?)", 1);
+        load("INSERT INTO core_location_updates (trip_id, latitude, longitude, geohash, recorded_at) "
+                + "VALUES (?, ?, ?, ?, ?)", 2);
+        jdbcTemplate.execute("VACUUM ANALYZE sos_events");
+        jdbcTemplate.execute("VACUUM ANALYZE core_location_updates");
+        logger.info("Generated {} rows per table in {} s", ROWS, (System.nanoTime() - start) / 1_000_000_000);
+
+        Random random = new Random(3);
+        for (int q = 0; q < QUERIES; q++) centres.add(point(random));
+    }
+
+    @Test
+    void sosEvents() {
+        benchmark("sos_events", "created_at");
+    }
+
+    @Test
+    void locationUpdates() {
+        benchmark("core_location_updates", "recorded_at");
+    }
+
+    private void benchmark(String table, String timeColumn) {
+        LocalDateTime since = LocalDateTime.now().minusDays(30);
+        String select = "SELECT latitude, longitude FROM " + table + " WHERE ";
+        String box = "latitude BETWEEN ? AND ? AND longitude BETWEEN ? AND ? AND " + timeColumn + " >= ?"
+                + " ORDER BY " + timeColumn + " DESC";
+        LatencyStats scan = new LatencyStats(table + " box scan");
+        LatencyStats cells = new LatencyStats(table + " geohash cells");
+        long scanMatches = 0, cellMatches = 0;
+        for (double[] centre : centres) {
+            double dLat = RADIUS_METERS / METERS_PER_DEGREE;
+            double dLng = RADIUS_METERS / (METERS_PER_DEGREE * Math.cos(Math.toRadians(centre[0])));
+            double minLat = centre[0] - dLat, maxLat = centre[0] + dLat;
+            double minLng = centre[1] - dLng, maxLng = centre[1] + dLng;
+            List<Object> boxArgs = List.of(minLat, maxLat, minLng, maxLng, Timestamp.valueOf(since));
+
+            scanMatches += scan.time(() -> withinRadius(select + box, boxArgs, centre));
+
+            StringBuilder sql = new StringBuilder(select).append('(');
+            List<Object> args = new ArrayList<>();
+            List<String> covering = GeoHash.covering(minLat, minLng, maxLat, maxLng, GeoHash.STORED_PRECISION);
+            for (int c = 0; c < covering.size(); c++) {
+                String cell = covering.get(c);
+                String end = GeoHash.upperBound(cell);
+                sql.append(c == 0 ? "" : " OR ").append(end == null ? "geohash >= ?" : "(geohash >= ? AND geohash < ?)");
+                args.add(cell);
+                if (end != null) args.add(end);
+            }
+            sql.append(") AND ").append(box);
+            args.addAll(boxArgs);
+            cellMatches += cells.time(() -> withinRadius(sql.toString(), args, centre));
+        }
+        logger.info("{} rows, {} queries of {} m: {}", ROWS, QUERIES, (int) RADIUS_METERS, scan);
+        logger.info("{} rows, {} queries of {} m: {}", ROWS, QUERIES, (int) RADIUS_METERS, cells);
+        assertEquals(scanMatches, cellMatches, "geohash cells must find the same rows as the scan");
+    }
+
+    /** Rows of the query within RADIUS_METERS of the centre, filtered as GeoCellQuery does. */
+    private long withinRadius(String sql, List<Object> args, double[] centre) {
+        long[] matches = {0};
+        jdbcTemplate.query(sql, rs -> {
+            if (GeoUtils.haversineMeters(centre[0], centre[1], rs.getDouble(1), rs.getDouble(2)) <= RADIUS_METERS) {
+                matches[0]++;
+            }
+        }, args.toArray());
+        return matches[0];
+    }
+
+    private void load(String insert, long seed) {
+        Random random = new Random(seed);
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < ROWS; i++) {
+            double[] p = point(random);
+            Timestamp at = Timestamp.valueOf(now.minusSeconds(random.nextInt(90 * 86_400)));
+            batch.add(new Object[]{1L + random.nextInt(100_000), p[0], p[1],
+                    GeoHash.encode(p[0], p[1], GeoHash.STORED_PRECISION), at});
+            if (batch.size() == BATCH) {
+                jdbcTemplate.batchUpdate(insert, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) jdbcTemplate.batchUpdate(insert, batch);
+    }
+
+    private static double[] point(Random random) {
+        if (random.nextDouble() >= 0.7) return uniform(random);
+        double[] h = HOTSPOTS[random.nextInt(HOTSPOTS.length)];
+        double sigma = 300 / METERS_PER_DEGREE;
+        return new double[]{h[0] + random.nextGaussian() * sigma,
+                h[1] + random.nextGaussian() * sigma / Math.cos(Math.toRadians(h[0]))};
+    }
+
+    private static double[] uniform(Random random) {
+        return new double[]{52.35 + random.nextDouble() * 0.3, 13.1 + random.nextDouble() * 0.5};
+    }
+}
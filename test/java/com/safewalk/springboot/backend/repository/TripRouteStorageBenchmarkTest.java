@@ -0,0 +1,234 @@
+package com.safewalk.springboot.backend.repository;
+
+import com.safewalk.springboot.backend.Benchmark;
+import com.safewalk.springboot.backend.LatencyStats;
+import com.safewalk.springboot.backend.geo.GeoUtils;
+import com.safewalk.springboot.backend.geo.PolylineCodec;
+import com.safewalk.springboot.backend.geo.RouteSimplifier;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cost of loading a trip with the route geometry in the trips row, as the Trip entity
+ * mapped it before trip_routes, against the current mapping without it, on
+ * {@code safewalk.trip-route.benchmark.trips} generated trips (default 5000) in a
+ * PostgreSQL container.
+ *
+ * Both queries select the columns Hibernate selects for the respective mapping. A loaded
+ * row is held the way a managed entity is: the values plus a copy of every byte[] for
+ * dirty checking. Reported per trip: column bytes returned, bytes allocated to load it
+ * and heap retained while it is loaded.
+ */
+@Benchmark
+@Testcontainers(disabledWithoutDocker = true)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class TripRouteStorageBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(TripRouteStorageBenchmarkTest.class);
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(1) * GeoUtils.EARTH_RADIUS_METERS;
+    private static final int TRIPS = Integer.getInteger("safewalk.trip-route.benchmark.trips", 5_000);
+    private static final int LOOKUPS = 500;
+    // Default deviation threshold times the default simplify-tolerance-fraction.
+    private static final double TOLERANCE_METERS = 30.0 * 0.2;
+
+    private static final String TRIP_COLUMNS = "id, telegram_chat_id, status, route_tolerance_meters, "
+            + "deviation_threshold_meters, distance_meters, duration_seconds, safety_score, cancellation_reason, "
+            + "created_at, started_at, completed_at, track_archived_at";
+    private static final String ROUTE_COLUMNS =
+            "selected_route_polyline_json, selected_route_polyline, selected_route_polyline_full";
+
+    @Container
+    private static final PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:17-alpine")
+            .withUrlParam("reWriteBatchedInserts", "true");
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        String columns = "id bigint PRIMARY KEY, telegram_chat_id bigint, status varchar(255), "
+                + "route_tolerance_meters double precision, deviation_threshold_meters double precision, "
+                + "distance_meters double precision, duration_seconds bigint, safety_score double precision, "
+                + "cancellation_reason varchar(255), created_at timestamp, started_at timestamp, "
+                + "completed_at timestamp, track_archived_at timestamp";
+        jdbcTemplate.execute("CREATE TABLE legacy_trips (" + columns + ", selected_route_polyline_json text, "
+                + "selected_route_polyline bytea, selected_route_polyline_full bytea)");
+        jdbcTemplate.execute("CREATE TABLE trips (" + columns + ")");
+        jdbcTemplate.execute("CREATE TABLE trip_routes (trip_id bigint PRIMARY KEY, polyline bytea, polyline_full bytea)");
+
+        Random random = new Random(46);
+        List<Object[]> legacy = new ArrayList<>();
+        List<Object[]> current = new ArrayList<>();
+        List<Object[]> routes = new ArrayList<>();
+        long simplifiedBytes = 0, fullBytes = 0;
+        for (long id = 1; id <= TRIPS; id++) {
+            double[] points = route(random);
+            double[] simplified = RouteSimplifier.simplify(points, TOLERANCE_METERS);
+            byte[] polyline = PolylineCodec.encode(simplified);
+            byte[] polylineFull = simplified.length == points.length ? null : PolylineCodec.encode(points);
+            simplifiedBytes += polyline.length;
+            fullBytes += polylineFull == null ? 0 : polylineFull.length;
+
+            Object[] trip = trip(id, random);
+            current.add(trip);
+            Object[] withRoute = Arrays.copyOf(trip, trip.length + 3);
+            withRoute[trip.length + 1] = polyline;
+            withRoute[trip.length + 2] = polylineFull;
+            legacy.add(withRoute);
+            routes.add(new Object[]{id, polyline, polylineFull});
+        }
+        String values = "?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?";
+        jdbcTemplate.batchUpdate("INSERT INTO trips (" + TRIP_COLUMNS + ") VALUES (" + values + ")", current);
+        jdbcTemplate.batchUpdate("INSERT INTO legacy_trips (" + TRIP_COLUMNS + ", " + ROUTE_COLUMNS + ") VALUES ("
+                + values + ", ?, ?, ?)", legacy);
+        jdbcTemplate.batchUpdate("INSERT INTO trip_routes (trip_id, polyline, polyline_full) VALUES (?, ?, ?)", routes);
+        jdbcTemplate.execute("VACUUM ANALYZE");
+        logger.info("Generated {} trips, route geometry avg {} bytes simplified + {} bytes full",
+                TRIPS, simplifiedBytes / TRIPS, fullBytes / TRIPS);
+    }
+
+    @Test
+    void findById() {
+        long[] legacy = byId("SELECT " + TRIP_COLUMNS + ", " + ROUTE_COLUMNS + " FROM legacy_trips WHERE id = ?");
+        long[] current = byId("SELECT " + TRIP_COLUMNS + " FROM trips WHERE id = ?");
+        assertTrue(current[0] < legacy[0], "column bytes per trip: " + legacy[0] + " -> " + current[0]);
+    }
+
+    @Test
+    void findAllByStatus() {
+        long[] legacy = byStatus("SELECT " + TRIP_COLUMNS + ", " + ROUTE_COLUMNS + " FROM legacy_trips WHERE status = ?");
+        long[] current = byStatus("SELECT " + TRIP_COLUMNS + " FROM trips WHERE status = ?");
+        assertTrue(current[0] < legacy[0], "column bytes per trip: " + legacy[0] + " -> " + current[0]);
+        assertTrue(current[1] < legacy[1], "retained bytes per trip: " + legacy[1] + " -> " + current[1]);
+    }
+
+    /** @return column bytes and allocated bytes per loaded trip. */
+    private long[] byId(String sql) {
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) load(sql, 1L + random.nextInt(TRIPS));
+
+        LatencyStats latency = new LatencyStats("findById " + table(sql));
+        List<Object[]> rows = new ArrayList<>(LOOKUPS);
+        long allocated = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            long id = 1L + random.nextInt(TRIPS);
+            allocated += LatencyStats.allocatedBytes(() -> rows.addAll(latency.time(() -> load(sql, id))));
+        }
+        long perTripColumns = columnBytes(rows) / LOOKUPS;
+        logger.info("{}; per trip {} column bytes, {} bytes allocated", latency, perTripColumns, allocated / LOOKUPS);
+        return new long[]{perTripColumns, allocated / LOOKUPS};
+    }
+
+    /** @return column bytes and retained bytes per loaded trip. */
+    private long[] byStatus(String sql) {
+        for (int i = 0; i < 5; i++) load(sql, "ACTIVE");
+
+        LatencyStats latency = new LatencyStats("findAllByStatus " + table(sql));
+        List<Object[]> rows = null;
+        for (int i = 0; i < 20; i++) rows = latency.time(() -> load(sql, "ACTIVE"));
+        long retained = LatencyStats.retainedBytes(() -> load(sql, "ACTIVE"));
+        long perTripColumns = columnBytes(rows) / rows.size();
+        logger.info("{}; {} trips, per trip {} column bytes, {} bytes retained", latency, rows.size(),
+                perTripColumns, retained / rows.size());
+        return new long[]{perTripColumns, retained / rows.size()};
+    }
+
+    private List<Object[]> load(String sql, Object arg) {
+        return jdbcTemplate.query(sql, (rs, i) -> hydrate(rs), arg);
+    }
+
+    /** The row values followed by the loaded-state copy Hibernate keeps for dirty checking. */
+    private static Object[] hydrate(ResultSet rs) throws SQLException {
+        int n = rs.getMetaData().getColumnCount();
+        Object[] row = new Object[2 * n];
+        for (int c = 0; c < n; c++) {
+            Object value = rs.getObject(c + 1);
+            row[c] = value;
+            row[n + c] = value instanceof byte[] bytes ? bytes.clone() : value;
+        }
+        return row;
+    }
+
+    private static long columnBytes(List<Object[]> rows) {
+        long bytes = 0;
+        for (Object[] row : rows) {
+            for (int c = 0; c < row.length / 2; c++) {
+                Object value = row[c];
+                if (value instanceof byte[] b) bytes += b.length;
+                else if (value instanceof String s) bytes += s.getBytes(StandardCharsets.UTF_8).length;
+                else if (value != null) bytes += 8;
+            }
+        }
+        return bytes;
+    }
+
+    private static String table(String sql) {
+        return sql.substring(sql.indexOf(" FROM ") + 6, sql.indexOf(" WHERE "));
+    }
+
+    /** A trip row in TRIP_COLUMNS order: a fifth active, the rest completed. */
+    private static Object[] trip(long id, Random random) {
+        LocalDateTime created = LocalDateTime.now().minusMinutes(random.nextInt(90 * 24 * 60));
+        boolean active = random.nextInt(5) == 0;
+        return new Object[]{id, 100_000_000L + random.nextInt(1_000_000), active ? "ACTIVE" : "COMPLETED",
+                TOLERANCE_METERS, 30.0, 1_000 + random.nextDouble() * 4_000, 600L + random.nextInt(3_000),
+                random.nextDouble() * 100, null, Timestamp.valueOf(created), Timestamp.valueOf(created.plusMinutes(1)),
+                active ? null : Timestamp.valueOf(created.plusMinutes(40)), null};
+    }
+
+    /**
+     * A walking route of 1-5 km in Berlin with a vertex every 15 m, as TomTom returns
+     * them: straight street segments with a little noise and about a third of them curved.
+     */
+    static double[] route(Random random) {
+        double lat = 52.35 + random.nextDouble() * 0.3;
+        double lng = 13.1 + random.nextDouble() * 0.5;
+        double cosLat = Math.cos(Math.toRadians(lat));
+        double length = 1_000 + random.nextDouble() * 4_000;
+        double heading = random.nextDouble() * 2 * Math.PI;
+        List<double[]> points = new ArrayList<>();
+        points.add(new double[]{lat, lng});
+        double walked = 0;
+        while (walked < length) {
+            double segment = 50 + random.nextDouble() * 250;
+            double turnPerStep = random.nextInt(3) == 0 ? Math.toRadians(random.nextGaussian() * 4) : 0;
+            for (double d = 0; d < segment; d += 15) {
+                heading += turnPerStep;
+                double step = 15 + random.nextGaussian();
+                lat += step * Math.cos(heading) / METERS_PER_DEGREE;
+                lng += step * Math.sin(heading) / (METERS_PER_DEGREE * cosLat);
+                points.add(new double[]{lat, lng});
+            }
+            walked += segment;
+            heading += (random.nextBoolean() ? 1 : -1) * Math.PI / 2 + random.nextGaussian() * 0.1;
+        }
+        double[] flat = new double[points.size() * 2];
+        for (int i = 0; i < points.size(); i++) {
+            flat[2 * i] = points.get(i)[0];
+            flat[2 * i + 1] = points.get(i)[1];
+        }
+        return flat;
+    }
+}
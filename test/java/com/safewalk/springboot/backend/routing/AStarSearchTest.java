@@ -0,0 +1,135 @@
+package com.safewalk.springboot.backend.routing;
+
+import com.safewalk.springboot.backend.geo.GeoUtils;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AStarSearchTest {
+
+    private static final double STEP = 0.001;
+
+    @Test
+    void findsShortestPathOnGrid() throws IOException {
+        RoadGraph graph = grid(20, 52.0);
+        AStarSearch search = new AStarSearch(graph);
+        int from = graph.nearestNode(52.0, 13.0, 50);
+        int to = graph.nearestNode(52.0 + 19 * STEP, 13.0 + 19 * STEP, 50);
+
+        AStarSearch.Path path = search.search(from, to);
+
+        assertNotNull(path);
+        assertEquals(from, path.nodes()[0]);
+        assertEquals(to, path.nodes()[path.nodes().length - 1]);
+        // Manhattan distance on the grid: 19 steps north plus 19 steps east.
+        double expected = 19 * GeoUtils.haversineMeters(52.0, 13.0, 52.0 + STEP, 13.0)
+                + 19 * GeoUtils.haversineMeters(52.0, 13.0, 52.0, 13.0 + STEP);
+        assertEquals(expected, path.lengthMeters(), expected * 0.01);
+    }
+
+    @Test
+    void matchesDijkstraOnRandomQueries() throws IOException {
+        RoadGraph graph = grid(15, 60.0);
+        AStarSearch search = new AStarSearch(graph);
+        Random random = new Random(3);
+        for (int q = 0; q < 50; q++) {
+            int from = random.nextInt(graph.nodeCount());
+            int to = random.nextInt(graph.nodeCount());
+            AStarSearch.Path path = search.search(from, to);
+            assertNotNull(path);
+            assertEquals(dijkstra(graph, from, to), path.lengthMeters(), 0.5);
+        }
+    }
+
+    @Test
+    void penaltiesDivertAndClearRestores() throws IOException {
+        RoadGraph graph = grid(10, 52.0);
+        AStarSearch search = new AStarSearch(graph);
+        int from = graph.nearestNode(52.0, 13.0, 50);
+        int to = graph.nearestNode(52.0, 13.0 + 9 * STEP, 50);
+
+        AStarSearch.Path straight = search.search(from, to);
+        for (int e : straight.edges()) search.penalize(e, 10f);
+        AStarSearch.Path detour = search.search(from, to);
+        assertTrue(detour.lengthMeters() > straight.lengthMeters());
+        assertNotEquals(straight.edges().length, 0);
+
+        search.clearPenalties();
+        assertEquals(straight.lengthMeters(), search.search(from, to).lengthMeters(), 1e-6);
+    }
+
+    @Test
+    void unreachableTargetReturnsNull() throws IOException {
+        RoadGraph graph = RoadGraphConverter.convert(new BufferedReader(new StringReader(
+                "from_lat,from_lng,to_lat,to_lng,oneway\n52.0,13.0,52.001,13.0,true\n")));
+        AStarSearch search = new AStarSearch(graph);
+        int a = graph.nearestNode(52.0, 13.0, 50);
+        int b = graph.nearestNode(52.001, 13.0, 50);
+        assertNotNull(search.search(a, b));
+        assertNull(search.search(b, a));
+    }
+
+    @Test
+    void snapsWithinRadiusAtHighLatitude() throws IOException {
+        // At 70 degrees a degree of longitude is a third of a degree of latitude, so a node
+        // ~320 m east-west of the query is several more grid columns away than at the equator.
+        RoadGraph graph = RoadGraphConverter.convert(new BufferedReader(new StringReader(
+                "70.0,13.0,70.0,13.03\n")));
+        int near = graph.nearestNode(70.0, 13.0, 1);
+        assertTrue(GeoUtils.haversineMeters(70.0, 13.0085, 70.0, 13.0) < 400);
+        assertEquals(near, graph.nearestNode(70.0, 13.0085, 400));
+    }
+
+    @Test
+    void writtenGraphLoadsBack() throws IOException {
+        RoadGraph graph = grid(5, 52.0);
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("graph", ".swrg");
+        try {
+            graph.write(file);
+            RoadGraph loaded = RoadGraph.load(file);
+            assertEquals(graph.nodeCount(), loaded.nodeCount());
+            assertEquals(graph.edgeCount(), loaded.edgeCount());
+        } finally {
+            java.nio.file.Files.deleteIfExists(file);
+        }
+    }
+
+    /** Two-way size x size grid of streets STEP degrees apart. */
+    private static RoadGraph grid(int size, double lat0) throws IOException {
+        StringBuilder csv = new StringBuilder("from_lat,from_lng,to_lat,to_lng\n");
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                double lat = lat0 + i * STEP, lng = 13.0 + j * STEP;
+                if (i + 1 < size) csv.append(lat).append(',').append(lng).append(',').append(lat + STEP).append(',').append(lng).append('\n');
+                if (j + 1 < size) csv.append(lat).append(',').append(lng).append(',').append(lat).append(',').append(lng + STEP).append('\n');
+            }
+        }
+        return RoadGraphConverter.convert(new BufferedReader(new StringReader(csv.toString())));
+    }
+
+    private static double dijkstra(RoadGraph graph, int from, int to) {
+        double[] dist = new double[graph.nodeCount()];
+        boolean[] done = new boolean[graph.nodeCount()];
+        java.util.Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        dist[from] = 0;
+        for (int k = 0; k < graph.nodeCount(); k++) {
+            int u = -1;
+            for (int v = 0; v < dist.length; v++) if (!done[v] && (u < 0 || dist[v] < dist[u])) u = v;
+            if (u < 0 || dist[u] == Double.POSITIVE_INFINITY) break;
+            done[u] = true;
+            for (int e = graph.offsets[u]; e < graph.offsets[u + 1]; e++) {
+                dist[graph.targets[e]] = Math.min(dist[graph.targets[e]], dist[u] + graph.lengths[e]);
+            }
+        }
+        return dist[to];
+    }
+}
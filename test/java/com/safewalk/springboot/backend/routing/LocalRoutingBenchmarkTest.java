@@ -0,0 +1,132 @@
+package com.safewalk.springboot.backend.routing;
+
+import com.safewalk.springboot.backend.Benchmark;
+import com.safewalk.springboot.backend.LatencyStats;
+import com.safewalk.springboot.backend.geo.GeoUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Query latency of the local routing engine on a city-sized graph.
+ *
+ * By default the graph is generated: a jittered street grid of
+ * {@code safewalk.routing.benchmark.side}² nodes (450² ≈ 200k nodes, about 15 x 15 km)
+ * with some blocks missing and some diagonal paths, written and loaded through the same
+ * CSV converter and graph file as production. Set {@code safewalk.routing.benchmark.graph}
+ * to a converted OSM extract to measure a real city instead.
+ */
+@Benchmark
+class LocalRoutingBenchmarkTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalRoutingBenchmarkTest.class);
+
+    private static final int WARMUP = 50;
+    private static final int QUERIES = 500;
+    private static final double MIN_METERS = 500;
+    private static final double MAX_METERS = 5_000;
+
+    @Test
+    void cityScaleQueryLatency() throws IOException {
+        String configured = System.getProperty("safewalk.routing.benchmark.graph");
+        Path graphFile = configured != null ? Paths.get(configured) : generateGraph();
+        try {
+            LocalRoutingEngine engine = new LocalRoutingEngine(graphFile.toString(), 1, 2_000, new SimpleMeterRegistry());
+            long loadStart = System.nanoTime();
+            engine.load();
+            long loadMs = (System.nanoTime() - loadStart) / 1_000_000;
+            assertTrue(engine.isAvailable(), "graph did not load");
+            RoadGraph graph = RoadGraph.load(graphFile);
+            logger.info("Graph {}: {} nodes, {} edges, loaded in {} ms", graphFile.getFileName(),
+                    graph.nodeCount(), graph.edgeCount(), loadMs);
+
+            Random random = new Random(11);
+            AStarSearch search = new AStarSearch(graph);
+            LatencyStats single = new LatencyStats("A* shortest path");
+            LatencyStats withAlternatives = new LatencyStats("getRoutes, 3 alternatives");
+            int routed = 0;
+            for (int q = 0; q < WARMUP + QUERIES; q++) {
+                int[] pair = pair(graph, random);
+                String from = graph.lat[pair[0]] + "," + graph.lng[pair[0]];
+                String to = graph.lat[pair[1]] + "," + graph.lng[pair[1]];
+                if (q < WARMUP) {
+                    search.search(pair[0], pair[1]);
+                    engine.getRoutes(from, to, 3);
+                    continue;
+                }
+                single.time(() -> search.search(pair[0], pair[1]));
+                List<Map<String, Object>> routes = withAlternatives.time(() -> engine.getRoutes(from, to, 3));
+                if (routes != null) routed++;
+            }
+            logger.info("{} queries of {}-{} m: {}", QUERIES, (int) MIN_METERS, (int) MAX_METERS, single);
+            logger.info("{} queries of {}-{} m: {}", QUERIES, (int) MIN_METERS, (int) MAX_METERS, withAlternatives);
+            assertTrue(routed >= QUERIES * 0.95, "only " + routed + " of " + QUERIES + " queries were routed");
+        } finally {
+            if (configured == null) Files.deleteIfExists(graphFile);
+        }
+    }
+
+    /** Two random nodes between MIN_METERS and MAX_METERS apart as the crow flies. */
+    private static int[] pair(RoadGraph graph, Random random) {
+        while (true) {
+            int a = random.nextInt(graph.nodeCount());
+            int b = random.nextInt(graph.nodeCount());
+            double d = GeoUtils.haversineMeters(graph.lat[a], graph.lng[a], graph.lat[b], graph.lng[b]);
+            if (d >= MIN_METERS && d <= MAX_METERS) return new int[]{a, b};
+        }
+    }
+
+    private static Path generateGraph() throws IOException {
+        int side = Integer.getInteger("safewalk.routing.benchmark.side", 450);
+        double latStep = 0.0003, lngStep = 0.0005; // ~33 m x ~34 m at 52.5°N
+        Random random = new Random(5);
+        double[][] lat = new double[side][side];
+        double[][] lng = new double[side][side];
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                lat[r][c] = 52.45 + r * latStep + (random.nextDouble() - 0.5) * 0.6 * latStep;
+                lng[r][c] = 13.20 + c * lngStep + (random.nextDouble() - 0.5) * 0.6 * lngStep;
+            }
+        }
+        Path csv = Files.createTempFile("safewalk-city", ".csv");
+        Path graphFile = Files.createTempFile("safewalk-city", ".swrg");
+        try {
+            try (BufferedWriter out = Files.newBufferedWriter(csv)) {
+                out.write("from_lat,from_lng,to_lat,to_lng\n");
+                for (int r = 0; r < side; r++) {
+                    for (int c = 0; c < side; c++) {
+                        if (c + 1 < side && random.nextDouble() < 0.9) segment(out, lat[r][c], lng[r][c], lat[r][c + 1], lng[r][c + 1]);
+                        if (r + 1 < side && random.nextDouble() < 0.9) segment(out, lat[r][c], lng[r][c], lat[r + 1][c], lng[r + 1][c]);
+                        if (r + 1 < side && c + 1 < side && random.nextDouble() < 0.05) {
+                            segment(out, lat[r][c], lng[r][c], lat[r + 1][c + 1], lng[r + 1][c + 1]);
+                        }
+                    }
+                }
+            }
+            try (BufferedReader in = Files.newBufferedReader(csv)) {
+                RoadGraphConverter.convert(in).write(graphFile);
+            }
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+        return graphFile;
+    }
+
+    private static void segment(BufferedWriter out, double lat1, double lng1, double lat2, double lng2) throws IOException {
+        out.write(String.format(Locale.ROOT, "%.6f,%.6f,%.6f,%.6f\n", lat1, lng1, lat2, lng2));
+    }
+}
@@ -0,0 +1,119 @@
+package com.safewalk.springboot.backend.service;
+
+import com.safewalk.springboot.backend.entity.TripStatus;
+import com.safewalk.springboot.backend.repository.TripRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Transition rules of TripStateTransitionService against a repository that applies the
+ * compare-and-set to a single in-memory row, as the UPDATE ... WHERE status IN (...) would.
+ */
+class TripStateTransitionServiceTest {
+
+    private static final long TRIP_ID = 1L;
+
+    private final AtomicReference<TripStatus> row = new AtomicReference<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TripStateTransitionService service;
+
+    @BeforeEach
+    void setUp() {
+        TripRepository repository = mock(TripRepository.class);
+        when(repository.compareAndSetStatus(anyLong(), anyCollection(), any(TripStatus.class)))
+                .thenAnswer(cas(2));
+        when(repository.compareAndSetCompleted(anyLong(), anyCollection(), any()))
+                .thenAnswer(inv -> apply(inv.getArgument(1), TripStatus.COMPLETED));
+        when(repository.compareAndSetCancelled(anyLong(), anyCollection(), anyString()))
+                .thenAnswer(inv -> apply(inv.getArgument(1), TripStatus.CANCELLED));
+        service = new TripStateTransitionService(repository, meterRegistry);
+    }
+
+    @Test
+    void startsOnlyCreatedOrPendingTrips() {
+        row.set(TripStatus.PENDING);
+        assertTrue(service.start(TRIP_ID));
+        assertEquals(TripStatus.ACTIVE, row.get());
+
+        row.set(TripStatus.DEVIATION_ALERT);
+        assertFalse(service.start(TRIP_ID), "a deviation clear is not a start");
+        assertEquals(TripStatus.DEVIATION_ALERT, row.get());
+    }
+
+    @Test
+    void deviationClearCannotResetAnSos() {
+        row.set(TripStatus.ACTIVE);
+        assertTrue(service.transition(TRIP_ID, TripStatus.DEVIATION_ALERT));
+        assertTrue(service.transition(TRIP_ID, TripStatus.SOS_TRIGGERED));
+
+        assertFalse(service.transition(TRIP_ID, TripStatus.ACTIVE));
+        assertEquals(TripStatus.SOS_TRIGGERED, row.get());
+    }
+
+    @Test
+    void terminalStatesAreFinal() {
+        for (TripStatus terminal : EnumSet.of(TripStatus.COMPLETED, TripStatus.CANCELLED)) {
+            for (TripStatus to : TripStatus.values()) {
+                row.set(terminal);
+                service.transition(TRIP_ID, to);
+                service.complete(TRIP_ID);
+                service.cancel(TRIP_ID, "late");
+                assertEquals(terminal, row.get(), terminal + " -> " + to);
+            }
+        }
+    }
+
+    @Test
+    void completeAndCancelRaceHasOneWinner() {
+        row.set(TripStatus.SOS_TRIGGERED);
+        assertTrue(service.complete(TRIP_ID));
+        assertFalse(service.cancel(TRIP_ID, "too late"));
+        assertEquals(TripStatus.COMPLETED, row.get());
+    }
+
+    @Test
+    void countsOutcomes() {
+        row.set(TripStatus.ACTIVE);
+        service.transition(TRIP_ID, TripStatus.DEVIATION_ALERT);
+        service.transition(TRIP_ID, TripStatus.DEVIATION_ALERT);
+
+        assertEquals(1.0, meterRegistry.counter("safewalk.trip.transitions",
+                "to", "DEVIATION_ALERT", "outcome", "applied").count());
+        assertEquals(1.0, meterRegistry.counter("safewalk.trip.transitions",
+                "to", "DEVIATION_ALERT", "outcome", "conflict").count());
+    }
+
+    @Test
+    void everyTargetHasLegalSourcesExceptCreated() {
+        for (TripStatus to : TripStatus.values()) {
+            assertEquals(to == TripStatus.CREATED, TripStateTransitionService.legalSources(to).isEmpty(), to.name());
+            assertFalse(TripStateTransitionService.legalSources(to).contains(to), "self-loop on " + to);
+        }
+    }
+
+    private Answer<Integer> cas(int targetArg) {
+        return inv -> apply(inv.getArgument(1), inv.getArgument(targetArg));
+    }
+
+    private int apply(Collection<TripStatus> from, TripStatus to) {
+        TripStatus current = row.get();
+        if (!from.contains(current)) return 0;
+        return row.compareAndSet(current, to) ? 1 : 0;
+    }
+}